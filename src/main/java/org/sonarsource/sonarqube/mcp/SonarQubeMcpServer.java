@@ -48,10 +48,15 @@ import org.sonarsource.sonarqube.mcp.client.TransportMode;
 import org.sonarsource.sonarqube.mcp.configuration.McpServerLaunchConfiguration;
 import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.log.StatsReporter;
+import org.sonarsource.sonarqube.mcp.plugins.AnalyzersLoader;
 import org.sonarsource.sonarqube.mcp.plugins.PluginsSynchronizer;
+import org.sonarsource.sonarqube.mcp.serverapi.ConditionalGetCache;
 import org.sonarsource.sonarqube.mcp.serverapi.EndpointParams;
+import org.sonarsource.sonarqube.mcp.serverapi.InFlightRequests;
 import org.sonarsource.sonarqube.mcp.serverapi.OrgFeatureEntitlements;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiCache;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiProvider;
 import org.sonarsource.sonarqube.mcp.serverapi.features.Feature;
@@ -61,7 +66,9 @@ import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 import org.sonarsource.sonarqube.mcp.tools.ToolCategory;
 import org.sonarsource.sonarqube.mcp.tools.ToolExecutor;
+import org.sonarsource.sonarqube.mcp.tools.analysis.AnalysisResultCache;
 import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool;
+import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetsTool;
 import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeFileListTool;
 import org.sonarsource.sonarqube.mcp.tools.analysis.RunAdvancedCodeAnalysisTool;
 import org.sonarsource.sonarqube.mcp.tools.analysis.ToggleAutomaticAnalysisTool;
@@ -176,10 +183,38 @@ public class SonarQubeMcpServer implements ServerApiProvider {
    * ServerApi instance used for startup probing (version check, SCA availability, plugin sync).
    * - In stdio mode: created once at startup with the configured token; also used for all tool calls.
    * - In HTTP mode: created at startup only when a startup token is configured (SONARQUBE_TOKEN env var).
-   *   Per-request tool calls always use a fresh ServerApi built from the token in the request's Authorization: Bearer header.
+   *   Per-request tool calls use a ServerApi built from the token in the request's Authorization: Bearer header,
+   *   reused across requests through {@link #requestServerApis}.
    */
   @Nullable
   private ServerApi serverApi;
+  /**
+   * In HTTP mode, request-scoped ServerApi instances keyed by (token, organization), so that tenant state (org UUID, server
+   * version, features) is resolved once per tenant instead of on every tool call.
+   */
+  private final ServerApiCache requestServerApis = new ServerApiCache();
+  /**
+   * Conditional-GET cache shared by all SonarQube ServerApi instances, entries are scoped per token.
+   */
+  private final ConditionalGetCache responseCache = new ConditionalGetCache();
+  /**
+   * Coalesces identical concurrent GETs (same URL and token) issued by SonarQube ServerApi instances during agent bursts.
+   */
+  private final InFlightRequests inFlightRequests = new InFlightRequests();
+  /**
+   * Periodically logs the statistics of the caches and HTTP client when debug logs are enabled.
+   */
+  private final StatsReporter statsReporter = new StatsReporter();
+  /**
+   * Results of the local snippet analyses, shared by the analysis tools. Only set when they are registered.
+   */
+  @Nullable
+  private AnalysisResultCache analysisResultCache;
+  /**
+   * Loads the analyzers used by the local analysis tools. Only set when they are registered.
+   */
+  @Nullable
+  private AnalyzersLoader analyzersLoader;
   /**
    * Effective SonarQube Cloud organization for the stdio session (key and optional cached UUID v4).
    * Set by {@link #resolveOrganizationAtStartup()}. HTTP mode resolves organization per request instead.
@@ -271,7 +306,13 @@ public class SonarQubeMcpServer implements ServerApiProvider {
    */
   private void initializeBasicServicesAndTools() {
     this.backendService = new BackendService(mcpConfiguration);
-    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent());
+    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent(), mcpConfiguration.getHttpClientSettings());
+    statsReporter.register("Response cache", responseCache::stats);
+    statsReporter.register("In-flight request coalescing", inFlightRequests::stats);
+    statsReporter.register("HTTP connection pool", httpClientProvider::getConnectionPoolStats);
+    statsReporter.register("HTTP resilience", httpClientProvider::getResilienceStats);
+    statsReporter.register("HTTP compression", httpClientProvider::getCompressionStats);
+    statsReporter.start();
 
     if (mcpConfiguration.isTelemetryEnabled()) {
       var analyticsHttpClient = httpClientProvider.getHttpClientForAnalytics(AnalyticsClient.resolveApiKey());
@@ -283,8 +324,10 @@ public class SonarQubeMcpServer implements ServerApiProvider {
     // In stdio mode: pass the shared pre-resolved ConnectionContext
     // In HTTP mode: pass a supplier that captures the request-scoped ServerApi synchronously to the async analytics task
     this.toolExecutor = mcpConfiguration.isHttpEnabled()
-      ? new ToolExecutor(backendService, analyticsService, null, this, mcpConfiguration.getMcpServerId(), this::resolveEnabledToolsets)
-      : new ToolExecutor(backendService, analyticsService, connectionContext, null, mcpConfiguration.getMcpServerId(), this::resolveEnabledToolsets);
+      ? new ToolExecutor(backendService, analyticsService, null, this, mcpConfiguration.getMcpServerId(), this::resolveEnabledToolsets,
+        mcpConfiguration.getToolTimeouts())
+      : new ToolExecutor(backendService, analyticsService, connectionContext, null, mcpConfiguration.getMcpServerId(), this::resolveEnabledToolsets,
+        mcpConfiguration.getToolTimeouts());
 
     var configuredOrgKey = mcpConfiguration.getSonarqubeOrg();
     if (configuredOrgKey != null) {
@@ -298,8 +341,14 @@ public class SonarQubeMcpServer implements ServerApiProvider {
 
     sonarQubeVersionChecker.failIfSonarQubeServerVersionIsNotSupported();
 
-    // Initialize backend immediately with empty analyzers so we can check IDE bridge availability
-    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+    var noAnalyzers = new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class));
+    if (mcpConfiguration.isToolCategoryEnabled(ToolCategory.ANALYSIS)) {
+      // Initialize backend immediately with empty analyzers so we can check IDE bridge availability
+      backendService.initialize(noAnalyzers);
+    } else {
+      // Without local analysis, the backend is only used to report telemetry
+      backendService.initializeOnFirstUse(noAnalyzers);
+    }
     backendService.notifyTransportModeUsed();
 
     setBaseInstructions();
@@ -389,14 +438,8 @@ public class SonarQubeMcpServer implements ServerApiProvider {
         return;
       }
 
-      var pluginsSynchronizer = new PluginsSynchronizer(Objects.requireNonNull(serverApi), mcpConfiguration.getStoragePath());
-
       LOG.info("Downloading analyzers in background...");
-      var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
-
-      // Restart backend with the downloaded analyzers
-      LOG.info("Restarting backend with downloaded analyzers...");
-      backendService.restartWithAnalyzers(analyzers);
+      Objects.requireNonNull(analyzersLoader).loadInitialAnalyzers();
 
       initializationFuture.complete(null);
       LOG.info("Background initialization completed successfully - analyzers are now available");
@@ -482,8 +525,25 @@ public class SonarQubeMcpServer implements ServerApiProvider {
       }
     }
     if (!useIdeBridge) {
+      if (!mcpConfiguration.isToolCategoryEnabled(ToolCategory.ANALYSIS)) {
+        // The analysis tools would be filtered out, do not build their result cache nor its persisted directory
+        LOG.debug("Analysis tools are disabled - skipping local analysis tools");
+        return;
+      }
       LOG.info("Standard analysis mode (no IDE bridge)");
-      supportedTools.add(new AnalyzeCodeSnippetTool(backendService, this, initializationFuture, mcpConfiguration.getProjectKey(), mcpConfiguration.getWorkspacePath()));
+      var resultCache = new AnalysisResultCache(mcpConfiguration.getAnalysisCacheSizeBytes(),
+        mcpConfiguration.isAnalysisCachePersisted() ? mcpConfiguration.getStoragePath().resolve("analysis-cache") : null);
+      this.analysisResultCache = resultCache;
+      var pluginsSynchronizer = new PluginsSynchronizer(Objects.requireNonNull(serverApi), mcpConfiguration.getStoragePath(),
+        mcpConfiguration.getPluginDownloadConcurrency(), mcpConfiguration.getAnalyzersStorePath());
+      var loader = mcpConfiguration.isAnalyzersLoadedLazily()
+        ? AnalyzersLoader.lazy(pluginsSynchronizer, backendService, mcpConfiguration.getAnalyzersPrefetch())
+        : AnalyzersLoader.eager(pluginsSynchronizer, backendService);
+      this.analyzersLoader = loader;
+      supportedTools.add(new AnalyzeCodeSnippetTool(backendService, this, initializationFuture, mcpConfiguration.getProjectKey(), mcpConfiguration.getWorkspacePath(),
+        resultCache, loader));
+      supportedTools.add(new AnalyzeCodeSnippetsTool(backendService, this, initializationFuture, mcpConfiguration.getProjectKey(), mcpConfiguration.getWorkspacePath(),
+        resultCache, loader));
     }
   }
 
@@ -652,8 +712,8 @@ public class SonarQubeMcpServer implements ServerApiProvider {
 
   /**
    * Get ServerApi instance for the current request context.
-   * - In HTTP stateless mode: Creates a new ServerApi per tool call using the token and org
-   *   extracted from the HTTP request headers via McpTransportContext.
+   * - In HTTP stateless mode: Returns a ServerApi for the token and org extracted from the HTTP request headers
+   *   via McpTransportContext. Instances are cached per (token, org) and evicted after a period of inactivity.
    *   Org resolution follows strict rules:
    *   - If SONARQUBE_ORG is set at server startup, it is used for all requests and clients
    *     must NOT supply a SONARQUBE_ORG header (doing so results in an error).
@@ -674,7 +734,7 @@ public class SonarQubeMcpServer implements ServerApiProvider {
       }
       var orgFromRequest = (String) ctx.get(HttpServerTransportProvider.CONTEXT_ORG_KEY);
       var organization = getOrganization(orgFromRequest);
-      return createServerApiWithTokenAndOrg(token, organization);
+      return requestServerApis.getOrCreate(token, organization, () -> createServerApiWithTokenAndOrg(token, organization));
     } else {
       return Objects.requireNonNull(serverApi, "ServerApi not initialized");
     }
@@ -737,7 +797,7 @@ public class SonarQubeMcpServer implements ServerApiProvider {
     var apiUrl = mcpConfiguration.getSonarQubeCloudApiUrl();
     var isSonarQubeCloud = mcpConfiguration.isSonarQubeCloud();
     var httpClient = token != null ? httpClientProvider.getHttpClient(token) : httpClientProvider.getAnonymousHttpClient();
-    var serverApiHelper = new ServerApiHelper(new EndpointParams(url, organization, apiUrl, isSonarQubeCloud), httpClient);
+    var serverApiHelper = new ServerApiHelper(new EndpointParams(url, organization, apiUrl, isSonarQubeCloud), httpClient, responseCache, inFlightRequests, token);
     return new ServerApi(serverApiHelper, isSonarQubeCloud);
   }
 
@@ -808,6 +868,9 @@ public class SonarQubeMcpServer implements ServerApiProvider {
   }
 
   private void shutdownHttpClient() {
+    requestServerApis.clear();
+    statsReporter.stop();
+    responseCache.clear();
     if (httpClientProvider == null) {
       return;
     }
@@ -832,6 +895,9 @@ public class SonarQubeMcpServer implements ServerApiProvider {
   }
 
   private void shutdownBackend() {
+    if (analysisResultCache != null) {
+      LOG.debug("Analysis result cache: " + analysisResultCache.stats());
+    }
     try {
       backendService.shutdown();
     } catch (Exception e) {
@@ -32,7 +32,7 @@ public class SonarQubeVersionChecker {
 
   public void failIfSonarQubeServerVersionIsNotSupported() {
     if (!serverApi.isSonarQubeCloud()) {
-      var version = Version.create(serverApi.systemApi().getStatus().version());
+      var version = Version.create(serverApi.systemApi().getVersion());
       if (!version.satisfiesMinRequirement(MINIMAL_SUPPORTED_SONARQUBE_SERVER_VERSION)) {
         throw new IllegalStateException("SonarQube server version is not supported, minimal version is SQS 2025.1 or SQCB 25.1");
       }
@@ -41,7 +41,7 @@ public class SonarQubeVersionChecker {
 
   public boolean isSonarQubeServerVersionHigherOrEqualsThan(String minVersion) {
     if (!serverApi.isSonarQubeCloud()) {
-      var version = Version.create(serverApi.systemApi().getStatus().version());
+      var version = Version.create(serverApi.systemApi().getVersion());
       return version.satisfiesMinRequirement(Version.create(minVersion));
     }
     return false;
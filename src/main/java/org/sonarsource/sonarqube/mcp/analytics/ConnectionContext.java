@@ -62,7 +62,7 @@ public class ConnectionContext {
         this.organizationUuidV4 = serverApi.organizationsApi().getOrganizationUuidV4(orgKey);
       }
     } else {
-      this.sqsInstallationId = serverApi.systemApi().getStatus().id();
+      this.sqsInstallationId = serverApi.systemApi().getInstallationId();
     }
     this.userUuid = serverApi.usersApi().getCurrentUserId();
   }
@@ -20,6 +20,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -30,7 +31,12 @@ import jakarta.annotation.Nullable;
 import org.jetbrains.annotations.NotNull;
 import org.sonarsource.sonarqube.mcp.SonarQubeMcpServer;
 import org.sonarsource.sonarqube.mcp.authentication.AuthMode;
+import org.sonarsource.sonarqube.mcp.http.HttpClientSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpCompletionMode;
+import org.sonarsource.sonarqube.mcp.http.ResilienceSettings;
+import org.sonarsource.sonarqube.mcp.plugins.PluginsSynchronizer;
 import org.sonarsource.sonarqube.mcp.tools.ToolCategory;
+import org.sonarsource.sonarqube.mcp.tools.ToolTimeouts;
 
 import static java.util.Objects.requireNonNull;
 
@@ -95,6 +101,30 @@ public class McpServerLaunchConfiguration {
 
   private static final String SONARQUBE_MCP_IN_CONTAINER = "SONARQUBE_MCP_IN_CONTAINER";
 
+  // Outgoing HTTP client configuration
+  private static final String SONARQUBE_HTTP2_ENABLED = "SONARQUBE_HTTP2_ENABLED";
+  private static final String SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE = "SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE";
+  private static final String SONARQUBE_CONNECTION_POOL_MAX_TOTAL = "SONARQUBE_CONNECTION_POOL_MAX_TOTAL";
+  private static final String SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS = "SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS";
+  private static final String SONARQUBE_CONNECTION_TTL_SECONDS = "SONARQUBE_CONNECTION_TTL_SECONDS";
+  private static final String SONARQUBE_HTTP_MAX_RETRIES = "SONARQUBE_HTTP_MAX_RETRIES";
+  private static final String SONARQUBE_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "SONARQUBE_CIRCUIT_BREAKER_FAILURE_THRESHOLD";
+  private static final String SONARQUBE_CIRCUIT_BREAKER_OPEN_SECONDS = "SONARQUBE_CIRCUIT_BREAKER_OPEN_SECONDS";
+  private static final String SONARQUBE_HTTP_COMPLETION_MODE = "SONARQUBE_HTTP_COMPLETION_MODE";
+  private static final String SONARQUBE_TOOL_TIMEOUT_SECONDS = "SONARQUBE_TOOL_TIMEOUT_SECONDS";
+  private static final String SONARQUBE_TOOL_TIMEOUTS = "SONARQUBE_TOOL_TIMEOUTS";
+
+  // Local analysis configuration
+  private static final String SONARQUBE_ANALYSIS_CACHE_SIZE_MB = "SONARQUBE_ANALYSIS_CACHE_SIZE_MB";
+  private static final String SONARQUBE_ANALYSIS_CACHE_PERSISTED = "SONARQUBE_ANALYSIS_CACHE_PERSISTED";
+  private static final int DEFAULT_ANALYSIS_CACHE_SIZE_MB = 16;
+  private static final String SONARQUBE_ANALYSIS_BACKENDS = "SONARQUBE_ANALYSIS_BACKENDS";
+  private static final int DEFAULT_ANALYSIS_BACKENDS = 1;
+  private static final String SONARQUBE_PLUGIN_DOWNLOAD_CONCURRENCY = "SONARQUBE_PLUGIN_DOWNLOAD_CONCURRENCY";
+  private static final String SONARQUBE_ANALYZERS_STORE_PATH = "SONARQUBE_ANALYZERS_STORE_PATH";
+  private static final String SONARQUBE_ANALYZERS_LAZY = "SONARQUBE_ANALYZERS_LAZY";
+  private static final String SONARQUBE_ANALYZERS_PREFETCH = "SONARQUBE_ANALYZERS_PREFETCH";
+
   private final Path storagePath;
   private final String hostMachineAddress;
   private final String sonarqubeUrl;
@@ -139,6 +169,16 @@ public class McpServerLaunchConfiguration {
 
   private final boolean isFileLoggingDisabled;
   private final boolean isRunningInContainer;
+  private final HttpClientSettings httpClientSettings;
+  private final ToolTimeouts toolTimeouts;
+  private final long analysisCacheSizeBytes;
+  private final boolean isAnalysisCachePersisted;
+  private final int analysisBackends;
+  private final int pluginDownloadConcurrency;
+  @Nullable
+  private final Path analyzersStorePath;
+  private final boolean isAnalyzersLoadedLazily;
+  private final List<String> analyzersPrefetch;
 
   private final String mcpServerId;
 
@@ -199,7 +239,7 @@ public class McpServerLaunchConfiguration {
     this.httpsTruststoreType = getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTPS_TRUSTSTORE_TYPE, DEFAULT_KEYSTORE_TYPE);
     
     this.authMode = parseAuthMode(environment);
-    this.httpAllowedOrigins = parseAllowedOrigins(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_ALLOWED_ORIGINS, null));
+    this.httpAllowedOrigins = parseCommaSeparatedValues(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_ALLOWED_ORIGINS, null));
 
     // Parse tool category configuration
     var toolsetsStr = getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_TOOLSETS, null);
@@ -213,6 +253,22 @@ public class McpServerLaunchConfiguration {
 
     this.isFileLoggingDisabled = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_LOG_TO_FILE_DISABLED, "false"));
     this.isRunningInContainer = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_MCP_IN_CONTAINER, "false"));
+    this.httpClientSettings = parseHttpClientSettings(environment);
+    var defaultToolTimeoutSeconds = parseIntValue(SONARQUBE_TOOL_TIMEOUT_SECONDS,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_TOOL_TIMEOUT_SECONDS, null), (int) ToolTimeouts.DEFAULT_BUDGET.toSeconds(), 0);
+    this.toolTimeouts = new ToolTimeouts(Duration.ofSeconds(defaultToolTimeoutSeconds),
+      ToolTimeouts.parseBudgetsByTool(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_TOOL_TIMEOUTS, null)));
+    this.analysisCacheSizeBytes = parseIntValue(SONARQUBE_ANALYSIS_CACHE_SIZE_MB,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYSIS_CACHE_SIZE_MB, null), DEFAULT_ANALYSIS_CACHE_SIZE_MB, 0) * 1024L * 1024L;
+    this.isAnalysisCachePersisted = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYSIS_CACHE_PERSISTED, "false"));
+    this.analysisBackends = parseIntValue(SONARQUBE_ANALYSIS_BACKENDS,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYSIS_BACKENDS, null), DEFAULT_ANALYSIS_BACKENDS, 1);
+    this.pluginDownloadConcurrency = parseIntValue(SONARQUBE_PLUGIN_DOWNLOAD_CONCURRENCY,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_PLUGIN_DOWNLOAD_CONCURRENCY, null), PluginsSynchronizer.DEFAULT_DOWNLOAD_CONCURRENCY, 1);
+    var analyzersStorePathString = getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYZERS_STORE_PATH, null);
+    this.analyzersStorePath = isNullOrBlank(analyzersStorePathString) ? null : Paths.get(analyzersStorePathString);
+    this.isAnalyzersLoadedLazily = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYZERS_LAZY, "false"));
+    this.analyzersPrefetch = parseCommaSeparatedValues(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_ANALYZERS_PREFETCH, null));
 
     this.mcpServerId = UUID.randomUUID().toString();
   }
@@ -401,6 +457,54 @@ public class McpServerLaunchConfiguration {
     }
   }
 
+  private static HttpClientSettings parseHttpClientSettings(Map<String, String> environment) {
+    var maxPerRoute = parsePositiveInt(SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE, null), HttpClientSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    var maxTotal = parsePositiveInt(SONARQUBE_CONNECTION_POOL_MAX_TOTAL,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CONNECTION_POOL_MAX_TOTAL, null), Math.max(HttpClientSettings.DEFAULT_MAX_CONNECTIONS_TOTAL, maxPerRoute));
+    if (maxTotal < maxPerRoute) {
+      throw new IllegalArgumentException(SONARQUBE_CONNECTION_POOL_MAX_TOTAL + " value must not be lower than " + SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE
+        + ", got: " + maxTotal + " < " + maxPerRoute);
+    }
+    var idleTimeoutSeconds = parsePositiveInt(SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS, null), (int) HttpClientSettings.DEFAULT_IDLE_CONNECTION_TIMEOUT.toSeconds());
+    var ttlSeconds = parseIntValue(SONARQUBE_CONNECTION_TTL_SECONDS, getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CONNECTION_TTL_SECONDS, null), 0, 0);
+    return new HttpClientSettings(
+      Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP2_ENABLED, "false")),
+      maxPerRoute, maxTotal, Duration.ofSeconds(idleTimeoutSeconds), Duration.ofSeconds(ttlSeconds), parseResilienceSettings(environment),
+      HttpCompletionMode.parse(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_COMPLETION_MODE, "direct")));
+  }
+
+  private static ResilienceSettings parseResilienceSettings(Map<String, String> environment) {
+    var defaults = ResilienceSettings.defaults();
+    var maxRetries = parseIntValue(SONARQUBE_HTTP_MAX_RETRIES, getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_MAX_RETRIES, null),
+      defaults.maxRetries(), 0);
+    var failureThreshold = parsePositiveInt(SONARQUBE_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CIRCUIT_BREAKER_FAILURE_THRESHOLD, null), defaults.circuitBreakerFailureThreshold());
+    var openSeconds = parsePositiveInt(SONARQUBE_CIRCUIT_BREAKER_OPEN_SECONDS,
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_CIRCUIT_BREAKER_OPEN_SECONDS, null), (int) defaults.circuitBreakerOpenDuration().toSeconds());
+    return new ResilienceSettings(maxRetries, defaults.initialBackoff(), defaults.maxBackoff(), failureThreshold, Duration.ofSeconds(openSeconds));
+  }
+
+  private static int parsePositiveInt(String name, @Nullable String value, int defaultValue) {
+    return parseIntValue(name, value, defaultValue, 1);
+  }
+
+  private static int parseIntValue(String name, @Nullable String value, int defaultValue, int minValue) {
+    if (isNullOrBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      var parsed = Integer.parseInt(value.trim());
+      if (parsed < minValue) {
+        throw new IllegalArgumentException(name + " value must be " + (minValue == 1 ? "a positive integer" : ("at least " + minValue)) + ", got: " + parsed);
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + name + " value: " + value, e);
+    }
+  }
+
   /**
    * In stdio mode, either SONARQUBE_URL or SONARQUBE_ORG must be set.
    * There is no per-request org resolution, so connecting without a URL or org key makes no sense.
@@ -492,7 +596,7 @@ public class McpServerLaunchConfiguration {
     return candidate.toFile().isDirectory() ? candidate : null;
   }
 
-  private static List<String> parseAllowedOrigins(@Nullable String rawValue) {
+  private static List<String> parseCommaSeparatedValues(@Nullable String rawValue) {
     if (rawValue == null || rawValue.isBlank()) {
       return List.of();
     }
@@ -552,6 +656,70 @@ public class McpServerLaunchConfiguration {
     return workspacePath;
   }
 
+  /**
+   * Returns the settings of the HTTP client used to call SonarQube.
+   */
+  public HttpClientSettings getHttpClientSettings() {
+    return httpClientSettings;
+  }
+
+  /**
+   * Returns the time budgets of tool invocations.
+   */
+  public ToolTimeouts getToolTimeouts() {
+    return toolTimeouts;
+  }
+
+  /**
+   * Returns the maximum size of the cached analysis results, 0 when the cache is disabled.
+   */
+  public long getAnalysisCacheSizeBytes() {
+    return analysisCacheSizeBytes;
+  }
+
+  /**
+   * Returns whether the cached analysis results are persisted under the storage path to survive restarts.
+   */
+  public boolean isAnalysisCachePersisted() {
+    return isAnalysisCachePersisted;
+  }
+
+  /**
+   * Returns the maximum number of backends running analyses at the same time, each one with the rules of a different project.
+   */
+  public int getAnalysisBackends() {
+    return analysisBackends;
+  }
+
+  /**
+   * Returns the maximum number of analyzers downloaded in parallel.
+   */
+  public int getPluginDownloadConcurrency() {
+    return pluginDownloadConcurrency;
+  }
+
+  /**
+   * Returns the directory of the analyzers shared with other server instances, null when each instance downloads its own analyzers.
+   */
+  @Nullable
+  public Path getAnalyzersStorePath() {
+    return analyzersStorePath;
+  }
+
+  /**
+   * Returns whether an analyzer is only downloaded and loaded when the first analysis of one of its languages arrives.
+   */
+  public boolean isAnalyzersLoadedLazily() {
+    return isAnalyzersLoadedLazily;
+  }
+
+  /**
+   * Returns the languages, or plugin keys, whose analyzers are loaded at startup when analyzers are loaded lazily.
+   */
+  public List<String> getAnalyzersPrefetch() {
+    return analyzersPrefetch;
+  }
+
   /**
    * Returns the unique identifier for this MCP server instance, generated at startup.
    */
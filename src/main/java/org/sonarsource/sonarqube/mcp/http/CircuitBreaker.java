@@ -0,0 +1,112 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker for a single host.
+ * <p>
+ * Once {@code failureThreshold} consecutive calls failed, the breaker opens and calls fail fast for {@code openDuration}.
+ * A single probe is then let through (half-open): its success closes the breaker, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openDurationNanos;
+  private final LongSupplier nanoClock;
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+  private boolean probeInFlight;
+
+  CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+    this.failureThreshold = failureThreshold;
+    this.openDurationNanos = openDuration.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Returns whether a call may be made. A half-open breaker admits a single probe at a time.
+   */
+  synchronized boolean tryAcquire() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openDurationNanos) {
+      state = State.HALF_OPEN;
+      probeInFlight = false;
+    }
+    return switch (state) {
+      case CLOSED -> true;
+      case OPEN -> false;
+      case HALF_OPEN -> {
+        if (probeInFlight) {
+          yield false;
+        }
+        probeInFlight = true;
+        yield true;
+      }
+    };
+  }
+
+  /**
+   * Returns true when this success closed a half-open breaker.
+   */
+  synchronized boolean onSuccess() {
+    consecutiveFailures = 0;
+    var wasHalfOpen = state == State.HALF_OPEN;
+    state = State.CLOSED;
+    probeInFlight = false;
+    return wasHalfOpen;
+  }
+
+  /**
+   * Returns true when this failure opened the breaker.
+   */
+  synchronized boolean onFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+      state = State.OPEN;
+      openedAtNanos = nanoClock.getAsLong();
+      probeInFlight = false;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Releases the probe slot of a half-open breaker when the probe ended without a verdict, e.g. it was cancelled.
+   */
+  synchronized void onAbandoned() {
+    probeInFlight = false;
+  }
+
+  public synchronized State state() {
+    return state;
+  }
+
+  synchronized Duration remainingOpenDuration() {
+    if (state != State.OPEN) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos(Math.max(0, openDurationNanos - (nanoClock.getAsLong() - openedAtNanos)));
+  }
+
+}
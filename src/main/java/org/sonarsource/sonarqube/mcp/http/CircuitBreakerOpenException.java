@@ -0,0 +1,31 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Raised without contacting the server while its circuit breaker is open.
+ */
+public class CircuitBreakerOpenException extends IllegalStateException {
+
+  public CircuitBreakerOpenException(String host, Duration retryIn) {
+    super("SonarQube at " + host + " is temporarily unavailable after repeated failures, requests are suspended for "
+      + Math.max(1, retryIn.toSeconds()) + "s");
+  }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+/**
+ * Snapshot of the outgoing connection pool, used to size it from real traffic.
+ *
+ * @param leased connections currently in use by a request
+ * @param pending requests waiting for a connection to become available
+ * @param available idle connections kept alive in the pool
+ * @param max maximum number of connections the pool can hold
+ */
+public record ConnectionPoolStats(int leased, int pending, int available, int max) {
+
+  @Override
+  public String toString() {
+    return "leased=" + leased + ", pending=" + pending + ", available=" + available + ", max=" + max;
+  }
+
+}
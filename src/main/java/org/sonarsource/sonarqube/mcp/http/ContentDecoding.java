@@ -0,0 +1,249 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import jakarta.annotation.Nullable;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+
+/**
+ * Negotiates gzip/deflate compression of SonarQube responses and transparently decodes them, keeping track of the
+ * bytes saved on the wire.
+ * <p>
+ * Buffered responses are decoded once received, up to {@link #DEFAULT_MAX_DECODED_BYTES} so that a small compressed payload cannot
+ * expand into an unbounded buffer. Streamed responses are decoded while being read, their readers bound what they keep.
+ */
+public class ContentDecoding {
+
+  static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+  static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+  static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+  private static final String GZIP = "gzip";
+  private static final String X_GZIP = "x-gzip";
+  private static final String DEFLATE = "deflate";
+  public static final int DEFAULT_MAX_DECODED_BYTES = 64 * 1024 * 1024;
+
+  private final int maxDecodedBytes;
+
+  private final AtomicLong compressedResponses = new AtomicLong();
+  private final AtomicLong compressedBytes = new AtomicLong();
+  private final AtomicLong decompressedBytes = new AtomicLong();
+  private final AtomicLong uncompressedResponses = new AtomicLong();
+  private final AtomicLong uncompressedBytes = new AtomicLong();
+
+  public ContentDecoding() {
+    this(DEFAULT_MAX_DECODED_BYTES);
+  }
+
+  ContentDecoding(int maxDecodedBytes) {
+    this.maxDecodedBytes = maxDecodedBytes;
+  }
+
+  /**
+   * Replaces the compressed body of a buffered response by its decoded content.
+   *
+   * @throws UncheckedIOException when the body cannot be decoded, or is larger than the limit once decoded
+   */
+  void decode(SimpleHttpResponse response) {
+    var header = response.getFirstHeader(CONTENT_ENCODING_HEADER);
+    var encoding = header != null ? header.getValue() : null;
+    var body = response.getBodyBytes();
+    if (body == null || body.length == 0) {
+      return;
+    }
+    if (!isSupported(encoding)) {
+      uncompressedResponses.incrementAndGet();
+      uncompressedBytes.addAndGet(body.length);
+      return;
+    }
+    byte[] decoded;
+    try (var decodingStream = newDecodingStream(encoding, new ByteArrayInputStream(body))) {
+      decoded = decodingStream.readNBytes(maxDecodedBytes);
+      if (decodingStream.read() != -1) {
+        throw new IOException("it exceeds " + maxDecodedBytes + " bytes once decoded (" + body.length + " bytes compressed)");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to decode " + encoding + " response body: " + e.getMessage(), e);
+    }
+    compressedResponses.incrementAndGet();
+    compressedBytes.addAndGet(body.length);
+    decompressedBytes.addAndGet(decoded.length);
+    response.setBody(decoded, response.getContentType());
+    response.removeHeaders(CONTENT_ENCODING_HEADER);
+  }
+
+  /**
+   * Wraps a streamed body so that it is decoded while being read. Nothing is read from {@code rawBody} before the first read
+   * of the returned stream, so this can be called from an I/O thread.
+   */
+  InputStream decodingStream(@Nullable String contentEncoding, InputStream rawBody) {
+    if (!isSupported(contentEncoding)) {
+      uncompressedResponses.incrementAndGet();
+      return new CountingInputStream(rawBody, uncompressedBytes);
+    }
+    compressedResponses.incrementAndGet();
+    return new CountingInputStream(new LazyDecodingInputStream(contentEncoding, new CountingInputStream(rawBody, compressedBytes)), decompressedBytes);
+  }
+
+  public CompressionStats stats() {
+    return new CompressionStats(compressedResponses.get(), compressedBytes.get(), decompressedBytes.get(), uncompressedResponses.get(), uncompressedBytes.get());
+  }
+
+  private static boolean isSupported(@Nullable String contentEncoding) {
+    if (contentEncoding == null) {
+      return false;
+    }
+    var encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+    return GZIP.equals(encoding) || X_GZIP.equals(encoding) || DEFLATE.equals(encoding);
+  }
+
+  private static InputStream newDecodingStream(String contentEncoding, InputStream rawBody) throws IOException {
+    if (DEFLATE.equals(contentEncoding.trim().toLowerCase(Locale.ROOT))) {
+      // "deflate" should be zlib-wrapped, but some servers send raw deflate data
+      var pushback = new PushbackInputStream(rawBody, 2);
+      var header = pushback.readNBytes(2);
+      pushback.unread(header);
+      return new InflaterInputStream(pushback, new Inflater(!isZlibHeader(header)));
+    }
+    return new GZIPInputStream(rawBody);
+  }
+
+  private static boolean isZlibHeader(byte[] header) {
+    if (header.length < 2) {
+      return false;
+    }
+    var cmf = header[0] & 0xff;
+    var flg = header[1] & 0xff;
+    return (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+  }
+
+  /**
+   * @param compressedResponses number of responses received compressed
+   * @param compressedBytes size on the wire of the compressed responses
+   * @param decompressedBytes size of the compressed responses once decoded
+   * @param uncompressedResponses number of responses received without compression
+   * @param uncompressedBytes size of the responses received without compression
+   */
+  public record CompressionStats(long compressedResponses, long compressedBytes, long decompressedBytes, long uncompressedResponses, long uncompressedBytes) {
+
+    /**
+     * Decoded size over size on the wire of the compressed responses, 1 when none was compressed.
+     */
+    public double compressionRatio() {
+      return compressedBytes == 0 ? 1 : ((double) decompressedBytes / compressedBytes);
+    }
+
+    @Override
+    public String toString() {
+      return "compressed responses=" + compressedResponses + " (" + compressedBytes + " bytes on the wire, " + decompressedBytes + " bytes decoded, ratio "
+        + String.format(Locale.ROOT, "%.1f", compressionRatio()) + "), uncompressed responses=" + uncompressedResponses + " (" + uncompressedBytes + " bytes)";
+    }
+  }
+
+  private static class LazyDecodingInputStream extends InputStream {
+
+    private final String contentEncoding;
+    private final InputStream rawBody;
+    @Nullable
+    private InputStream decoded;
+
+    private LazyDecodingInputStream(String contentEncoding, InputStream rawBody) {
+      this.contentEncoding = contentEncoding;
+      this.rawBody = rawBody;
+    }
+
+    private InputStream decoded() throws IOException {
+      if (decoded == null) {
+        var pushback = new PushbackInputStream(rawBody, 1);
+        var first = pushback.read();
+        if (first == -1) {
+          // e.g. 204 or 304 answers carrying a Content-Encoding header
+          decoded = InputStream.nullInputStream();
+        } else {
+          pushback.unread(first);
+          decoded = newDecodingStream(contentEncoding, pushback);
+        }
+      }
+      return decoded;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return decoded().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return decoded().read(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (decoded != null) {
+        decoded.close();
+      } else {
+        rawBody.close();
+      }
+    }
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+
+    private final AtomicLong counter;
+
+    private CountingInputStream(InputStream in, AtomicLong counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      var b = super.read();
+      if (b != -1) {
+        counter.incrementAndGet();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      var read = super.read(b, off, len);
+      if (read > 0) {
+        counter.addAndGet(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      var skipped = super.skip(n);
+      counter.addAndGet(skipped);
+      return skipped;
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+
+/**
+ * Time budget of a tool invocation, bound to the thread executing it. Calls made to SonarQube on this thread wait at most until
+ * the deadline, after which the request is cancelled and aborted upstream.
+ */
+public final class Deadline {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final Duration budget;
+  private final long expiresAtNanos;
+
+  private Deadline(Duration budget) {
+    this.budget = budget;
+    this.expiresAtNanos = System.nanoTime() + budget.toNanos();
+  }
+
+  public static Deadline after(Duration budget) {
+    return new Deadline(budget);
+  }
+
+  /**
+   * Returns the deadline bound to the current thread, if any.
+   */
+  @Nullable
+  public static Deadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs the given action with this deadline bound to the current thread.
+   */
+  public <T> T callWithin(Supplier<T> action) {
+    var previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return action.get();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  public Duration remaining() {
+    return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return expiresAtNanos - System.nanoTime() <= 0;
+  }
+
+  DeadlineExceededException exceeded() {
+    return new DeadlineExceededException(budget);
+  }
+
+  /**
+   * Waits for the future like {@link CompletableFuture#join()}, but not beyond the deadline of the current thread, if any. On expiry
+   * the future is cancelled, which aborts the underlying request.
+   */
+  public static <T> T await(CompletableFuture<T> future) {
+    return await(future, () -> future.cancel(true));
+  }
+
+  /**
+   * Same as {@link #await(CompletableFuture)}, but leaves the future running on expiry, for futures shared with other callers. The
+   * given action is run instead, e.g. to cancel the future once no caller waits for it anymore.
+   */
+  public static <T> T awaitShared(CompletableFuture<T> future, Runnable onGivingUp) {
+    return await(future, onGivingUp);
+  }
+
+  private static <T> T await(CompletableFuture<T> future, Runnable onGivingUp) {
+    var deadline = CURRENT.get();
+    if (deadline == null) {
+      return future.join();
+    }
+    try {
+      return future.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      onGivingUp.run();
+      throw deadline.exceeded();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      onGivingUp.run();
+      throw new CancellationException("Interrupted while waiting for " + future);
+    } catch (ExecutionException e) {
+      // a deadline that expired before the request was sent is reported like one expiring while waiting
+      if (e.getCause() instanceof DeadlineExceededException deadlineExceeded) {
+        throw deadlineExceeded;
+      }
+      // same exception as join() would throw
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+}
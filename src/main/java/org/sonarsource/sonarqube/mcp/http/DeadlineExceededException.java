@@ -0,0 +1,34 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Raised when a tool invocation ran out of its time budget while waiting for SonarQube.
+ */
+public class DeadlineExceededException extends IllegalStateException {
+
+  public DeadlineExceededException(Duration budget) {
+    super("SonarQube did not answer within the " + format(budget) + " budget of this tool call, the request was aborted");
+  }
+
+  private static String format(Duration budget) {
+    return budget.toSeconds() > 0 ? (budget.toSeconds() + "s") : (budget.toMillis() + "ms");
+  }
+
+}
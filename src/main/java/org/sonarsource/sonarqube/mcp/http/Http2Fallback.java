@@ -0,0 +1,90 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.Nullable;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.H2StreamResetException;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+/**
+ * Chooses the HTTP version policy per host when HTTP/2 is enabled. HTTP/2 is negotiated through ALPN, and a host whose
+ * HTTP/2 exchanges fail at the protocol level (e.g. a reverse proxy with a broken HTTP/2 implementation) is switched to
+ * HTTP/1.1 for the lifetime of the process.
+ */
+class Http2Fallback {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+
+  private static final TlsConfig NEGOTIATE = TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.NEGOTIATE).build();
+  private static final TlsConfig HTTP_1 = TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build();
+
+  private final Set<String> http1OnlyHosts = ConcurrentHashMap.newKeySet();
+
+  TlsConfig tlsConfigFor(HttpHost host) {
+    var port = host.getPort() != -1 ? host.getPort() : defaultPort(host.getSchemeName());
+    return http1OnlyHosts.contains(hostKey(host.getHostName(), port)) ? HTTP_1 : NEGOTIATE;
+  }
+
+  /**
+   * Records a failed exchange. If the failure comes from the HTTP/2 layer, next connections to that host use HTTP/1.1.
+   */
+  void onFailure(String url, Throwable failure) {
+    if (!isHttp2ProtocolFailure(failure)) {
+      return;
+    }
+    try {
+      var uri = URI.create(url);
+      var port = uri.getPort() != -1 ? uri.getPort() : defaultPort(uri.getScheme());
+      if (http1OnlyHosts.add(hostKey(uri.getHost(), port))) {
+        LOG.warn("HTTP/2 exchange with " + uri.getHost() + " failed (" + failure.getMessage() + "), falling back to HTTP/1.1 for this host");
+      }
+    } catch (IllegalArgumentException e) {
+      // cannot identify the host, nothing to remember
+    }
+  }
+
+  boolean isHttp1Only(String host, int port) {
+    return http1OnlyHosts.contains(hostKey(host, port));
+  }
+
+  private static boolean isHttp2ProtocolFailure(@Nullable Throwable failure) {
+    while (failure != null) {
+      if (failure instanceof H2ConnectionException || failure instanceof H2StreamResetException) {
+        return true;
+      }
+      failure = failure.getCause();
+    }
+    return false;
+  }
+
+  private static int defaultPort(@Nullable String scheme) {
+    return "http".equalsIgnoreCase(scheme) ? 80 : 443;
+  }
+
+  private static String hostKey(String host, int port) {
+    return host.toLowerCase(Locale.ROOT) + ":" + port;
+  }
+
+}
@@ -17,11 +17,14 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.io.Closeable;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import jakarta.annotation.Nullable;
 
 public interface HttpClient {
 
   String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+  String RANGE_HEADER = "Range";
 
   interface Response extends Closeable {
 
@@ -42,12 +45,39 @@ public interface HttpClient {
     void close();
 
     String url();
+
+    /**
+     * Returns the first value of the given response header, or null if absent.
+     */
+    @Nullable
+    String header(String name);
   }
 
   CompletableFuture<Response> getAsync(String url);
 
+  /**
+   * Authenticated GET with additional request headers, e.g. conditional request validators.
+   */
+  CompletableFuture<Response> getAsync(String url, Map<String, String> headers);
+
   CompletableFuture<Response> getAsyncAnonymous(String url);
 
+  /**
+   * Authenticated GET completing as soon as the response headers are received. The body is not buffered: it is
+   * downloaded while being read from {@link Response#bodyAsStream()}, so the response must always be closed.
+   */
+  CompletableFuture<Response> getStreamingAsync(String url);
+
+  /**
+   * Streaming GET with additional request headers. When a {@link #RANGE_HEADER} is given, the response is not content-encoded, so that
+   * the requested byte offsets apply to the resource itself.
+   */
+  CompletableFuture<Response> getStreamingAsync(String url, Map<String, String> headers);
+
+  CompletableFuture<Response> getStreamingAsyncAnonymous(String url);
+
+  CompletableFuture<Response> getStreamingAsyncAnonymous(String url, Map<String, String> headers);
+
   CompletableFuture<Response> postAsync(String url, String contentType, String body);
 
 }
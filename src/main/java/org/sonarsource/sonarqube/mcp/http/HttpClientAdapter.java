@@ -17,13 +17,17 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.net.URISyntaxException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import jakarta.annotation.Nullable;
 import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
 import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.Cancellable;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
 
@@ -40,16 +44,34 @@ class HttpClientAdapter implements HttpClient {
   private final boolean isBridgeClient;
   @Nullable
   private final String apiKey;
+  @Nullable
+  private final Http2Fallback http2Fallback;
+  @Nullable
+  private final ContentDecoding contentDecoding;
+  @Nullable
+  private final HttpCompletionMode.ResponseCompletion responseCompletion;
 
   HttpClientAdapter(CloseableHttpAsyncClient apacheClient, @Nullable String sonarqubeCloudToken, boolean isBridgeClient) {
-    this(apacheClient, sonarqubeCloudToken, isBridgeClient, null);
+    this(apacheClient, sonarqubeCloudToken, isBridgeClient, null, null, null, null);
   }
 
   HttpClientAdapter(CloseableHttpAsyncClient apacheClient, @Nullable String sonarqubeCloudToken, boolean isBridgeClient, @Nullable String apiKey) {
+    this(apacheClient, sonarqubeCloudToken, isBridgeClient, apiKey, null, null, null);
+  }
+
+  /**
+   * @param contentDecoding when set, gzip/deflate compressed responses are requested and transparently decoded
+   * @param responseCompletion where response futures are completed, the default async pool when null
+   */
+  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, @Nullable String sonarqubeCloudToken, boolean isBridgeClient, @Nullable String apiKey,
+    @Nullable Http2Fallback http2Fallback, @Nullable ContentDecoding contentDecoding, @Nullable HttpCompletionMode.ResponseCompletion responseCompletion) {
     this.apacheClient = apacheClient;
     this.token = sonarqubeCloudToken;
     this.isBridgeClient = isBridgeClient;
     this.apiKey = apiKey;
+    this.http2Fallback = http2Fallback;
+    this.contentDecoding = contentDecoding;
+    this.responseCompletion = responseCompletion;
   }
 
   @Override
@@ -62,34 +84,63 @@ class HttpClientAdapter implements HttpClient {
         .addHeader(HOST_HEADER, LOCALHOST)
         .addHeader(ORIGIN_HEADER, LOCALHOST_ORIGIN);
     }
+    if (contentDecoding != null) {
+      requestBuilder.addHeader(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.SUPPORTED_ENCODINGS);
+    }
     
     return executeAsync(requestBuilder.build(), token);
   }
 
   @Override
   public CompletableFuture<Response> getAsync(String url) {
-    var requestBuilder = SimpleRequestBuilder.get(url);
+    return getAsync(url, Map.of());
+  }
 
-    if (isBridgeClient) {
-      requestBuilder
-        .addHeader(HOST_HEADER, LOCALHOST)
-        .addHeader(ORIGIN_HEADER, LOCALHOST_ORIGIN);
-    }
-    
-    return executeAsync(requestBuilder.build(), token);
+  @Override
+  public CompletableFuture<Response> getAsync(String url, Map<String, String> headers) {
+    return executeAsync(buildGet(url, headers), token);
   }
 
   @Override
   public CompletableFuture<Response> getAsyncAnonymous(String url) {
+    return executeAsync(buildGet(url, Map.of()), null);
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsync(String url) {
+    return getStreamingAsync(url, Map.of());
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsync(String url, Map<String, String> headers) {
+    return executeStreamingAsync(buildGet(url, headers), token);
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsyncAnonymous(String url) {
+    return getStreamingAsyncAnonymous(url, Map.of());
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsyncAnonymous(String url, Map<String, String> headers) {
+    return executeStreamingAsync(buildGet(url, headers), null);
+  }
+
+  private SimpleHttpRequest buildGet(String url, Map<String, String> headers) {
     var requestBuilder = SimpleRequestBuilder.get(url);
+    headers.forEach(requestBuilder::addHeader);
 
     if (isBridgeClient) {
       requestBuilder
         .addHeader(HOST_HEADER, LOCALHOST)
         .addHeader(ORIGIN_HEADER, LOCALHOST_ORIGIN);
     }
-    
-    return executeAsync(requestBuilder.build(), null);
+    // Byte ranges of an encoded response would apply to the encoded representation
+    if (contentDecoding != null && !headers.containsKey(RANGE_HEADER)) {
+      requestBuilder.addHeader(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.SUPPORTED_ENCODINGS);
+    }
+
+    return requestBuilder.build();
   }
 
   private class CompletableFutureWrappingFuture extends CompletableFuture<Response> {
@@ -100,18 +151,18 @@ class HttpClientAdapter implements HttpClient {
       this.wrapped = apacheClient.execute(httpRequest, new FutureCallback<>() {
         @Override
         public void completed(SimpleHttpResponse result) {
-          try {
-            var uri = httpRequest.getUri().toString();
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(uri, result));
-          } catch (URISyntaxException e) {
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(httpRequest.getRequestUri(), result));
+          var uri = requestUrl(httpRequest);
+          Supplier<Response> response = () -> new HttpResponse(uri, result, contentDecoding);
+          if (responseCompletion != null) {
+            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(response, responseCompletion.bufferedResponses());
+          } else {
+            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(response);
           }
         }
 
         @Override
         public void failed(Exception ex) {
+          onFailure(httpRequest, ex);
           HttpClientAdapter.CompletableFutureWrappingFuture.this.completeExceptionally(ex);
         }
 
@@ -132,20 +183,114 @@ class HttpClientAdapter implements HttpClient {
     }
   }
 
-  private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
-    try {
-      if (tokenToUse != null) {
-        httpRequest.setHeader(AUTHORIZATION_HEADER, bearer(tokenToUse));
+  /**
+   * Completes as soon as the response headers are received, the body is then pulled by the caller through
+   * {@link Response#bodyAsStream()} while it is being downloaded.
+   */
+  private class StreamingCompletableFuture extends CompletableFuture<Response> {
+
+    private final Future<Response> wrapped;
+
+    private StreamingCompletableFuture(SimpleHttpRequest httpRequest, @Nullable Deadline deadline) {
+      var consumer = new StreamingResponseConsumer(requestUrl(httpRequest), contentDecoding, deadline);
+      this.wrapped = apacheClient.execute(SimpleRequestProducer.create(httpRequest), consumer, new FutureCallback<>() {
+        @Override
+        public void completed(Response result) {
+          // never complete on the I/O reactor thread: the caller reads the body synchronously and would block the reactor
+          var executor = responseCompletion != null ? responseCompletion.streamedResponses() : defaultExecutor();
+          executor.execute(() -> completeOrClose(result));
+        }
+
+        @Override
+        public void failed(Exception ex) {
+          onFailure(httpRequest, ex);
+          HttpClientAdapter.StreamingCompletableFuture.this.completeExceptionally(ex);
+        }
+
+        @Override
+        public void cancelled() {
+          HttpClientAdapter.StreamingCompletableFuture.this.cancel();
+        }
+      });
+      if (wrapped instanceof Cancellable exchange) {
+        // unlike Future#cancel, this also aborts an exchange whose headers were already received
+        consumer.attachExchange(exchange);
       }
-      if (apiKey != null) {
-        httpRequest.setHeader(X_API_KEY_HEADER, apiKey);
+    }
+
+    /**
+     * A response received after the cancellation has no reader anymore, it is closed to release its connection.
+     */
+    private void completeOrClose(Response response) {
+      if (!complete(response)) {
+        response.close();
       }
+    }
+
+    private void cancel() {
+      super.cancel(true);
+    }
+
+    /**
+     * Once the headers are received the exchange cannot be cancelled anymore: only this future is cancelled, and the response is
+     * closed when it is handed over.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var exchangeCancelled = wrapped.cancel(mayInterruptIfRunning);
+      return super.cancel(mayInterruptIfRunning) || exchangeCancelled;
+    }
+  }
+
+  private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
+    var deadline = Deadline.current();
+    if (deadline != null && deadline.isExpired()) {
+      return CompletableFuture.failedFuture(deadline.exceeded());
+    }
+    try {
+      setAuthenticationHeaders(httpRequest, tokenToUse);
       return new CompletableFutureWrappingFuture(httpRequest);
     } catch (Exception e) {
       throw new IllegalStateException("Unable to execute request: " + e.getMessage(), e);
     }
   }
 
+  private CompletableFuture<Response> executeStreamingAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
+    var deadline = Deadline.current();
+    if (deadline != null && deadline.isExpired()) {
+      return CompletableFuture.failedFuture(deadline.exceeded());
+    }
+    try {
+      setAuthenticationHeaders(httpRequest, tokenToUse);
+      return new StreamingCompletableFuture(httpRequest, deadline);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to execute request: " + e.getMessage(), e);
+    }
+  }
+
+  private void setAuthenticationHeaders(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
+    if (tokenToUse != null) {
+      httpRequest.setHeader(AUTHORIZATION_HEADER, bearer(tokenToUse));
+    }
+    if (apiKey != null) {
+      httpRequest.setHeader(X_API_KEY_HEADER, apiKey);
+    }
+  }
+
+  private void onFailure(SimpleHttpRequest httpRequest, Exception failure) {
+    if (http2Fallback != null) {
+      http2Fallback.onFailure(requestUrl(httpRequest), failure);
+    }
+  }
+
+  private static String requestUrl(SimpleHttpRequest httpRequest) {
+    try {
+      return httpRequest.getUri().toString();
+    } catch (URISyntaxException e) {
+      return httpRequest.getRequestUri();
+    }
+  }
+
   private static String bearer(String token) {
     return String.format("Bearer %s", token);
   }
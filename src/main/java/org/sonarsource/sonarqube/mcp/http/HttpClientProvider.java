@@ -18,31 +18,51 @@ package org.sonarsource.sonarqube.mcp.http;
 
 import java.net.InetSocketAddress;
 import java.net.ProxySelector;
+import java.util.Locale;
+import jakarta.annotation.Nullable;
 import nl.altindag.ssl.SSLFactory;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.TlsConfig;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.SystemDefaultCredentialsProvider;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
 import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 
 public class HttpClientProvider {
 
   private static final McpLogger LOG = McpLogger.getInstance();
   private final CloseableHttpAsyncClient httpClient;
+  private final PoolingAsyncClientConnectionManager connectionManager;
   private final String userAgent;
   private final String sslProtocol;
   private final int trustedCertificates;
   private final String proxySelector;
+  private final HttpClientSettings settings;
+  @Nullable
+  private final Http2Fallback http2Fallback;
+  private final HttpResilience resilience;
+  private final ContentDecoding contentDecoding = new ContentDecoding();
+  private final HttpCompletionMode.ResponseCompletion responseCompletion;
 
   public HttpClientProvider(String userAgent) {
+    this(userAgent, HttpClientSettings.defaults());
+  }
+
+  public HttpClientProvider(String userAgent, HttpClientSettings settings) {
     this.userAgent = userAgent;
+    this.settings = settings;
+    this.http2Fallback = settings.http2Enabled() ? new Http2Fallback() : null;
+    this.resilience = new HttpResilience(settings.resilience());
+    this.responseCompletion = settings.completionMode().createCompletion();
     var sslFactoryBuilder = SSLFactory.builder()
       .withDefaultTrustMaterial();
     if (isClientCertificateConfigured()) {
@@ -62,22 +82,37 @@ public class HttpClientProvider {
     this.sslProtocol = sslContext.getProtocol();
     this.trustedCertificates = sslFactory.getTrustedCertificates().size();
 
-    var asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+    var connectionConfig = ConnectionConfig.custom();
+    if (!settings.connectionTimeToLive().isZero()) {
+      connectionConfig.setTimeToLive(TimeValue.ofMilliseconds(settings.connectionTimeToLive().toMillis()));
+    }
+    var connectionManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create()
       .setTlsStrategy(new DefaultClientTlsStrategy(sslContext))
-      .setDefaultTlsConfig(TlsConfig.custom()
-        // Force HTTP/1 since we know SQ/SC don't support HTTP/2 ATM
+      // Library defaults (5 per route) cap concurrency against the single SonarQube host
+      .setMaxConnPerRoute(settings.maxConnectionsPerRoute())
+      .setMaxConnTotal(settings.maxConnectionsTotal())
+      .setDefaultConnectionConfig(connectionConfig.build());
+    if (http2Fallback != null) {
+      // HTTP/2 is negotiated through ALPN (e.g. api.sonarcloud.io, reverse proxies), hosts failing at the HTTP/2 level fall back to HTTP/1.1
+      connectionManagerBuilder.setTlsConfigResolver(http2Fallback::tlsConfigFor);
+    } else {
+      connectionManagerBuilder.setDefaultTlsConfig(TlsConfig.custom()
+        // Force HTTP/1 by default since SQ/SC don't reliably support HTTP/2
         .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
-        .build())
-      .build();
+        .build());
+    }
+    this.connectionManager = connectionManagerBuilder.build();
 
     var defaultProxySelector = ProxySelector.getDefault();
     this.proxySelector = defaultProxySelector != null ? defaultProxySelector.getClass().getName() : "none";
 
     var httpClientBuilder = HttpAsyncClients.custom()
-      .setConnectionManager(asyncConnectionManager)
+      .setConnectionManager(connectionManager)
       .addResponseInterceptorFirst(new RedirectInterceptor())
       .setUserAgent(userAgent)
-      .setDefaultCredentialsProvider(new SystemDefaultCredentialsProvider());
+      .setDefaultCredentialsProvider(new SystemDefaultCredentialsProvider())
+      .evictExpiredConnections()
+      .evictIdleConnections(TimeValue.ofMilliseconds(settings.idleConnectionTimeout().toMillis()));
     if (defaultProxySelector != null) {
       httpClientBuilder.setRoutePlanner(new SystemDefaultRoutePlanner(defaultProxySelector));
     }
@@ -128,11 +163,11 @@ public class HttpClientProvider {
   }
 
   public HttpClient getHttpClient(String sonarqubeCloudToken) {
-    return new HttpClientAdapter(httpClient, sonarqubeCloudToken, false);
+    return new ResilientHttpClient(new HttpClientAdapter(httpClient, sonarqubeCloudToken, false, null, http2Fallback, contentDecoding, responseCompletion), resilience);
   }
 
   public HttpClient getAnonymousHttpClient() {
-    return new HttpClientAdapter(httpClient, null, false);
+    return new ResilientHttpClient(new HttpClientAdapter(httpClient, null, false, null, http2Fallback, contentDecoding, responseCompletion), resilience);
   }
 
   /**
@@ -151,8 +186,31 @@ public class HttpClientProvider {
     return new HttpClientAdapter(httpClient, null, false, apiKey);
   }
 
+  /**
+   * Current usage of the connection pool, cheap enough to be sampled periodically.
+   */
+  public ConnectionPoolStats getConnectionPoolStats() {
+    var totalStats = connectionManager.getTotalStats();
+    return new ConnectionPoolStats(totalStats.getLeased(), totalStats.getPending(), totalStats.getAvailable(), totalStats.getMax());
+  }
+
+  /**
+   * Retry counts and circuit breaker states of the calls made to SonarQube.
+   */
+  public HttpResilience.Stats getResilienceStats() {
+    return resilience.stats();
+  }
+
+  /**
+   * Compression ratio and bytes received from SonarQube.
+   */
+  public ContentDecoding.CompressionStats getCompressionStats() {
+    return contentDecoding.stats();
+  }
+
   public void shutdown() {
     httpClient.close(CloseMode.IMMEDIATE);
+    responseCompletion.shutdown();
   }
 
   public void logConnectionSettings() {
@@ -179,6 +237,16 @@ public class HttpClientProvider {
       LOG.debug("No proxy system properties configured");
     }
     LOG.debug("HTTP client user agent: " + userAgent);
+    LOG.debug("HTTP/2: " + (settings.http2Enabled() ? "negotiated via ALPN" : "disabled"));
+    LOG.debug("HTTP connection pool - max per route: " + settings.maxConnectionsPerRoute()
+      + ", max total: " + settings.maxConnectionsTotal()
+      + ", idle timeout: " + settings.idleConnectionTimeout().toSeconds() + "s"
+      + ", time to live: " + (settings.connectionTimeToLive().isZero() ? "unlimited" : (settings.connectionTimeToLive().toSeconds() + "s")));
+    LOG.debug("HTTP response completion: " + settings.completionMode().name().toLowerCase(Locale.ROOT));
+    var resilienceSettings = settings.resilience();
+    LOG.debug("HTTP resilience - max retries: " + resilienceSettings.maxRetries()
+      + ", circuit breaker threshold: " + resilienceSettings.circuitBreakerFailureThreshold()
+      + ", circuit breaker open duration: " + resilienceSettings.circuitBreakerOpenDuration().toSeconds() + "s");
   }
 
 }
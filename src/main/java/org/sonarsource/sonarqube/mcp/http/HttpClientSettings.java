@@ -0,0 +1,57 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Tunables of the outgoing HTTP client.
+ *
+ * @param http2Enabled when true, HTTP/2 is negotiated through ALPN on TLS connections, falling back to HTTP/1.1 per host
+ * @param maxConnectionsPerRoute maximum number of pooled connections to a single host
+ * @param maxConnectionsTotal maximum number of pooled connections across all hosts
+ * @param idleConnectionTimeout pooled connections idle for longer than this are evicted
+ * @param connectionTimeToLive maximum lifetime of a pooled connection, {@link Duration#ZERO} for no limit
+ * @param resilience retries and circuit breaker applied to calls made to SonarQube
+ * @param completionMode where the futures of requests made to SonarQube are completed
+ */
+public record HttpClientSettings(boolean http2Enabled, int maxConnectionsPerRoute, int maxConnectionsTotal, Duration idleConnectionTimeout,
+  Duration connectionTimeToLive, ResilienceSettings resilience, HttpCompletionMode completionMode) {
+
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 50;
+  public static final Duration DEFAULT_IDLE_CONNECTION_TIMEOUT = Duration.ofSeconds(60);
+
+  public HttpClientSettings {
+    if (maxConnectionsPerRoute <= 0 || maxConnectionsTotal <= 0) {
+      throw new IllegalArgumentException("Connection pool limits must be positive");
+    }
+    if (idleConnectionTimeout.isNegative() || connectionTimeToLive.isNegative()) {
+      throw new IllegalArgumentException("Connection timeouts must not be negative");
+    }
+  }
+
+  public HttpClientSettings(boolean http2Enabled) {
+    this(http2Enabled, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_TOTAL, DEFAULT_IDLE_CONNECTION_TIMEOUT, Duration.ZERO,
+      ResilienceSettings.defaults(), HttpCompletionMode.DIRECT);
+  }
+
+  public static HttpClientSettings defaults() {
+    return new HttpClientSettings(false);
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.annotation.Nullable;
+
+/**
+ * Where the futures of HTTP requests are completed once the response is received, i.e. where the callers blocked on them are
+ * woken up from.
+ */
+public enum HttpCompletionMode {
+
+  /**
+   * Completes on the I/O reactor thread, saving a thread hop per request. Wrapping a buffered response is cheap, its body is only
+   * decoded when read by the caller.
+   */
+  DIRECT,
+  /**
+   * Completes on a dedicated pool bounded to the number of processors.
+   */
+  POOL,
+  /**
+   * Completes on a new virtual thread per response.
+   */
+  VIRTUAL_THREADS;
+
+  public static HttpCompletionMode parse(String value) {
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid HTTP completion mode '" + value + "', expected one of: direct, pool, virtual_threads", e);
+    }
+  }
+
+  ResponseCompletion createCompletion() {
+    return switch (this) {
+      // streamed responses are still completed off the I/O reactor thread: their body is read synchronously by the caller
+      case DIRECT -> new ResponseCompletion(Runnable::run, ForkJoinPool.commonPool(), null);
+      case POOL -> {
+        var pool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), new DaemonThreadFactory());
+        yield new ResponseCompletion(pool, pool, pool);
+      }
+      case VIRTUAL_THREADS -> {
+        var executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sonarqube-http-completion-", 0).factory());
+        yield new ResponseCompletion(executor, executor, executor);
+      }
+    };
+  }
+
+  /**
+   * @param bufferedResponses completes the futures of buffered responses
+   * @param streamedResponses completes the futures of streamed responses, never the I/O reactor thread
+   * @param owned the executor to shut down with the HTTP client, if any
+   */
+  record ResponseCompletion(Executor bufferedResponses, Executor streamedResponses, @Nullable ExecutorService owned) {
+
+    void shutdown() {
+      if (owned != null) {
+        owned.shutdownNow();
+      }
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      var thread = new Thread(runnable, "sonarqube-http-completion-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+/**
+ * Protects SonarQube from being hammered while it is unhealthy, and callers from transient failures.
+ * <ul>
+ *   <li>Idempotent requests failing with a network error or a {@code 429}, {@code 502}, {@code 503} or {@code 504} status are retried
+ *   a bounded number of times, after an exponential backoff with full jitter. A {@code Retry-After} header is honoured.</li>
+ *   <li>Retries are sent within the {@link Deadline} of the caller, captured when the call is executed, and a retry whose backoff would
+ *   end after that deadline is not scheduled.</li>
+ *   <li>A per-host {@link CircuitBreaker} counts these failures for all requests, and makes calls fail fast with a
+ *   {@link CircuitBreakerOpenException} once too many of them failed in a row.</li>
+ * </ul>
+ */
+public class HttpResilience {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int BAD_GATEWAY = 502;
+  private static final int SERVICE_UNAVAILABLE = 503;
+  private static final int GATEWAY_TIMEOUT = 504;
+  static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  private final ResilienceSettings settings;
+  private final LongSupplier nanoClock;
+  private final Map<String, CircuitBreaker> circuitBreakersByHost = new ConcurrentHashMap<>();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong rejectedCalls = new AtomicLong();
+
+  public HttpResilience(ResilienceSettings settings) {
+    this(settings, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  HttpResilience(ResilienceSettings settings, LongSupplier nanoClock) {
+    this.settings = settings;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Executes the call, retrying it if {@code idempotent}. Cancelling the returned future cancels the attempt in progress.
+   */
+  CompletableFuture<HttpClient.Response> execute(String url, boolean idempotent, Supplier<CompletableFuture<HttpClient.Response>> call) {
+    var host = hostOf(url);
+    var circuitBreaker = circuitBreakersByHost.computeIfAbsent(host,
+      h -> new CircuitBreaker(settings.circuitBreakerFailureThreshold(), settings.circuitBreakerOpenDuration(), nanoClock));
+    var result = new CompletableFuture<HttpClient.Response>();
+    attempt(new Call(url, host, circuitBreaker, idempotent ? settings.maxRetries() : 0, call, Deadline.current(), result), 0);
+    return result;
+  }
+
+  private void attempt(Call call, int attempt) {
+    if (call.result().isDone()) {
+      return;
+    }
+    if (!call.circuitBreaker().tryAcquire()) {
+      rejectedCalls.incrementAndGet();
+      call.result().completeExceptionally(new CircuitBreakerOpenException(call.host(), call.circuitBreaker().remainingOpenDuration()));
+      return;
+    }
+    CompletableFuture<HttpClient.Response> future;
+    try {
+      // retries run on a scheduler thread, the deadline of the caller is bound again so that the request and its body honour it
+      var deadline = call.deadline();
+      future = deadline != null ? deadline.callWithin(call.upstream()) : call.upstream().get();
+    } catch (RuntimeException e) {
+      call.circuitBreaker().onAbandoned();
+      call.result().completeExceptionally(e);
+      return;
+    }
+    call.result().whenComplete((response, error) -> {
+      if (call.result().isCancelled()) {
+        future.cancel(true);
+      }
+    });
+    future.whenComplete((response, error) -> {
+      if (error != null) {
+        onError(call, attempt, error);
+      } else if (isOverloaded(response.code())) {
+        onOverloaded(call, attempt, response);
+      } else {
+        if (call.circuitBreaker().onSuccess()) {
+          LOG.info("SonarQube at " + call.host() + " recovered, circuit breaker closed");
+        }
+        completeOrClose(call.result(), response);
+      }
+    });
+  }
+
+  private void onError(Call call, int attempt, Throwable error) {
+    var cause = unwrap(error);
+    if (cause instanceof CancellationException) {
+      call.circuitBreaker().onAbandoned();
+      call.result().completeExceptionally(cause);
+      return;
+    }
+    if (!(cause instanceof IOException)) {
+      call.circuitBreaker().onAbandoned();
+      call.result().completeExceptionally(error);
+      return;
+    }
+    recordFailure(call);
+    if (attempt < call.maxRetries() && scheduleRetry(call, attempt, backoff(attempt), cause.getClass().getSimpleName())) {
+      return;
+    }
+    call.result().completeExceptionally(error);
+  }
+
+  private void onOverloaded(Call call, int attempt, HttpClient.Response response) {
+    recordFailure(call);
+    if (attempt < call.maxRetries()) {
+      var delay = retryDelay(attempt, response.header(RETRY_AFTER_HEADER));
+      if (delay != null && scheduleRetry(call, attempt, delay, "HTTP " + response.code())) {
+        response.close();
+        return;
+      }
+    }
+    completeOrClose(call.result(), response);
+  }
+
+  private void recordFailure(Call call) {
+    if (call.circuitBreaker().onFailure()) {
+      LOG.warn("SonarQube at " + call.host() + " keeps failing, circuit breaker opened: requests fail fast for "
+        + settings.circuitBreakerOpenDuration().toSeconds() + "s");
+    }
+  }
+
+  /**
+   * Returns false when the retry is not scheduled because the deadline of the call would be reached before the end of the delay.
+   */
+  private boolean scheduleRetry(Call call, int attempt, Duration delay, String reason) {
+    var deadline = call.deadline();
+    if (deadline != null && delay.compareTo(deadline.remaining()) >= 0) {
+      LOG.debug("Not retrying " + call.url() + " after " + reason + ": the " + delay.toMillis() + "ms backoff would end after the deadline");
+      return false;
+    }
+    retries.incrementAndGet();
+    LOG.debug("Retrying " + call.url() + " in " + delay.toMillis() + "ms after " + reason + " (attempt " + (attempt + 2) + "/" + (call.maxRetries() + 1) + ")");
+    CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> attempt(call, attempt + 1));
+    return true;
+  }
+
+  /**
+   * Returns the delay before the next retry, or null when the server asked to wait for longer than the configured maximum.
+   */
+  @Nullable
+  private Duration retryDelay(int attempt, @Nullable String retryAfter) {
+    var requested = parseRetryAfter(retryAfter);
+    if (requested == null) {
+      return backoff(attempt);
+    }
+    return requested.compareTo(settings.maxBackoff()) > 0 ? null : requested;
+  }
+
+  private Duration backoff(int attempt) {
+    var ceilingMillis = Math.min(settings.maxBackoff().toMillis(), settings.initialBackoff().toMillis() << Math.min(attempt, 20));
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceilingMillis + 1));
+  }
+
+  @VisibleForTesting
+  @Nullable
+  static Duration parseRetryAfter(@Nullable String retryAfter) {
+    if (retryAfter == null || retryAfter.isBlank()) {
+      return null;
+    }
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+    } catch (NumberFormatException e) {
+      // Not delta-seconds, try an HTTP-date
+    }
+    try {
+      var date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      var delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static boolean isOverloaded(int code) {
+    return code == TOO_MANY_REQUESTS || code == BAD_GATEWAY || code == SERVICE_UNAVAILABLE || code == GATEWAY_TIMEOUT;
+  }
+
+  private static void completeOrClose(CompletableFuture<HttpClient.Response> result, HttpClient.Response response) {
+    if (!result.complete(response)) {
+      response.close();
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+
+  private static String hostOf(String url) {
+    try {
+      var uri = URI.create(url);
+      return uri.getHost() == null ? url : (uri.getHost() + (uri.getPort() != -1 ? (":" + uri.getPort()) : ""));
+    } catch (IllegalArgumentException e) {
+      return url;
+    }
+  }
+
+  public Stats stats() {
+    var states = new TreeMap<String, CircuitBreaker.State>();
+    circuitBreakersByHost.forEach((host, circuitBreaker) -> states.put(host, circuitBreaker.state()));
+    return new Stats(retries.get(), rejectedCalls.get(), states);
+  }
+
+  /**
+   * @param retries number of retried requests
+   * @param rejectedCalls number of requests that failed fast because the circuit breaker of their host was open
+   * @param circuitBreakerStates current circuit breaker state by host
+   */
+  public record Stats(long retries, long rejectedCalls, Map<String, CircuitBreaker.State> circuitBreakerStates) {
+  }
+
+  private record Call(String url, String host, CircuitBreaker circuitBreaker, int maxRetries, Supplier<CompletableFuture<HttpClient.Response>> upstream,
+    @Nullable Deadline deadline, CompletableFuture<HttpClient.Response> result) {
+  }
+
+}
@@ -19,16 +19,29 @@ package org.sonarsource.sonarqube.mcp.http;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import jakarta.annotation.Nullable;
 import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 
 class HttpResponse implements HttpClient.Response {
 
   private final String requestUrl;
   private final SimpleHttpResponse response;
+  @Nullable
+  private ContentDecoding pendingDecoding;
+  @Nullable
+  private volatile String body;
 
   public HttpResponse(String requestUrl, SimpleHttpResponse response) {
+    this(requestUrl, response, null);
+  }
+
+  /**
+   * @param contentDecoding when set, a compressed body is decoded on first access, by the caller rather than the I/O thread
+   */
+  HttpResponse(String requestUrl, SimpleHttpResponse response, @Nullable ContentDecoding contentDecoding) {
     this.requestUrl = requestUrl;
     this.response = response;
+    this.pendingDecoding = contentDecoding;
   }
 
   @Override
@@ -38,6 +51,18 @@ class HttpResponse implements HttpClient.Response {
 
   @Override
   public String bodyAsString() {
+    // Decoded once, the same response may be shared by coalesced callers
+    var decoded = body;
+    if (decoded == null) {
+      decoded = decodeBody();
+      body = decoded;
+    }
+    return decoded;
+  }
+
+  @Nullable
+  private String decodeBody() {
+    decodeContent();
     var text = response.getBodyText();
     if (text != null) {
       return text;
@@ -51,7 +76,16 @@ class HttpResponse implements HttpClient.Response {
 
   @Override
   public InputStream bodyAsStream() {
-    return new ByteArrayInputStream(response.getBodyBytes());
+    decodeContent();
+    var bytes = response.getBodyBytes();
+    return new ByteArrayInputStream(bytes != null ? bytes : new byte[0]);
+  }
+
+  private synchronized void decodeContent() {
+    if (pendingDecoding != null) {
+      pendingDecoding.decode(response);
+      pendingDecoding = null;
+    }
   }
 
   @Override
@@ -64,4 +98,11 @@ class HttpResponse implements HttpClient.Response {
     return requestUrl;
   }
 
+  @Nullable
+  @Override
+  public String header(String name) {
+    var header = response.getFirstHeader(name);
+    return header != null ? header.getValue() : null;
+  }
+
 }
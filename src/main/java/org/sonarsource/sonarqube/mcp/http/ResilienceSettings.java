@@ -0,0 +1,48 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Retry and circuit breaker tunables applied to calls made to SonarQube.
+ *
+ * @param maxRetries maximum number of retries of an idempotent request, 0 disables retries
+ * @param initialBackoff upper bound of the jittered delay before the first retry, doubled on each following retry
+ * @param maxBackoff upper bound of any retry delay; a longer {@code Retry-After} is not waited for and the response is returned as-is
+ * @param circuitBreakerFailureThreshold number of consecutive failures after which calls to a host fail fast
+ * @param circuitBreakerOpenDuration how long calls to a host fail fast before a single probe request is let through
+ */
+public record ResilienceSettings(int maxRetries, Duration initialBackoff, Duration maxBackoff, int circuitBreakerFailureThreshold,
+  Duration circuitBreakerOpenDuration) {
+
+  public static final int DEFAULT_MAX_RETRIES = 2;
+  public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+  public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+
+  public ResilienceSettings {
+    if (maxRetries < 0 || circuitBreakerFailureThreshold <= 0) {
+      throw new IllegalArgumentException("Retries must not be negative and the circuit breaker threshold must be positive");
+    }
+  }
+
+  public static ResilienceSettings defaults() {
+    return new ResilienceSettings(DEFAULT_MAX_RETRIES, Duration.ofMillis(200), Duration.ofSeconds(10), DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+      DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION);
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes all the calls of the decorated client through {@link HttpResilience}. Only GETs are retried.
+ */
+class ResilientHttpClient implements HttpClient {
+
+  private final HttpClient delegate;
+  private final HttpResilience resilience;
+
+  ResilientHttpClient(HttpClient delegate, HttpResilience resilience) {
+    this.delegate = delegate;
+    this.resilience = resilience;
+  }
+
+  @Override
+  public CompletableFuture<Response> getAsync(String url) {
+    return resilience.execute(url, true, () -> delegate.getAsync(url));
+  }
+
+  @Override
+  public CompletableFuture<Response> getAsync(String url, Map<String, String> headers) {
+    return resilience.execute(url, true, () -> delegate.getAsync(url, headers));
+  }
+
+  @Override
+  public CompletableFuture<Response> getAsyncAnonymous(String url) {
+    return resilience.execute(url, true, () -> delegate.getAsyncAnonymous(url));
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsync(String url) {
+    return resilience.execute(url, true, () -> delegate.getStreamingAsync(url));
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsync(String url, Map<String, String> headers) {
+    return resilience.execute(url, true, () -> delegate.getStreamingAsync(url, headers));
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsyncAnonymous(String url) {
+    return resilience.execute(url, true, () -> delegate.getStreamingAsyncAnonymous(url));
+  }
+
+  @Override
+  public CompletableFuture<Response> getStreamingAsyncAnonymous(String url, Map<String, String> headers) {
+    return resilience.execute(url, true, () -> delegate.getStreamingAsyncAnonymous(url, headers));
+  }
+
+  @Override
+  public CompletableFuture<Response> postAsync(String url, String contentType, String body) {
+    return resilience.execute(url, false, () -> delegate.postAsync(url, contentType, body));
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import jakarta.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Response whose body is read incrementally from the network, see {@link StreamingResponseConsumer}.
+ * The body can be consumed only once, either as a stream or as a string.
+ */
+class StreamingHttpResponse implements HttpClient.Response {
+
+  private final String requestUrl;
+  private final org.apache.hc.core5.http.HttpResponse response;
+  private final Charset charset;
+  private final InputStream body;
+  private final Runnable onClose;
+  @Nullable
+  private String bodyAsString;
+
+  StreamingHttpResponse(String requestUrl, org.apache.hc.core5.http.HttpResponse response, Charset charset, InputStream body, Runnable onClose) {
+    this.requestUrl = requestUrl;
+    this.response = response;
+    this.charset = charset;
+    this.body = body;
+    this.onClose = onClose;
+  }
+
+  @Override
+  public int code() {
+    return response.getCode();
+  }
+
+  @Override
+  public synchronized String bodyAsString() {
+    if (bodyAsString == null) {
+      try {
+        bodyAsString = IOUtils.toString(body, charset);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to read response body from " + requestUrl, e);
+      }
+    }
+    return bodyAsString;
+  }
+
+  @Override
+  public InputStream bodyAsStream() {
+    return body;
+  }
+
+  @Override
+  public void close() {
+    onClose.run();
+  }
+
+  @Override
+  public String url() {
+    return requestUrl;
+  }
+
+  @Nullable
+  @Override
+  public String header(String name) {
+    var header = response.getFirstHeader(name);
+    return header != null ? header.getValue() : null;
+  }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import jakarta.annotation.Nullable;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+/**
+ * Response consumer that hands the response over as soon as the headers are received and lets the caller pull the body
+ * through an {@link InputStream} while it is still being transferred.
+ * <p>
+ * At most {@code bufferSize} bytes (plus one network chunk) are held in memory: the I/O reactor is only granted more capacity
+ * once the reader has consumed what was previously buffered. Closing the response before the end of the body aborts the exchange,
+ * right away once it is {@link #attachExchange(Cancellable) attached}, otherwise on the next network chunk.
+ * <p>
+ * When the request was sent within a {@link Deadline}, the reader does not wait for the body beyond it: the exchange is then aborted
+ * and a {@link DeadlineExceededException} is raised.
+ */
+class StreamingResponseConsumer implements AsyncResponseConsumer<HttpClient.Response> {
+
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final String requestUrl;
+  private final int bufferSize;
+  @Nullable
+  private final ContentDecoding contentDecoding;
+  @Nullable
+  private final Deadline deadline;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition dataAvailable = lock.newCondition();
+  private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+  @Nullable
+  private Cancellable exchange;
+  @Nullable
+  private CapacityChannel capacityChannel;
+  private boolean initialCapacityGranted;
+  private int consumedSinceLastUpdate;
+  private boolean endOfStream;
+  private boolean closed;
+  @Nullable
+  private Exception failure;
+
+  StreamingResponseConsumer(String requestUrl) {
+    this(requestUrl, DEFAULT_BUFFER_SIZE, null, null);
+  }
+
+  StreamingResponseConsumer(String requestUrl, @Nullable ContentDecoding contentDecoding, @Nullable Deadline deadline) {
+    this(requestUrl, DEFAULT_BUFFER_SIZE, contentDecoding, deadline);
+  }
+
+  StreamingResponseConsumer(String requestUrl, int bufferSize) {
+    this(requestUrl, bufferSize, null, null);
+  }
+
+  StreamingResponseConsumer(String requestUrl, int bufferSize, @Nullable ContentDecoding contentDecoding, @Nullable Deadline deadline) {
+    this.requestUrl = requestUrl;
+    this.bufferSize = bufferSize;
+    this.contentDecoding = contentDecoding;
+    this.deadline = deadline;
+  }
+
+  /**
+   * Lets {@link HttpClient.Response#close()} abort the exchange without waiting for the next network chunk, which a stalled server may
+   * never send.
+   */
+  void attachExchange(Cancellable exchange) {
+    boolean abortNow;
+    lock.lock();
+    try {
+      this.exchange = exchange;
+      abortNow = closed && !endOfStream;
+    } finally {
+      lock.unlock();
+    }
+    if (abortNow) {
+      exchange.cancel();
+    }
+  }
+
+  @Override
+  public void consumeResponse(org.apache.hc.core5.http.HttpResponse response, @Nullable EntityDetails entityDetails, HttpContext context,
+    FutureCallback<HttpClient.Response> resultCallback) {
+    var charset = StandardCharsets.UTF_8;
+    if (entityDetails == null) {
+      markEndOfStream();
+    } else {
+      charset = resolveCharset(entityDetails);
+    }
+    InputStream body = new BodyInputStream();
+    if (contentDecoding != null) {
+      body = contentDecoding.decodingStream(entityDetails != null ? entityDetails.getContentEncoding() : null, body);
+    }
+    resultCallback.completed(new StreamingHttpResponse(requestUrl, response, charset, body, this::close));
+  }
+
+  @Override
+  public void informationResponse(org.apache.hc.core5.http.HttpResponse response, HttpContext context) {
+    // 1xx responses are not relevant
+  }
+
+  @Override
+  public void updateCapacity(CapacityChannel channel) throws IOException {
+    int increment;
+    lock.lock();
+    try {
+      capacityChannel = channel;
+      if (!initialCapacityGranted) {
+        initialCapacityGranted = true;
+        increment = bufferSize;
+      } else {
+        increment = consumedSinceLastUpdate;
+      }
+      consumedSinceLastUpdate = 0;
+    } finally {
+      lock.unlock();
+    }
+    if (increment > 0) {
+      channel.update(increment);
+    }
+  }
+
+  @Override
+  public void consume(ByteBuffer src) throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IOException("Response body was closed before being fully read: " + requestUrl);
+      }
+      var copy = ByteBuffer.allocate(src.remaining());
+      copy.put(src).flip();
+      chunks.add(copy);
+      dataAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void streamEnd(@Nullable List<? extends Header> trailers) {
+    markEndOfStream();
+  }
+
+  @Override
+  public void failed(Exception cause) {
+    lock.lock();
+    try {
+      failure = cause;
+      dataAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void releaseResources() {
+    lock.lock();
+    try {
+      if (!endOfStream && failure == null) {
+        failure = new IOException("Exchange was released before the response body was fully received");
+      }
+      dataAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void markEndOfStream() {
+    lock.lock();
+    try {
+      endOfStream = true;
+      dataAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void close() {
+    CapacityChannel channel;
+    Cancellable exchangeToAbort;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      chunks.clear();
+      dataAvailable.signalAll();
+      channel = endOfStream ? null : capacityChannel;
+      exchangeToAbort = endOfStream || failure != null ? null : exchange;
+    } finally {
+      lock.unlock();
+    }
+    if (exchangeToAbort != null) {
+      exchangeToAbort.cancel();
+    }
+    if (channel != null) {
+      // wake up the reactor so that the next consume() call aborts the exchange, should it still be running
+      try {
+        channel.update(bufferSize);
+      } catch (IOException e) {
+        // the exchange is already being torn down
+      }
+    }
+  }
+
+  private static Charset resolveCharset(EntityDetails entityDetails) {
+    try {
+      var contentType = entityDetails.getContentType();
+      if (contentType != null) {
+        var charset = ContentType.parse(contentType).getCharset();
+        if (charset != null) {
+          return charset;
+        }
+      }
+    } catch (RuntimeException e) {
+      // unsupported or malformed charset, fall back to UTF-8
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private class BodyInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      var single = new byte[1];
+      var read = read(single, 0, 1);
+      return read == -1 ? -1 : (single[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      var read = 0;
+      CapacityChannel channelToUpdate = null;
+      int increment = 0;
+      var expired = false;
+      lock.lock();
+      try {
+        while (chunks.isEmpty() && !expired) {
+          if (closed) {
+            throw new IOException("Response body is closed: " + requestUrl);
+          }
+          if (failure != null) {
+            throw new IOException("Error while reading response body from " + requestUrl, failure);
+          }
+          if (endOfStream) {
+            return -1;
+          }
+          if (deadline == null) {
+            dataAvailable.await();
+          } else {
+            var remainingNanos = deadline.remaining().toNanos();
+            expired = remainingNanos <= 0;
+            if (!expired) {
+              dataAvailable.awaitNanos(remainingNanos);
+            }
+          }
+        }
+        if (!expired) {
+          var chunk = chunks.peek();
+          read = Math.min(len, chunk.remaining());
+          chunk.get(b, off, read);
+          if (!chunk.hasRemaining()) {
+            chunks.poll();
+          }
+          consumedSinceLastUpdate += read;
+          if (capacityChannel != null && !endOfStream && (chunks.isEmpty() || consumedSinceLastUpdate >= bufferSize / 2)) {
+            channelToUpdate = capacityChannel;
+            increment = consumedSinceLastUpdate;
+            consumedSinceLastUpdate = 0;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading response body from " + requestUrl);
+      } finally {
+        lock.unlock();
+      }
+      if (deadline != null && expired) {
+        // the stalled exchange is aborted, so that its connection goes back to the pool
+        StreamingResponseConsumer.this.close();
+        throw deadline.exceeded();
+      }
+      if (channelToUpdate != null) {
+        channelToUpdate.update(increment);
+      }
+      return read;
+    }
+
+    @Override
+    public int available() {
+      lock.lock();
+      try {
+        return chunks.stream().mapToInt(ByteBuffer::remaining).sum();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close() {
+      StreamingResponseConsumer.this.close();
+    }
+  }
+
+}
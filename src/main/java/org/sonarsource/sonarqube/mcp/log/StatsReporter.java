@@ -0,0 +1,90 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.log;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+
+/**
+ * Logs the statistics of the registered components (caches, connection pool...) at debug level, periodically while the server runs
+ * and one last time when it stops. Nothing is scheduled when debug logs are disabled.
+ */
+public class StatsReporter {
+
+  public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(5);
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+
+  private final Duration interval;
+  private final Map<String, Supplier<?>> sources = new ConcurrentSkipListMap<>();
+  @Nullable
+  private ScheduledExecutorService scheduler;
+
+  public StatsReporter() {
+    this(DEFAULT_INTERVAL);
+  }
+
+  public StatsReporter(Duration interval) {
+    this.interval = interval;
+  }
+
+  /**
+   * @param stats called on every report, its {@code toString()} is logged
+   */
+  public void register(String name, Supplier<?> stats) {
+    sources.put(name, stats);
+  }
+
+  public synchronized void start() {
+    if (scheduler != null || !McpLogger.isDebugEnabled()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("sonarqube-stats-", 0).daemon().factory());
+    scheduler.scheduleWithFixedDelay(this::report, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Logs the current statistics of all the registered components.
+   */
+  public void report() {
+    if (!McpLogger.isDebugEnabled()) {
+      return;
+    }
+    sources.forEach((name, stats) -> {
+      try {
+        LOG.debug(name + ": " + stats.get());
+      } catch (RuntimeException e) {
+        LOG.debug("Unable to get the statistics of " + name + ": " + e.getMessage());
+      }
+    });
+  }
+
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+    report();
+  }
+
+}
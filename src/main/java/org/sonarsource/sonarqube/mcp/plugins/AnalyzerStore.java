@@ -0,0 +1,112 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.plugins;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+/**
+ * Analyzer jars shared by all the server instances of a machine, or of the nodes mounting the same volume. Jars are content-addressed:
+ * each one is stored as {@code <md5>.jar} once its content was verified against that hash, so a stored jar never changes and can be
+ * reused without being hashed again.
+ * <p>
+ * Writers of the same jar are serialized by an exclusive lock on {@code <md5>.lock}: a lock between processes through the file
+ * system, and a monitor between the threads of this process since file locks are held by the whole JVM. Downloads are written to
+ * {@code <md5>.part} and atomically renamed once verified, so readers never see a partial jar. A partial download left by a failure
+ * is resumed by the next writer. Lock files are kept, deleting them would let two processes lock different files for the same jar.
+ */
+class AnalyzerStore {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-f]{32}");
+  private static final Map<Path, Object> IN_PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path directory;
+
+  AnalyzerStore(Path directory) {
+    this.directory = directory.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Writes the content of a jar to a file, resuming from the current content of the file when it exists, and returns its MD5.
+   */
+  @FunctionalInterface
+  interface Download {
+    String writeTo(Path file) throws IOException;
+  }
+
+  static boolean isValidHash(String md5) {
+    return MD5_PATTERN.matcher(md5.toLowerCase(Locale.ROOT)).matches();
+  }
+
+  /**
+   * Returns the stored jar with the given MD5. When it is missing, it is downloaded by at most one of the processes sharing the store
+   * while the others wait for it.
+   */
+  Path getOrDownload(String pluginKey, String md5, Download download) throws IOException {
+    if (!isValidHash(md5)) {
+      throw new IllegalArgumentException("Invalid hash '" + md5 + "' for plugin '" + pluginKey + "'");
+    }
+    var hash = md5.toLowerCase(Locale.ROOT);
+    var storedJar = directory.resolve(hash + ".jar");
+    if (Files.isRegularFile(storedJar)) {
+      return storedJar;
+    }
+    Files.createDirectories(directory);
+    var lockFile = directory.resolve(hash + ".lock");
+    synchronized (IN_PROCESS_LOCKS.computeIfAbsent(lockFile, path -> new Object())) {
+      try (var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        var lock = channel.lock()) {
+        if (Files.isRegularFile(storedJar)) {
+          LOG.debug("Plugin '" + pluginKey + "' was stored while waiting for the analyzers store lock");
+          return storedJar;
+        }
+        var partFile = directory.resolve(hash + PluginsSynchronizer.PART_SUFFIX);
+        var actualHash = download.writeTo(partFile);
+        if (!hash.equalsIgnoreCase(actualHash)) {
+          Files.deleteIfExists(partFile);
+          throw new IllegalStateException("Plugin '" + pluginKey + "' hash mismatch: expected " + md5 + ", got " + actualHash);
+        }
+        PluginsSynchronizer.moveAtomically(partFile, storedJar);
+        LOG.info("Stored plugin '" + pluginKey + "' in the shared analyzers store " + directory);
+        return storedJar;
+      }
+    }
+  }
+
+  /**
+   * Makes the stored jar available at the given path, as a hard link when the file system allows it so that the jar is stored once.
+   */
+  static void linkOrCopy(Path storedJar, Path target) throws IOException {
+    Files.deleteIfExists(target);
+    try {
+      Files.createLink(target, storedJar);
+    } catch (IOException | UnsupportedOperationException e) {
+      Files.copy(storedJar, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.plugins;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
+import org.sonarsource.sonarqube.mcp.analysis.LanguageUtils;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+
+import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.SUPPORTED_LANGUAGES_BY_PLUGIN_KEY;
+
+/**
+ * Loads the analyzers downloaded from SonarQube into the backend.
+ * <p>
+ * By default all the analyzers are loaded once at startup. In lazy mode, only the secrets detection and the analyzers of the
+ * prefetched languages are loaded at startup: the analyzer of another language is downloaded and loaded when the first analysis
+ * of that language arrives, so that processes only pay the memory and class loading cost of the languages they analyze. Loading
+ * more analyzers switches to a new backend without interrupting the running analyses, see
+ * {@link BackendService#restartWithAnalyzers(BackendService.AnalyzersAndLanguagesEnabled)}.
+ */
+public class AnalyzersLoader {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  // Secrets are detected in files of any language
+  private static final Set<String> ALWAYS_LOADED_PLUGIN_KEYS = Set.of("text", "textenterprise");
+  static final Map<String, Set<String>> COMPANION_PLUGIN_KEYS = Map.of("java", Set.of("javasymbolicexecution"));
+  private static final AnalyzersLoader PRELOADED = new AnalyzersLoader(null, null, null);
+
+  @Nullable
+  private final PluginsSynchronizer pluginsSynchronizer;
+  @Nullable
+  private final BackendService backendService;
+  /**
+   * Plugins to load at startup in lazy mode, null when all the analyzers are loaded at startup.
+   */
+  @Nullable
+  private final Set<String> prefetchedPluginKeys;
+  private final Set<String> loadedPluginKeys = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock loadingLock = new ReentrantLock();
+
+  private AnalyzersLoader(@Nullable PluginsSynchronizer pluginsSynchronizer, @Nullable BackendService backendService,
+    @Nullable Set<String> prefetchedPluginKeys) {
+    this.pluginsSynchronizer = pluginsSynchronizer;
+    this.backendService = backendService;
+    this.prefetchedPluginKeys = prefetchedPluginKeys;
+  }
+
+  public static AnalyzersLoader eager(PluginsSynchronizer pluginsSynchronizer, BackendService backendService) {
+    return new AnalyzersLoader(pluginsSynchronizer, backendService, null);
+  }
+
+  /**
+   * @param prefetchHints the languages, or plugin keys, whose analyzers are loaded at startup
+   */
+  public static AnalyzersLoader lazy(PluginsSynchronizer pluginsSynchronizer, BackendService backendService, List<String> prefetchHints) {
+    var prefetchedPluginKeys = new HashSet<>(ALWAYS_LOADED_PLUGIN_KEYS);
+    for (var hint : prefetchHints) {
+      var pluginKeys = pluginKeysForHint(hint);
+      if (pluginKeys.isEmpty()) {
+        LOG.warn("Ignoring unknown language to prefetch the analyzer of: '" + hint + "'");
+      }
+      prefetchedPluginKeys.addAll(pluginKeys);
+    }
+    return new AnalyzersLoader(pluginsSynchronizer, backendService, prefetchedPluginKeys);
+  }
+
+  /**
+   * For analyses running on a backend that was started with all the analyzers it needs.
+   */
+  public static AnalyzersLoader preloaded() {
+    return PRELOADED;
+  }
+
+  public boolean isLazy() {
+    return prefetchedPluginKeys != null;
+  }
+
+  /**
+   * Downloads the analyzers to load at startup and restarts the backend with them.
+   */
+  public void loadInitialAnalyzers() {
+    var synchronizer = requireConfigured(pluginsSynchronizer);
+    if (prefetchedPluginKeys == null) {
+      var analyzers = synchronizer.synchronizeAnalyzers();
+      LOG.info("Restarting backend with downloaded analyzers...");
+      requireConfigured(backendService).restartWithAnalyzers(analyzers);
+      return;
+    }
+    LOG.info("Analyzers are loaded on demand, prefetching " + prefetchedPluginKeys);
+    load(prefetchedPluginKeys);
+  }
+
+  /**
+   * Makes sure the analyzers of the given languages are loaded, downloading and loading them if needed. Returns immediately when
+   * they are already loaded, or were attempted to be: a plugin that is not installed on the server is only looked up again by the next
+   * server start, while a plugin that failed to download is retried by the next analysis of its language. Returns as soon as the
+   * backend with the new analyzers is in use, without waiting for the analyses of the previous one.
+   */
+  public void ensureLoaded(Collection<Language> languages) {
+    if (prefetchedPluginKeys == null) {
+      return;
+    }
+    var missingPluginKeys = missingPluginKeys(languages);
+    if (missingPluginKeys.isEmpty()) {
+      return;
+    }
+    LOG.info("Loading the analyzers of " + languages + " on first use");
+    load(missingPluginKeys);
+  }
+
+  private void load(Set<String> pluginKeys) {
+    loadingLock.lock();
+    try {
+      var toLoad = new HashSet<>(pluginKeys);
+      toLoad.removeAll(loadedPluginKeys);
+      if (toLoad.isEmpty()) {
+        // Loaded while waiting for the lock
+        return;
+      }
+      var requestedPluginKeys = new HashSet<>(loadedPluginKeys);
+      requestedPluginKeys.addAll(toLoad);
+      var analyzers = requireConfigured(pluginsSynchronizer).synchronizeAnalyzers(requestedPluginKeys);
+      var installed = new HashSet<>(toLoad);
+      installed.removeAll(analyzers.missingPluginKeys());
+      if (installed.size() < toLoad.size()) {
+        var failed = new HashSet<>(toLoad);
+        failed.removeAll(installed);
+        LOG.warn("Unable to install the analyzers " + failed + ", they will be retried on next use");
+      }
+      if (installed.isEmpty()) {
+        return;
+      }
+      requireConfigured(backendService).restartWithAnalyzers(analyzers);
+      loadedPluginKeys.addAll(installed);
+    } finally {
+      loadingLock.unlock();
+    }
+  }
+
+  private Set<String> missingPluginKeys(Collection<Language> languages) {
+    var missingPluginKeys = new HashSet<String>();
+    for (var language : languages) {
+      missingPluginKeys.addAll(pluginKeysFor(language));
+    }
+    missingPluginKeys.removeAll(loadedPluginKeys);
+    return missingPluginKeys;
+  }
+
+  static Set<String> pluginKeysFor(Language language) {
+    var pluginKeys = new HashSet<String>();
+    SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.forEach((pluginKey, languages) -> {
+      if (languages.contains(language)) {
+        pluginKeys.add(pluginKey);
+        pluginKeys.addAll(COMPANION_PLUGIN_KEYS.getOrDefault(pluginKey, Set.of()));
+      }
+    });
+    return pluginKeys;
+  }
+
+  private static Set<String> pluginKeysForHint(String hint) {
+    if (SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.containsKey(hint)) {
+      var pluginKeys = new HashSet<>(Set.of(hint));
+      pluginKeys.addAll(COMPANION_PLUGIN_KEYS.getOrDefault(hint, Set.of()));
+      return pluginKeys;
+    }
+    var sonarLanguage = LanguageUtils.getSonarLanguageFromInput(hint);
+    var language = sonarLanguage == null ? null : LanguageUtils.mapSonarLanguageToLanguage(sonarLanguage);
+    return language == null ? Set.of() : pluginKeysFor(language);
+  }
+
+  private static <T> T requireConfigured(@Nullable T dependency) {
+    if (dependency == null) {
+      throw new IllegalStateException("The analyzers are preloaded");
+    }
+    return dependency;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.plugins;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Hashes of the installed plugin jars, persisted next to them so that the jars left untouched since the previous synchronization are
+ * not read again to be compared with the hashes advertised by the server. A recorded hash is only trusted while the size and the last
+ * modification time of the jar are still the ones it was recorded with.
+ */
+class PluginsManifest {
+
+  static final String FILENAME = "manifest.json";
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final Gson GSON = new Gson();
+  private static final Type ENTRIES_TYPE = new TypeToken<Map<String, Entry>>() {
+  }.getType();
+
+  private final Path file;
+  private final Map<String, Entry> entriesByFilename;
+  private boolean changed;
+
+  private PluginsManifest(Path file, Map<String, Entry> entriesByFilename) {
+    this.file = file;
+    this.entriesByFilename = entriesByFilename;
+  }
+
+  static PluginsManifest load(Path pluginsPath) {
+    var file = pluginsPath.resolve(FILENAME);
+    if (Files.isRegularFile(file)) {
+      try {
+        Map<String, Entry> entries = GSON.fromJson(Files.readString(file, UTF_8), ENTRIES_TYPE);
+        if (entries != null) {
+          return new PluginsManifest(file, new HashMap<>(entries));
+        }
+      } catch (IOException | JsonParseException e) {
+        LOG.warn("Ignoring unreadable plugins manifest: " + e.getMessage());
+      }
+    }
+    return new PluginsManifest(file, new HashMap<>());
+  }
+
+  /**
+   * Returns the MD5 recorded for the jar, or null when the jar is unknown or was modified since its hash was recorded.
+   */
+  @Nullable
+  String md5Of(Path jar) throws IOException {
+    var entry = entriesByFilename.get(jar.getFileName().toString());
+    if (entry == null) {
+      return null;
+    }
+    var attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+    if (entry.size() != attributes.size() || entry.lastModified() != attributes.lastModifiedTime().toMillis()) {
+      return null;
+    }
+    return entry.md5();
+  }
+
+  void put(Path jar, String md5) throws IOException {
+    var attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+    entriesByFilename.put(jar.getFileName().toString(), new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), md5));
+    changed = true;
+  }
+
+  void retainAll(Set<String> filenames) {
+    changed |= entriesByFilename.keySet().retainAll(filenames);
+  }
+
+  void save() {
+    if (!changed) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      var temporaryFile = Files.createTempFile(file.getParent(), FILENAME, ".tmp");
+      Files.writeString(temporaryFile, GSON.toJson(entriesByFilename, ENTRIES_TYPE), UTF_8);
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      changed = false;
+    } catch (IOException e) {
+      LOG.warn("Unable to save plugins manifest: " + e.getMessage());
+    }
+  }
+
+  private record Entry(long size, long lastModified, String md5) {
+  }
+
+}
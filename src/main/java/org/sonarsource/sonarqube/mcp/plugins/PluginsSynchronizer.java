@@ -17,15 +17,32 @@
 package org.sonarsource.sonarqube.mcp.plugins;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.FileUtils;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
@@ -37,40 +54,208 @@ import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.SUPPORTED_LAN
 public class PluginsSynchronizer {
 
   private static final McpLogger LOG = McpLogger.getInstance();
+  public static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+  static final String PART_SUFFIX = ".part";
+  static final String STORE_LINK_SUFFIX = ".store";
+  private static final int MAX_DOWNLOAD_ATTEMPTS = 3;
+  private static final int HTTP_PARTIAL_CONTENT = 206;
+  private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+  private static final long PROGRESS_STEP_BYTES = 10L * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
 
   private final ServerApi serverApi;
   private final Path pluginsPath;
+  private final int downloadConcurrency;
+  @Nullable
+  private final AnalyzerStore analyzerStore;
 
   public PluginsSynchronizer(ServerApi serverApi, Path storagePath) {
+    this(serverApi, storagePath, DEFAULT_DOWNLOAD_CONCURRENCY, null);
+  }
+
+  /**
+   * @param analyzersStorePath the analyzers store shared with other server instances, or null to download the plugins of this
+   *                           instance only
+   */
+  public PluginsSynchronizer(ServerApi serverApi, Path storagePath, int downloadConcurrency, @Nullable Path analyzersStorePath) {
+    if (downloadConcurrency < 1) {
+      throw new IllegalArgumentException("Download concurrency must be at least 1");
+    }
     this.serverApi = serverApi;
     this.pluginsPath = storagePath.resolve("plugins");
+    this.downloadConcurrency = downloadConcurrency;
+    this.analyzerStore = analyzersStorePath == null ? null : new AnalyzerStore(analyzersStorePath);
   }
 
   public BackendService.AnalyzersAndLanguagesEnabled synchronizeAnalyzers() {
+    return synchronizeAnalyzers(plugin -> true);
+  }
+
+  /**
+   * Only downloads and returns the plugins with the given keys. The jars of the other plugins known by the server are kept, to be
+   * returned by a later synchronization.
+   */
+  public BackendService.AnalyzersAndLanguagesEnabled synchronizeAnalyzers(Set<String> pluginKeys) {
+    return synchronizeAnalyzers(plugin -> pluginKeys.contains(plugin.key()));
+  }
+
+  private BackendService.AnalyzersAndLanguagesEnabled synchronizeAnalyzers(Predicate<InstalledPluginsResponse.Plugin> selection) {
     var serverPlugins = serverApi.pluginsApi().getInstalled().plugins();
-    downloadMissingPlugins(serverPlugins);
-    cleanupUnknownPlugins(serverPlugins);
-    return listLocalPlugins(serverPlugins);
+    var selectedPlugins = serverPlugins.stream().filter(selection).toList();
+    var manifest = PluginsManifest.load(pluginsPath);
+    downloadMissingPlugins(selectedPlugins, serverPlugins.stream().filter(selection.negate()).toList(), manifest);
+    var knownPluginFilenames = knownPluginFilenames(serverPlugins);
+    cleanupUnknownPlugins(knownPluginFilenames);
+    manifest.retainAll(knownPluginFilenames);
+    manifest.save();
+    return listLocalPlugins(selectedPlugins);
   }
 
-  private void downloadMissingPlugins(List<InstalledPluginsResponse.Plugin> serverPlugins) {
+  private void downloadMissingPlugins(List<InstalledPluginsResponse.Plugin> selectedPlugins, List<InstalledPluginsResponse.Plugin> otherPlugins,
+    PluginsManifest manifest) {
     try {
       Files.createDirectories(pluginsPath);
     } catch (IOException e) {
       throw new IllegalStateException("Unable to create plugins directory", e);
     }
-    for (var serverPlugin : serverPlugins) {
+    var pluginsToDownload = new ArrayList<InstalledPluginsResponse.Plugin>();
+    for (var serverPlugin : selectedPlugins) {
       try {
-        if (shouldDownload(serverPlugin)) {
-          downloadPlugin(serverPlugin.key(), resolvePluginPath(serverPlugin.filename()), serverPlugin.hash());
+        if (shouldDownload(serverPlugin, manifest)) {
+          pluginsToDownload.add(serverPlugin);
         }
       } catch (RuntimeException e) {
         LOG.error("Failed to download plugin '" + serverPlugin.key() + "'", e);
       }
     }
+    var resumablePlugins = new ArrayList<>(pluginsToDownload);
+    resumablePlugins.addAll(otherPlugins);
+    deleteStalePartialDownloads(resumablePlugins);
+    if (!pluginsToDownload.isEmpty()) {
+      installPlugins(downloadPlugins(pluginsToDownload), manifest);
+    }
+  }
+
+  /**
+   * Downloads the plugins next to their final location, at most {@link #downloadConcurrency} at a time. A failed download does not
+   * prevent the other ones from completing: it is logged and left out of the returned list.
+   */
+  private List<DownloadedPlugin> downloadPlugins(List<InstalledPluginsResponse.Plugin> plugins) {
+    var parallelism = Math.min(downloadConcurrency, plugins.size());
+    LOG.info("Downloading " + plugins.size() + " plugins, " + parallelism + " at a time");
+    var startTime = System.nanoTime();
+    var futures = new ArrayList<Future<DownloadedPlugin>>(plugins.size());
+    // Closing the executor waits for all the downloads to complete
+    try (var executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("sonarqube-plugin-download-", 0).daemon().factory())) {
+      for (var plugin : plugins) {
+        futures.add(executor.submit(() -> downloadPlugin(plugin)));
+      }
+    }
+    var downloadedPlugins = new ArrayList<DownloadedPlugin>(plugins.size());
+    for (var i = 0; i < futures.size(); i++) {
+      var pluginKey = plugins.get(i).key();
+      try {
+        downloadedPlugins.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        LOG.error("Failed to download plugin '" + pluginKey + "'", e.getCause());
+      } catch (CancellationException e) {
+        LOG.error("Download of plugin '" + pluginKey + "' was interrupted");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOG.error("Download of plugin '" + pluginKey + "' was interrupted");
+      }
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      downloadedPlugins.forEach(plugin -> deletePluginFileQuietly(plugin.stagedPath()));
+      throw new IllegalStateException("Interrupted while downloading plugins");
+    }
+    LOG.info("Downloaded " + downloadedPlugins.size() + "/" + plugins.size() + " plugins in "
+      + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+    return downloadedPlugins;
+  }
+
+  /**
+   * Moves the verified downloads to their final location only once all the downloads are over, so that the plugins directory never
+   * contains a partially written or unverified jar. Each jar is replaced atomically: a backend still running with the previous
+   * version keeps reading the file it opened.
+   * <p>
+   * Installation is per jar, not all-or-nothing: a plugin that failed to download or to install keeps its previous jar, if any,
+   * while the other plugins are updated. The backend may therefore run with analyzers of different server versions until the next
+   * synchronization, as it did when plugins were downloaded one after another.
+   */
+  private static void installPlugins(List<DownloadedPlugin> downloadedPlugins, PluginsManifest manifest) {
+    for (var plugin : downloadedPlugins) {
+      try {
+        moveAtomically(plugin.stagedPath(), plugin.installPath());
+        manifest.put(plugin.installPath(), plugin.md5());
+        LOG.info("Successfully downloaded plugin '" + plugin.key() + "' to " + plugin.installPath());
+      } catch (IOException e) {
+        deletePluginFileQuietly(plugin.stagedPath());
+        LOG.error("Failed to install plugin '" + plugin.key() + "'", e);
+      }
+    }
+  }
+
+  static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Partial downloads are kept to be resumed by a later synchronization, unless the plugin they belong to is not to be downloaded
+   * anymore, e.g. because the server now has another version of it. Links to stored jars left by an interrupted synchronization are
+   * deleted, they are created again from the store.
+   */
+  private void deleteStalePartialDownloads(List<InstalledPluginsResponse.Plugin> resumablePlugins) {
+    var partPathsInUse = new HashSet<Path>();
+    for (var plugin : resumablePlugins) {
+      try {
+        partPathsInUse.add(partPathOf(plugin, resolvePluginPath(plugin.filename())));
+      } catch (RuntimeException e) {
+        // Invalid filenames are reported by the cleanup
+      }
+    }
+    try (var directoryStream = Files.newDirectoryStream(pluginsPath, "*" + PART_SUFFIX)) {
+      for (var partialDownload : directoryStream) {
+        if (!partPathsInUse.contains(partialDownload)) {
+          deletePluginFileQuietly(partialDownload);
+        }
+      }
+    } catch (IOException e) {
+      LOG.error("Failed to list partial plugin downloads", e);
+    }
+    try (var directoryStream = Files.newDirectoryStream(pluginsPath, "*" + STORE_LINK_SUFFIX)) {
+      directoryStream.forEach(PluginsSynchronizer::deletePluginFileQuietly);
+    } catch (IOException e) {
+      LOG.error("Failed to list links to stored plugins", e);
+    }
   }
 
-  private boolean shouldDownload(InstalledPluginsResponse.Plugin plugin) {
+  /**
+   * The partial download of a plugin is named after the hash of the expected jar, so that it is never resumed with the content of
+   * another version. Without a valid hash, there is no way to tell and the download always starts from scratch.
+   */
+  private static Path partPathOf(InstalledPluginsResponse.Plugin plugin, Path installPath) {
+    var filename = installPath.getFileName().toString();
+    return isResumable(plugin) ? installPath.resolveSibling(filename + "." + plugin.hash().toLowerCase(Locale.ROOT) + PART_SUFFIX)
+      : installPath.resolveSibling(filename + PART_SUFFIX);
+  }
+
+  /**
+   * The link to a stored jar is never named like a partial download, which is written to when resumed.
+   */
+  private static Path storeLinkPathOf(InstalledPluginsResponse.Plugin plugin, Path installPath) {
+    return installPath.resolveSibling(installPath.getFileName() + "." + plugin.hash().toLowerCase(Locale.ROOT) + STORE_LINK_SUFFIX);
+  }
+
+  private static boolean isResumable(InstalledPluginsResponse.Plugin plugin) {
+    return plugin.hash() != null && AnalyzerStore.isValidHash(plugin.hash());
+  }
+
+  private boolean shouldDownload(InstalledPluginsResponse.Plugin plugin, PluginsManifest manifest) {
     if (!plugin.sonarLintSupported() || !SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.containsKey(plugin.key())) {
       return false;
     }
@@ -83,38 +268,150 @@ public class PluginsSynchronizer {
       return true;
     }
     try {
-      return !expectedHash.equalsIgnoreCase(computeMd5Hex(localPath));
+      return !expectedHash.equalsIgnoreCase(localMd5Hex(localPath, manifest));
     } catch (IOException e) {
       return true;
     }
   }
 
-  private void downloadPlugin(String pluginKey, Path localPath, String expectedHash) {
-    try (var response = serverApi.pluginsApi().downloadPlugin(pluginKey)) {
-      if (response.isSuccessful()) {
-        try (var inputStream = response.bodyAsStream()) {
-          FileUtils.copyInputStreamToFile(inputStream, localPath.toFile());
-        }
-        verifyDownloadedPluginHash(pluginKey, localPath, expectedHash);
-        LOG.info("Successfully downloaded plugin '" + pluginKey + "' to " + localPath);
+  private DownloadedPlugin downloadPlugin(InstalledPluginsResponse.Plugin plugin) {
+    var pluginKey = plugin.key();
+    var installPath = resolvePluginPath(plugin.filename());
+    var partPath = partPathOf(plugin, installPath);
+    var expectedHash = plugin.hash();
+    var resumable = isResumable(plugin);
+    var stagedPath = partPath;
+    try {
+      String md5;
+      if (analyzerStore != null && resumable) {
+        var storedJar = analyzerStore.getOrDownload(pluginKey, expectedHash, file -> fetchPlugin(pluginKey, file, true));
+        stagedPath = storeLinkPathOf(plugin, installPath);
+        AnalyzerStore.linkOrCopy(storedJar, stagedPath);
+        md5 = expectedHash;
       } else {
-        throw new IllegalStateException("Failed to download plugin '" + pluginKey + "': HTTP status " + response.code());
+        md5 = fetchPlugin(pluginKey, partPath, resumable);
+        verifyDownloadedPluginHash(pluginKey, expectedHash, md5);
       }
+      return new DownloadedPlugin(pluginKey, stagedPath, installPath, md5);
     } catch (IOException e) {
+      // What was received so far is kept to be resumed later
+      if (!resumable) {
+        deletePluginFileQuietly(partPath);
+      }
       throw new IllegalStateException("Error downloading plugin '" + pluginKey + "'", e);
+    } catch (RuntimeException e) {
+      deletePluginFileQuietly(stagedPath);
+      throw e;
+    }
+  }
+
+  /**
+   * Downloads the plugin to the given file and returns its MD5. When resumable, the download continues from the current content of
+   * the file, and is resumed again if the connection drops after some progress was made.
+   */
+  private String fetchPlugin(String pluginKey, Path file, boolean resumable) throws IOException {
+    if (isHardLinked(file)) {
+      // Linked to a stored jar by a previous version, writing to it would alter the stored jar
+      Files.delete(file);
+    }
+    for (var attempt = 1; ; attempt++) {
+      var offset = resumable && Files.isRegularFile(file) ? Files.size(file) : 0L;
+      try {
+        return fetchPluginFrom(pluginKey, file, offset);
+      } catch (IOException e) {
+        var received = Files.isRegularFile(file) ? Files.size(file) : 0L;
+        // Retry only when some progress was made, or when a partial download that could not be resumed was discarded
+        var canRetry = received > offset || (offset > 0 && received == 0);
+        if (!resumable || !canRetry || attempt >= MAX_DOWNLOAD_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+          throw e;
+        }
+        LOG.warn("Download of plugin '" + pluginKey + "' interrupted after " + received / 1024 + " KB, resuming: " + e.getMessage());
+      }
     }
   }
 
-  private static void verifyDownloadedPluginHash(String pluginKey, Path localPath, String expectedHash) {
+  private String fetchPluginFrom(String pluginKey, Path file, long offset) throws IOException {
+    var startTime = System.nanoTime();
+    var pluginsApi = serverApi.pluginsApi();
+    try (var response = offset > 0 ? pluginsApi.downloadPlugin(pluginKey, offset) : pluginsApi.downloadPlugin(pluginKey)) {
+      if (!response.isSuccessful()) {
+        if (response.code() == HTTP_RANGE_NOT_SATISFIABLE) {
+          Files.deleteIfExists(file);
+        }
+        throw new IOException("Failed to download plugin '" + pluginKey + "': HTTP status " + response.code());
+      }
+      // The jar is hashed while it is written, rather than read again once downloaded
+      var digest = DigestUtils.getMd5Digest();
+      var resumed = offset > 0 && response.code() == HTTP_PARTIAL_CONTENT;
+      if (resumed) {
+        if (!isContentRangeFrom(response.header("Content-Range"), offset)) {
+          Files.deleteIfExists(file);
+          throw new IOException("Unexpected content range '" + response.header("Content-Range") + "' when resuming plugin '" + pluginKey + "'");
+        }
+        try (var inputStream = Files.newInputStream(file)) {
+          DigestUtils.updateDigest(digest, inputStream);
+        }
+        LOG.info("Resuming download of plugin '" + pluginKey + "' after " + offset / 1024 + " KB");
+      }
+      var contentLength = parseContentLength(response.header("Content-Length"));
+      var expectedSize = contentLength < 0 ? -1 : ((resumed ? offset : 0) + contentLength);
+      long size;
+      try (var inputStream = new DigestInputStream(response.bodyAsStream(), digest);
+        var outputStream = resumed ? Files.newOutputStream(file, StandardOpenOption.APPEND) : Files.newOutputStream(file)) {
+        size = copyWithProgress(pluginKey, inputStream, outputStream, resumed ? offset : 0, expectedSize);
+      }
+      LOG.debug("Downloaded plugin '" + pluginKey + "' (" + size / 1024 + " KB) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+      return Hex.encodeHexString(digest.digest());
+    }
+  }
+
+  private static boolean isHardLinked(Path file) {
     try {
-      var actualHash = computeMd5Hex(localPath);
-      if (!expectedHash.equalsIgnoreCase(actualHash)) {
-        deletePluginFileQuietly(localPath);
-        throw new IllegalStateException("Plugin '" + pluginKey + "' hash mismatch: expected " + expectedHash + ", got " + actualHash);
+      return Files.isRegularFile(file) && (Integer) Files.getAttribute(file, "unix:nlink") > 1;
+    } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static boolean isContentRangeFrom(@Nullable String contentRange, long offset) {
+    return contentRange != null && contentRange.trim().startsWith("bytes " + offset + "-");
+  }
+
+  private static long copyWithProgress(String pluginKey, InputStream inputStream, OutputStream outputStream, long alreadyCopied, long expectedSize)
+    throws IOException {
+    var buffer = new byte[BUFFER_SIZE];
+    var copied = alreadyCopied;
+    var nextProgress = (alreadyCopied / PROGRESS_STEP_BYTES + 1) * PROGRESS_STEP_BYTES;
+    int read;
+    while ((read = inputStream.read(buffer)) != -1) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new IOException("Download of plugin '" + pluginKey + "' was interrupted");
       }
-    } catch (IOException e) {
-      deletePluginFileQuietly(localPath);
-      throw new IllegalStateException("Failed to verify hash for plugin '" + pluginKey + "'", e);
+      outputStream.write(buffer, 0, read);
+      copied += read;
+      if (copied >= nextProgress) {
+        var total = expectedSize > 0 ? ("/" + expectedSize / (1024 * 1024)) : "";
+        LOG.info("Downloading plugin '" + pluginKey + "': " + copied / (1024 * 1024) + total + " MB");
+        nextProgress += PROGRESS_STEP_BYTES;
+      }
+    }
+    return copied;
+  }
+
+  private static long parseContentLength(@Nullable String contentLength) {
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static void verifyDownloadedPluginHash(String pluginKey, @Nullable String expectedHash, String actualHash) {
+    if (!actualHash.equalsIgnoreCase(expectedHash)) {
+      throw new IllegalStateException("Plugin '" + pluginKey + "' hash mismatch: expected " + expectedHash + ", got " + actualHash);
     }
   }
 
@@ -126,6 +423,15 @@ public class PluginsSynchronizer {
     }
   }
 
+  private static String localMd5Hex(Path localPath, PluginsManifest manifest) throws IOException {
+    var md5 = manifest.md5Of(localPath);
+    if (md5 == null) {
+      md5 = computeMd5Hex(localPath);
+      manifest.put(localPath, md5);
+    }
+    return md5;
+  }
+
   private static String computeMd5Hex(Path localPath) throws IOException {
     try (var inputStream = Files.newInputStream(localPath)) {
       return DigestUtils.md5Hex(inputStream);
@@ -147,16 +453,19 @@ public class PluginsSynchronizer {
     return candidate;
   }
 
-  private void cleanupUnknownPlugins(List<InstalledPluginsResponse.Plugin> serverPlugins) {
-    var supportedServerPlugins = serverPlugins.stream()
+  private Set<String> knownPluginFilenames(List<InstalledPluginsResponse.Plugin> serverPlugins) {
+    return serverPlugins.stream()
       .filter(plugin -> SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.containsKey(plugin.key()))
       .map(this::safePluginFilename)
       .filter(Objects::nonNull)
       .collect(Collectors.toSet());
+  }
+
+  private void cleanupUnknownPlugins(Set<String> knownPluginFilenames) {
     try (var directoryStream = Files.newDirectoryStream(pluginsPath, "*.jar")) {
       for (var localFile : directoryStream) {
         var fileName = localFile.getFileName().toString();
-        if (!supportedServerPlugins.contains(fileName)) {
+        if (!knownPluginFilenames.contains(fileName)) {
           deleteUnknownPlugin(localFile);
         }
       }
@@ -177,6 +486,8 @@ public class PluginsSynchronizer {
   private BackendService.AnalyzersAndLanguagesEnabled listLocalPlugins(List<InstalledPluginsResponse.Plugin> serverPlugins) {
     var pluginsPaths = new HashSet<Path>();
     var enabledLanguages = EnumSet.noneOf(Language.class);
+    var languagesByPlugin = new HashMap<Path, Set<Language>>();
+    var missingPluginKeys = new HashSet<String>();
     for (var serverPlugin : serverPlugins) {
       if (serverPlugin.sonarLintSupported() && SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.containsKey(serverPlugin.key())) {
         try {
@@ -184,6 +495,9 @@ public class PluginsSynchronizer {
           if (Files.exists(pluginPath)) {
             pluginsPaths.add(pluginPath);
             enabledLanguages.addAll(SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.get(serverPlugin.key()));
+            languagesByPlugin.put(pluginPath, languagesAnalyzedBy(serverPlugin.key()));
+          } else {
+            missingPluginKeys.add(serverPlugin.key());
           }
         } catch (RuntimeException e) {
           LOG.error("Skipping plugin '" + serverPlugin.key() + "' due to invalid filename", e);
@@ -192,7 +506,20 @@ public class PluginsSynchronizer {
     }
 
     LOG.info("Found " + pluginsPaths.size() + " plugins, enabled languages: " + enabledLanguages);
-    return new BackendService.AnalyzersAndLanguagesEnabled(pluginsPaths, enabledLanguages);
+    return new BackendService.AnalyzersAndLanguagesEnabled(pluginsPaths, enabledLanguages, languagesByPlugin, missingPluginKeys);
+  }
+
+  /**
+   * Returns the languages of the plugin, or the ones of the plugin it extends.
+   */
+  private static Set<Language> languagesAnalyzedBy(String pluginKey) {
+    var languages = new HashSet<>(SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.getOrDefault(pluginKey, Set.of()));
+    AnalyzersLoader.COMPANION_PLUGIN_KEYS.forEach((extendedPluginKey, companionPluginKeys) -> {
+      if (companionPluginKeys.contains(pluginKey)) {
+        languages.addAll(SUPPORTED_LANGUAGES_BY_PLUGIN_KEY.getOrDefault(extendedPluginKey, Set.of()));
+      }
+    });
+    return languages;
   }
 
   private String safePluginFilename(InstalledPluginsResponse.Plugin plugin) {
@@ -204,4 +531,10 @@ public class PluginsSynchronizer {
     }
   }
 
+  /**
+   * @param stagedPath the verified jar, either a download or a link to a stored jar, to be moved to the install path
+   */
+  private record DownloadedPlugin(String key, Path stagedPath, Path installPath, String md5) {
+  }
+
 }
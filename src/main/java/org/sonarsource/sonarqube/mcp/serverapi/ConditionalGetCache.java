@@ -0,0 +1,279 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hc.core5.http.ContentType;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * In-memory cache of successful GET response bodies, revalidated against the server with conditional requests
+ * ({@code If-None-Match} / {@code If-Modified-Since}). A {@code 304 Not Modified} answer reuses the cached body, so the
+ * payload is neither downloaded nor decoded again. The objects parsed from a cached body by {@link JsonCodec} are kept along with it,
+ * one per requested type, so a revalidated response is not parsed again either: they are shared by all the callers using the same
+ * token and must not be modified.
+ * <p>
+ * Entries are keyed by (URL, token hash) so that responses are never shared between credentials. Only responses carrying
+ * an {@code ETag} or {@code Last-Modified} validator are stored. The least recently used entries are evicted once the
+ * total size of the cached bodies exceeds the configured budget.
+ */
+public class ConditionalGetCache {
+
+  public static final long DEFAULT_MAX_SIZE_BYTES = 32L * 1024 * 1024;
+
+  static final String ETAG_HEADER = "ETag";
+  static final String LAST_MODIFIED_HEADER = "Last-Modified";
+  static final String CONTENT_TYPE_HEADER = "Content-Type";
+  static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+  static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private final long maxSizeBytes;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long sizeBytes;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public ConditionalGetCache() {
+    this(DEFAULT_MAX_SIZE_BYTES);
+  }
+
+  public ConditionalGetCache(long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Hash of the credentials used to scope cache entries. Raw tokens are never stored.
+   */
+  public static String tokenHash(@Nullable String token) {
+    return token == null ? "" : DigestUtils.sha256Hex(token);
+  }
+
+  /**
+   * Executes a GET through the cache: validators of a previously cached response are sent along with the request,
+   * and the cached body is returned when the server answers {@code 304 Not Modified}.
+   * Unsuccessful responses are returned as-is and left for the caller to handle and close.
+   */
+  public HttpClient.Response get(HttpClient client, String url, String tokenHash) {
+    var exchange = prepare(url, tokenHash);
+    return exchange.complete(Deadline.await(exchange.send(client)));
+  }
+
+  /**
+   * Same as {@link #get(HttpClient, String, String)}, in two steps, so that the request can be sent and its response completed on
+   * different threads.
+   */
+  public Exchange prepare(String url, String tokenHash) {
+    var key = new Key(url, tokenHash);
+    return new Exchange(key, lookup(key));
+  }
+
+  public Stats stats() {
+    synchronized (entries) {
+      return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), sizeBytes);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      sizeBytes = 0;
+    }
+  }
+
+  @Nullable
+  private Entry lookup(Key key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  private void store(Key key, Entry entry) {
+    var entrySize = entry.sizeBytes();
+    if (entrySize > maxSizeBytes) {
+      return;
+    }
+    synchronized (entries) {
+      var previous = entries.put(key, entry);
+      if (previous != null) {
+        sizeBytes -= previous.sizeBytes();
+      }
+      sizeBytes += entrySize;
+      var iterator = entries.values().iterator();
+      while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+        sizeBytes -= iterator.next().sizeBytes();
+        iterator.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  public record Stats(long hits, long misses, long evictions, int entries, long sizeBytes) {
+  }
+
+  /**
+   * A GET sent with the validators of the response cached when it was prepared.
+   */
+  public final class Exchange {
+    private final Key key;
+    @Nullable
+    private final Entry cached;
+
+    private Exchange(Key key, @Nullable Entry cached) {
+      this.key = key;
+      this.cached = cached;
+    }
+
+    public CompletableFuture<HttpClient.Response> send(HttpClient client) {
+      return client.getAsync(key.url(), cached != null ? cached.validators() : Map.of());
+    }
+
+    /**
+     * Returns the cached body when the server answered {@code 304 Not Modified}, and caches the body of a successful response.
+     */
+    public HttpClient.Response complete(HttpClient.Response response) {
+      var url = key.url();
+      if (cached != null && response.code() == HTTP_NOT_MODIFIED) {
+        response.close();
+        hits.incrementAndGet();
+        return new CachedResponse(url, cached);
+      }
+      misses.incrementAndGet();
+      if (!response.isSuccessful()) {
+        return response;
+      }
+      var etag = response.header(ETAG_HEADER);
+      var lastModified = response.header(LAST_MODIFIED_HEADER);
+      if (etag == null && lastModified == null) {
+        return response;
+      }
+      String body;
+      try (response) {
+        body = response.bodyAsString();
+      }
+      var entry = new Entry(etag, lastModified, utf8ContentType(response.header(CONTENT_TYPE_HEADER)), body == null ? "" : body);
+      if (body != null) {
+        store(key, entry);
+      }
+      return new CachedResponse(url, entry);
+    }
+  }
+
+  /**
+   * The Content-Type of a cached body, whose charset is UTF-8 once re-encoded by {@link CachedResponse#bodyAsStream()}.
+   */
+  @Nullable
+  private static String utf8ContentType(@Nullable String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    try {
+      return ContentType.parse(contentType).withCharset(StandardCharsets.UTF_8).toString();
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private record Key(String url, String tokenHash) {
+  }
+
+  private record Entry(@Nullable String etag, @Nullable String lastModified, @Nullable String contentType, String body,
+    Map<Type, Object> parsedBodies) {
+
+    Entry(@Nullable String etag, @Nullable String lastModified, @Nullable String contentType, String body) {
+      this(etag, lastModified, contentType, body, new ConcurrentHashMap<>());
+    }
+
+    Map<String, String> validators() {
+      var validators = new HashMap<String, String>();
+      if (etag != null) {
+        validators.put(IF_NONE_MATCH_HEADER, etag);
+      }
+      if (lastModified != null) {
+        validators.put(IF_MODIFIED_SINCE_HEADER, lastModified);
+      }
+      return validators;
+    }
+
+    long sizeBytes() {
+      // Strings are stored as UTF-16 at worst, the parsed bodies are not accounted for
+      return (long) body.length() * Character.BYTES;
+    }
+  }
+
+  record CachedResponse(String url, Entry entry) implements HttpClient.Response {
+
+    /**
+     * The body parsed as the given type, computed by {@code parser} only the first time this type is requested for the cached body.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    <T> T parsed(Type type, Supplier<T> parser) {
+      return (T) entry.parsedBodies().computeIfAbsent(type, t -> parser.get());
+    }
+
+    @Override
+    public int code() {
+      return 200;
+    }
+
+    @Override
+    public String bodyAsString() {
+      return entry.body();
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      return new ByteArrayInputStream(entry.body().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+      // nothing to do
+    }
+
+    @Nullable
+    @Override
+    public String header(String name) {
+      if (ETAG_HEADER.equalsIgnoreCase(name)) {
+        return entry.etag();
+      }
+      if (LAST_MODIFIED_HEADER.equalsIgnoreCase(name)) {
+        return entry.lastModified();
+      }
+      if (CONTENT_TYPE_HEADER.equalsIgnoreCase(name)) {
+        return entry.contentType();
+      }
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * Coalesces identical GET requests that are in flight at the same time: the first caller for a given (URL, token hash)
+ * sends the request, concurrent callers for the same key wait for it and receive the same response (or failure).
+ * Nothing is kept once the call completes, so this is not a cache: a request issued after completion goes upstream again.
+ * <p>
+ * Only buffered responses may be shared, since their body can be read several times and closing them is a no-op.
+ * <p>
+ * The request is sent from the thread of the first caller, then each caller waits within its own {@link Deadline}. A caller running
+ * out of budget stops waiting without affecting the others, and the request is cancelled, which aborts it upstream, once the last
+ * caller waiting for it ran out of budget.
+ */
+public class InFlightRequests {
+
+  private final ConcurrentHashMap<Key, SharedCall> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong upstreamCalls = new AtomicLong();
+  private final AtomicLong coalescedCalls = new AtomicLong();
+
+  /**
+   * @param request sends the request, only called by the first caller
+   * @param completion applied once to the response of the request, before it is returned to the callers
+   */
+  public HttpClient.Response get(String url, String tokenHash, Supplier<CompletableFuture<HttpClient.Response>> request,
+    UnaryOperator<HttpClient.Response> completion) {
+    var key = new Key(url, tokenHash);
+    while (true) {
+      var newCall = new SharedCall(key, completion);
+      var call = inFlight.computeIfAbsent(key, k -> newCall);
+      if (call == newCall) {
+        upstreamCalls.incrementAndGet();
+        call.send(request);
+        return call.await();
+      }
+      if (call.join()) {
+        coalescedCalls.incrementAndGet();
+        return call.await();
+      }
+      // abandoned by all its callers, it is being removed
+      inFlight.remove(key, call);
+    }
+  }
+
+  public Stats stats() {
+    return new Stats(upstreamCalls.get(), coalescedCalls.get(), inFlight.size());
+  }
+
+  /**
+   * @param upstreamCalls number of calls that reached the server
+   * @param coalescedCalls number of calls that were answered by an identical call already in flight
+   * @param inFlight number of distinct calls currently in flight
+   */
+  public record Stats(long upstreamCalls, long coalescedCalls, int inFlight) {
+  }
+
+  private record Key(String url, String tokenHash) {
+  }
+
+  private final class SharedCall {
+    private final Key key;
+    private final UnaryOperator<HttpClient.Response> completion;
+    // relays the outcome of the request, which may only be sent once followers already wait
+    private final CompletableFuture<HttpClient.Response> outcome = new CompletableFuture<>();
+    @Nullable
+    private CompletableFuture<HttpClient.Response> sent;
+    private int waiters = 1;
+    private boolean abandoned;
+    @Nullable
+    private HttpClient.Response completed;
+    @Nullable
+    private RuntimeException completionFailure;
+
+    private SharedCall(Key key, UnaryOperator<HttpClient.Response> completion) {
+      this.key = key;
+      this.completion = completion;
+    }
+
+    private void send(Supplier<CompletableFuture<HttpClient.Response>> request) {
+      CompletableFuture<HttpClient.Response> future;
+      try {
+        future = request.get();
+      } catch (RuntimeException e) {
+        future = CompletableFuture.failedFuture(e);
+      }
+      synchronized (this) {
+        sent = future;
+        if (abandoned) {
+          future.cancel(true);
+        }
+      }
+      future.whenComplete((response, failure) -> {
+        inFlight.remove(key, this);
+        if (failure != null) {
+          outcome.completeExceptionally(failure);
+        } else {
+          outcome.complete(response);
+        }
+      });
+    }
+
+    private synchronized boolean join() {
+      if (abandoned) {
+        return false;
+      }
+      waiters++;
+      return true;
+    }
+
+    private void leave() {
+      CompletableFuture<HttpClient.Response> toCancel;
+      synchronized (this) {
+        waiters--;
+        if (waiters > 0 || outcome.isDone()) {
+          return;
+        }
+        abandoned = true;
+        toCancel = sent;
+      }
+      inFlight.remove(key, this);
+      if (toCancel != null) {
+        toCancel.cancel(true);
+      }
+    }
+
+    /**
+     * Fails with the same exception as the upstream call, like when performing it directly.
+     */
+    private HttpClient.Response await() {
+      HttpClient.Response response;
+      try {
+        response = Deadline.awaitShared(outcome, this::leave);
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+      return complete(response);
+    }
+
+    private synchronized HttpClient.Response complete(HttpClient.Response response) {
+      if (completed == null && completionFailure == null) {
+        try {
+          completed = completion.apply(response);
+        } catch (RuntimeException e) {
+          completionFailure = e;
+        }
+      }
+      if (completionFailure != null) {
+        throw completionFailure;
+      }
+      return completed;
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import jakarta.annotation.Nullable;
+import org.apache.hc.core5.http.ContentType;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * JSON codec shared by the Web API clients. A single {@link Gson} instance is kept so that the reflective type adapters of the
+ * response records are built once, and bodies are parsed straight from the response bytes rather than from an intermediate String.
+ * Responses served from the {@link ConditionalGetCache} are parsed once per type and the result is shared.
+ */
+public final class JsonCodec {
+
+  private static final Gson GSON = new Gson();
+
+  private JsonCodec() {
+    // static use only
+  }
+
+  /**
+   * Parses the body of the response, returns null when the body is empty.
+   */
+  @Nullable
+  public static <T> T fromJson(HttpClient.Response response, Class<T> type) {
+    return fromJson(response, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T fromJson(HttpClient.Response response, Type type) {
+    if (response instanceof ConditionalGetCache.CachedResponse cachedResponse) {
+      return cachedResponse.parsed(type, () -> parse(response, type));
+    }
+    return parse(response, type);
+  }
+
+  @Nullable
+  private static <T> T parse(HttpClient.Response response, Type type) {
+    try (var reader = new InputStreamReader(response.bodyAsStream(), charsetOf(response))) {
+      return GSON.fromJson(reader, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the response of " + response.url(), e);
+    }
+  }
+
+  /**
+   * The charset declared by the Content-Type of the response, UTF-8 when none or an unsupported one is declared.
+   */
+  static Charset charsetOf(HttpClient.Response response) {
+    try {
+      var contentType = response.header("Content-Type");
+      if (contentType != null) {
+        var charset = ContentType.parse(contentType).getCharset();
+        if (charset != null) {
+          return charset;
+        }
+      }
+    } catch (RuntimeException e) {
+      // unsupported or malformed charset, fall back to UTF-8
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  public static String toJson(Object value) {
+    return GSON.toJson(value);
+  }
+
+}
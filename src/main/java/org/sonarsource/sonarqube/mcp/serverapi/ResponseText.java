@@ -0,0 +1,91 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * Reads text bodies of unbounded size, e.g. logs or source files, while holding at most a given number of characters in memory.
+ * The body is decoded with the charset of the response, as {@link JsonCodec} does.
+ */
+public final class ResponseText {
+
+  private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+  private ResponseText() {
+    // static use only
+  }
+
+  /**
+   * Returns the first {@code maxChars} characters of the body, followed by a notice when it is longer. The rest of the body is not
+   * downloaded: closing the streamed response aborts the exchange.
+   */
+  public static String head(HttpClient.Response response, int maxChars) {
+    var text = new StringBuilder();
+    var buffer = new char[READ_BUFFER_SIZE];
+    try (var reader = reader(response)) {
+      int read;
+      while ((read = reader.read(buffer, 0, Math.min(buffer.length, maxChars + 1 - text.length()))) > 0) {
+        text.append(buffer, 0, read);
+        if (text.length() > maxChars) {
+          text.setLength(maxChars);
+          return text.append("\n[truncated, only the first ").append(maxChars).append(" characters are returned]").toString();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the response of " + response.url(), e);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns the last {@code maxChars} characters of the body, starting at a line boundary, preceded by a notice when it is longer. The
+   * whole body is streamed, but only about twice {@code maxChars} characters are held in memory.
+   */
+  public static String tail(HttpClient.Response response, int maxChars) {
+    // one more character than returned is kept, to know whether the returned ones start a line
+    var text = new StringBuilder();
+    var buffer = new char[READ_BUFFER_SIZE];
+    try (var reader = reader(response)) {
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        text.append(buffer, 0, read);
+        if (text.length() > 2 * maxChars) {
+          text.delete(0, text.length() - maxChars - 1);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the response of " + response.url(), e);
+    }
+    if (text.length() <= maxChars) {
+      return text.toString();
+    }
+    text.delete(0, text.length() - maxChars - 1);
+    var endOfPartialLine = text.indexOf("\n");
+    text.delete(0, endOfPartialLine >= 0 ? endOfPartialLine + 1 : 1);
+    return "[truncated, only the last lines, up to " + maxChars + " characters, are returned]\n" + text;
+  }
+
+  private static Reader reader(HttpClient.Response response) {
+    return new InputStreamReader(response.bodyAsStream(), JsonCodec.charsetOf(response));
+  }
+
+}
@@ -165,4 +165,8 @@ public class ServerApi {
     return isSonarQubeCloud;
   }
 
+  public String getTokenHash() {
+    return helper.getTokenHash();
+  }
+
 }
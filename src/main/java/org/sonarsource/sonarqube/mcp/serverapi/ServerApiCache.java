@@ -0,0 +1,116 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Bounded cache of {@link ServerApi} instances used in HTTP mode, so that consecutive tool calls made with the same token and
+ * organization reuse the same client and its {@link TenantState} instead of rebuilding them for every request.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the (token, organization) pair so that raw tokens are never kept as map keys.
+ * The least recently used entry is evicted when the cache is full, and entries that have not been used for longer than
+ * the idle timeout are dropped on the next access.
+ */
+public class ServerApiCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1_000;
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+  private final int maxEntries;
+  private final long idleTimeoutNanos;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  public ServerApiCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_IDLE_TIMEOUT, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  ServerApiCache(int maxEntries, Duration idleTimeout, LongSupplier nanoClock) {
+    this.maxEntries = maxEntries;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  public ServerApi getOrCreate(String token, @Nullable String organization, Supplier<ServerApi> factory) {
+    var key = keyOf(token, organization);
+    var now = nanoClock.getAsLong();
+    synchronized (entries) {
+      evictIdleEntries(now);
+      var entry = entries.get(key);
+      if (entry == null) {
+        entry = new Entry(factory.get());
+        entries.put(key, entry);
+        evictOverflowingEntries();
+      }
+      entry.lastAccessNanos = now;
+      return entry.serverApi;
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  private void evictIdleEntries(long now) {
+    // access order: the least recently used entries come first, so we can stop at the first one that is still fresh
+    var iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().lastAccessNanos < idleTimeoutNanos) {
+        return;
+      }
+      iterator.remove();
+    }
+  }
+
+  private void evictOverflowingEntries() {
+    var iterator = entries.values().iterator();
+    while (entries.size() > maxEntries && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  private static String keyOf(String token, @Nullable String organization) {
+    return DigestUtils.sha256Hex(token + '\0' + (organization == null ? "" : organization));
+  }
+
+  private static final class Entry {
+    private final ServerApi serverApi;
+    private long lastAccessNanos;
+
+    private Entry(ServerApi serverApi) {
+      this.serverApi = serverApi;
+    }
+  }
+
+}
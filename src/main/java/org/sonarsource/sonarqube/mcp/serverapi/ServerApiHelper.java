@@ -23,9 +23,14 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
@@ -36,13 +41,49 @@ import org.sonarsource.sonarqube.mcp.serverapi.exception.UnauthorizedException;
 public class ServerApiHelper {
 
   private static final McpLogger LOG = McpLogger.getInstance();
+  private static final String ANONYMOUS = "anonymous";
 
   private final HttpClient client;
   private final EndpointParams endpointParams;
+  private final TenantState tenantState = new TenantState();
+  @Nullable
+  private final ConditionalGetCache responseCache;
+  @Nullable
+  private final InFlightRequests inFlightRequests;
+  private final String tokenHash;
 
   public ServerApiHelper(EndpointParams endpointParams, HttpClient client) {
+    this(endpointParams, client, null, null, null);
+  }
+
+  public ServerApiHelper(EndpointParams endpointParams, HttpClient client, @Nullable ConditionalGetCache responseCache, @Nullable String token) {
+    this(endpointParams, client, responseCache, null, token);
+  }
+
+  /**
+   * @param responseCache when set, authenticated GETs ({@link #get(String)}, {@link #getApiSubdomain(String)}) are revalidated against it
+   * @param inFlightRequests when set, identical concurrent GETs ({@link #get(String)}, {@link #getApiSubdomain(String)},
+   *                         {@link #getAnonymous(String)}) share a single upstream call
+   * @param token the token used by {@code client}, only used to scope the cached and shared responses
+   */
+  public ServerApiHelper(EndpointParams endpointParams, HttpClient client, @Nullable ConditionalGetCache responseCache,
+    @Nullable InFlightRequests inFlightRequests, @Nullable String token) {
     this.endpointParams = endpointParams;
     this.client = client;
+    this.responseCache = responseCache;
+    this.inFlightRequests = inFlightRequests;
+    this.tokenHash = ConditionalGetCache.tokenHash(token);
+  }
+
+  /**
+   * Hash of the token used by this helper, to scope data derived from its responses. Empty when no token was provided.
+   */
+  public String getTokenHash() {
+    return tokenHash;
+  }
+
+  public TenantState getTenantState() {
+    return tenantState;
   }
 
   @Nullable
@@ -55,7 +96,7 @@ public class ServerApiHelper {
   }
 
   public HttpClient.Response get(String path) {
-    var response = rawGet(path);
+    var response = cachedGet(buildEndpointUrl(path));
     if (!response.isSuccessful()) {
       throw handleError(response);
     }
@@ -63,7 +104,20 @@ public class ServerApiHelper {
   }
 
   public HttpClient.Response getAnonymous(String path) {
-    var response = rawGetAnonymous(path);
+    var url = buildEndpointUrl(path);
+    var response = coalesce(url, ANONYMOUS, () -> client.getAsyncAnonymous(url), UnaryOperator.identity());
+    if (!response.isSuccessful()) {
+      throw handleError(response);
+    }
+    return response;
+  }
+
+  /**
+   * Same as {@link #get(String)}, but the body is streamed from the network instead of being buffered.
+   * The returned response must be closed.
+   */
+  public HttpClient.Response getStreaming(String path) {
+    var response = rawGetStreaming(path);
     if (!response.isSuccessful()) {
       throw handleError(response);
     }
@@ -82,22 +136,60 @@ public class ServerApiHelper {
    * Execute GET and don't check response
    */
   public HttpClient.Response rawGet(String relativePath) {
-    return client.getAsync(buildEndpointUrl(relativePath)).join();
+    return Deadline.await(client.getAsync(buildEndpointUrl(relativePath)));
   }
 
   public HttpClient.Response rawGetAnonymous(String relativePath) {
-    return client.getAsyncAnonymous(buildEndpointUrl(relativePath)).join();
+    return Deadline.await(client.getAsyncAnonymous(buildEndpointUrl(relativePath)));
+  }
+
+  /**
+   * Execute GET, streaming the body, and don't check response
+   */
+  public HttpClient.Response rawGetStreaming(String relativePath) {
+    return Deadline.await(client.getStreamingAsync(buildEndpointUrl(relativePath)));
+  }
+
+  public HttpClient.Response rawGetStreamingAnonymous(String relativePath) {
+    return Deadline.await(client.getStreamingAsyncAnonymous(buildEndpointUrl(relativePath)));
+  }
+
+  /**
+   * Execute GET with additional request headers, streaming the body, and don't check response
+   */
+  public HttpClient.Response rawGetStreaming(String relativePath, Map<String, String> headers) {
+    return Deadline.await(client.getStreamingAsync(buildEndpointUrl(relativePath), headers));
+  }
+
+  public HttpClient.Response rawGetStreamingAnonymous(String relativePath, Map<String, String> headers) {
+    return Deadline.await(client.getStreamingAsyncAnonymous(buildEndpointUrl(relativePath), headers));
+  }
+
+  private HttpClient.Response cachedGet(String url) {
+    if (responseCache == null) {
+      return coalesce(url, tokenHash, () -> client.getAsync(url), UnaryOperator.identity());
+    }
+    var exchange = responseCache.prepare(url, tokenHash);
+    return coalesce(url, tokenHash, () -> exchange.send(client), exchange::complete);
+  }
+
+  private HttpClient.Response coalesce(String url, String credentialsHash, Supplier<CompletableFuture<HttpClient.Response>> request,
+    UnaryOperator<HttpClient.Response> completion) {
+    if (inFlightRequests == null) {
+      return completion.apply(Deadline.await(request.get()));
+    }
+    return inFlightRequests.get(url, credentialsHash, request, completion);
   }
 
   private HttpClient.Response rawPost(String url, String contentType, String body) {
-    return client.postAsync(url, contentType, body).join();
+    return Deadline.await(client.postAsync(url, contentType, body));
   }
 
   /**
    * Execute GET using the API subdomain (api.sonarcloud.io / api.sonarqube.us)
    */
   public HttpClient.Response getApiSubdomain(String path) {
-    var response = rawGetApiSubdomain(path);
+    var response = cachedGet(buildApiSubdomainUrl(path));
     if (!response.isSuccessful()) {
       throw handleError(response);
     }
@@ -108,7 +200,7 @@ public class ServerApiHelper {
    * Execute raw GET using the API subdomain (api.sonarcloud.io / api.sonarqube.us)
    */
   public HttpClient.Response rawGetApiSubdomain(String relativePath) {
-    return client.getAsync(buildApiSubdomainUrl(relativePath)).join();
+    return Deadline.await(client.getAsync(buildApiSubdomainUrl(relativePath)));
   }
 
   /**
@@ -126,7 +218,7 @@ public class ServerApiHelper {
    * Execute raw POST using the API subdomain (api.sonarcloud.io / api.sonarqube.us)
    */
   public HttpClient.Response rawPostApiSubdomain(String relativePath, String contentType, String body) {
-    return client.postAsync(buildApiSubdomainUrl(relativePath), contentType, body).join();
+    return Deadline.await(client.postAsync(buildApiSubdomainUrl(relativePath), contentType, body));
   }
 
   private String buildEndpointUrl(String relativePath) {
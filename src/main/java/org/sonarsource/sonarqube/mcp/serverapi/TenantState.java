@@ -0,0 +1,89 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.features.Feature;
+import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
+
+/**
+ * Values resolved per tenant (token + organization) and reused by the owning {@link ServerApiHelper}. A {@link ServerApiHelper} used
+ * continuously is never evicted from the {@link ServerApiCache}, so the values are loaded again once older than the time to live: a
+ * server upgrade or a change of the enabled features is picked up without restarting.
+ * Only successful, non-null lookups are remembered so that a transient failure is retried on the next call. An expired value is still
+ * returned when its reload yields nothing.
+ */
+public class TenantState {
+
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+  private final long timeToLiveNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicReference<Loaded<String>> organizationUuidV4 = new AtomicReference<>();
+  private final AtomicReference<Loaded<StatusResponse>> serverStatus = new AtomicReference<>();
+  private final AtomicReference<Loaded<Set<Feature>>> features = new AtomicReference<>();
+
+  public TenantState() {
+    this(DEFAULT_TIME_TO_LIVE, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  TenantState(Duration timeToLive, LongSupplier nanoClock) {
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  @Nullable
+  public String organizationUuidV4(Supplier<String> loader) {
+    return memoize(organizationUuidV4, loader);
+  }
+
+  /**
+   * The server status as last loaded for this tenant. Only the stable fields (installation id, version) should be read from it.
+   */
+  public StatusResponse serverStatus(Supplier<StatusResponse> loader) {
+    return memoize(serverStatus, loader);
+  }
+
+  public Set<Feature> features(Supplier<Set<Feature>> loader) {
+    return memoize(features, loader);
+  }
+
+  private <T> T memoize(AtomicReference<Loaded<T>> slot, Supplier<T> loader) {
+    var now = nanoClock.getAsLong();
+    var loaded = slot.get();
+    if (loaded != null && now - loaded.loadedAtNanos() < timeToLiveNanos) {
+      return loaded.value();
+    }
+    var value = loader.get();
+    if (value == null) {
+      return loaded == null ? null : loaded.value();
+    }
+    slot.set(new Loaded<>(value, now));
+    return value;
+  }
+
+  private record Loaded<T>(T value, long loadedAtNanos) {
+  }
+
+}
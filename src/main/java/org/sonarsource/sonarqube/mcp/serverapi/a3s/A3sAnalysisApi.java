@@ -16,9 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.a3s;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.a3s.request.AnalysisCreationRequest;
 import org.sonarsource.sonarqube.mcp.serverapi.a3s.response.AnalysisResponse;
@@ -29,7 +29,6 @@ public class A3sAnalysisApi {
   public static final String A3S_ORG_CONFIG_PATH = "/a3s-analysis/org-config/";
 
   private static final String JSON_CONTENT_TYPE = "application/json";
-  private static final Gson GSON = new Gson();
   private static final McpLogger LOG = McpLogger.getInstance();
 
   private final ServerApiHelper helper;
@@ -39,16 +38,16 @@ public class A3sAnalysisApi {
   }
 
   public AnalysisResponse analyze(AnalysisCreationRequest request) {
-    var requestBody = GSON.toJson(request);
+    var requestBody = JsonCodec.toJson(request);
     try (var response = helper.postApiSubdomain(ANALYSES_PATH, JSON_CONTENT_TYPE, requestBody)) {
-      return GSON.fromJson(response.bodyAsString(), AnalysisResponse.class);
+      return JsonCodec.fromJson(response, AnalysisResponse.class);
     }
   }
 
   @Nullable
   public OrgConfigResponse getA3sOrgConfig(String organizationUuidV4) {
     try (var response = helper.getApiSubdomain(A3S_ORG_CONFIG_PATH + organizationUuidV4)) {
-      return GSON.fromJson(response.bodyAsString(), OrgConfigResponse.class);
+      return JsonCodec.fromJson(response, OrgConfigResponse.class);
     } catch (Exception e) {
       LOG.warn("Could not retrieve A3S org config for organization '" + organizationUuidV4 + "': " + e.getMessage());
       return null;
@@ -16,12 +16,12 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.agenticreadiness;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 import java.util.List;
 import java.util.Map;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 
@@ -30,7 +30,6 @@ public class AgenticReadinessApi {
   public static final String ASSESSMENTS_PATH = "/was-experiments/agentic-readiness-assessments";
 
   private static final String JSON_CONTENT_TYPE = "application/json";
-  private static final Gson GSON = new Gson();
 
   private final ServerApiHelper helper;
 
@@ -45,14 +44,14 @@ public class AgenticReadinessApi {
       body.addProperty("branch", branch);
     }
     try (var response = helper.postApiSubdomain(ASSESSMENTS_PATH, JSON_CONTENT_TYPE, body.toString())) {
-      return GSON.fromJson(response.bodyAsString(), AssessmentResponse.class);
+      return JsonCodec.fromJson(response, AssessmentResponse.class);
     }
   }
 
   public AssessmentResponse getAssessment(String assessmentId) {
     var path = ASSESSMENTS_PATH + "/" + assessmentId;
     try (var response = helper.getApiSubdomain(path)) {
-      return GSON.fromJson(response.bodyAsString(), AssessmentResponse.class);
+      return JsonCodec.fromJson(response, AssessmentResponse.class);
     }
   }
 
@@ -65,7 +64,7 @@ public class AgenticReadinessApi {
       .addParam("pageSize", pageSize)
       .build();
     try (var response = helper.getApiSubdomain(path)) {
-      return GSON.fromJson(response.bodyAsString(), AssessmentsListResponse.class).assessments();
+      return JsonCodec.fromJson(response, AssessmentsListResponse.class).assessments();
     }
   }
 
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.branches;
 
-import com.google.gson.Gson;
 import java.util.Optional;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.branches.response.BranchesListResponse;
@@ -38,8 +38,7 @@ public class ProjectBranchesApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, BranchesListResponse.class);
+      return JsonCodec.fromJson(response, BranchesListResponse.class);
     }
   }
 
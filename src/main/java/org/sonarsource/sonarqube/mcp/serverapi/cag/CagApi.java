@@ -16,16 +16,15 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.cag;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 
 public class CagApi {
 
   public static final String CAG_ENTITLEMENT_PATH = "/cag/cag-entitlement/";
 
-  private static final Gson GSON = new Gson();
   private static final McpLogger LOG = McpLogger.getInstance();
 
   private final ServerApiHelper helper;
@@ -37,7 +36,7 @@ public class CagApi {
   @Nullable
   public CagEntitlementResponse getCagEntitlement(String organizationUuidV4) {
     try (var response = helper.getApiSubdomain(CAG_ENTITLEMENT_PATH + organizationUuidV4)) {
-      return GSON.fromJson(response.bodyAsString(), CagEntitlementResponse.class);
+      return JsonCodec.fromJson(response, CagEntitlementResponse.class);
     } catch (Exception e) {
       LOG.warn("Could not retrieve CAG entitlement for organization '" + organizationUuidV4 + "': " + e.getMessage());
       return null;
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.components;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.components.response.SearchResponse;
@@ -46,8 +46,7 @@ public class ComponentsApi {
     }
 
     try (var response = helper.get(builder.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
+      return JsonCodec.fromJson(response, SearchResponse.class);
     }
   }
 
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.duplications;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.duplications.response.DuplicationsResponse;
@@ -40,8 +40,7 @@ public class DuplicationsApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, DuplicationsResponse.class);
+      return JsonCodec.fromJson(response, DuplicationsResponse.class);
     }
   }
 
@@ -16,10 +16,10 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.enterprises;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.util.List;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.enterprises.response.ListResponse;
@@ -39,9 +39,8 @@ public class EnterprisesApi {
   public ListResponse listEnterprises(@Nullable String enterpriseKey) {
     try (var response = helper.getApiSubdomain(buildEnterprisesPath(enterpriseKey))) {
       // The API returns a direct array, not wrapped in an object
-      var responseStr = response.bodyAsString();
       var enterpriseListType = new TypeToken<List<ListResponse.Enterprise>>(){}.getType();
-      List<ListResponse.Enterprise> enterprises = new Gson().fromJson(responseStr, enterpriseListType);
+      List<ListResponse.Enterprise> enterprises = JsonCodec.fromJson(response, enterpriseListType);
       
       return new ListResponse(enterprises);
     }
@@ -50,8 +49,7 @@ public class EnterprisesApi {
   public PortfoliosResponse listPortfolios(@Nullable String enterpriseId, @Nullable String query, @Nullable Boolean favorite,
     @Nullable Boolean draft, @Nullable Integer pageIndex, @Nullable Integer pageSize) {
     try (var response = helper.getApiSubdomain(buildPortfoliosPath(enterpriseId, query, favorite, draft, pageIndex, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, PortfoliosResponse.class);
+      return JsonCodec.fromJson(response, PortfoliosResponse.class);
     }
   }
 
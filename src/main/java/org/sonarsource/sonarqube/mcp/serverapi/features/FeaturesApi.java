@@ -16,10 +16,10 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.features;
 
-import com.google.gson.Gson;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 
 public class FeaturesApi {
@@ -32,10 +32,16 @@ public class FeaturesApi {
     this.helper = helper;
   }
 
+  /**
+   * Features are served from the tenant state, and reloaded once expired.
+   */
   public Set<Feature> listFeatures() {
+    return helper.getTenantState().features(this::fetchFeatures);
+  }
+
+  private Set<Feature> fetchFeatures() {
     try (var response = helper.get(FEATURES_LIST_PATH)) {
-      var responseStr = response.bodyAsString();
-      var featureKeys = new Gson().fromJson(responseStr, String[].class);
+      var featureKeys = JsonCodec.fromJson(response, String[].class);
       return Arrays.stream(featureKeys).flatMap(key -> Feature.fromKey(key).stream()).collect(Collectors.toSet());
     }
   }
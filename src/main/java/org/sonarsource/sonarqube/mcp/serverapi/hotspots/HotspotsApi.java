@@ -16,9 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.hotspots;
 
-import com.google.gson.Gson;
 import java.util.List;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.hotspots.response.SearchResponse;
@@ -55,8 +55,7 @@ public class HotspotsApi {
 
   public SearchResponse search(SearchParams params) {
     try (var response = helper.get(buildSearchPath(params))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
+      return JsonCodec.fromJson(response, SearchResponse.class);
     }
   }
 
@@ -65,8 +64,7 @@ public class HotspotsApi {
       .addParam("hotspot", hotspotKey)
       .build();
     try (var response = helper.get(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ShowResponse.class);
+      return JsonCodec.fromJson(response, ShowResponse.class);
     }
   }
 
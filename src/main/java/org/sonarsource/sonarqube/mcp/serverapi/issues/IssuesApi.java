@@ -16,10 +16,10 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.issues;
 
-import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.List;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse;
@@ -52,8 +52,7 @@ public class IssuesApi {
 
   public SearchResponse search(SearchParams params) {
     try (var response = helper.get(buildIssueSearchPath(params))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
+      return JsonCodec.fromJson(response, SearchResponse.class);
     }
   }
 
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.languages;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.languages.response.ListResponse;
@@ -34,8 +34,7 @@ public class LanguagesApi {
 
   public ListResponse list(@Nullable String query) {
     try (var response = helper.get(buildListPath(query))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
+      return JsonCodec.fromJson(response, ListResponse.class);
     }
   }
 
@@ -16,9 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.measures;
 
-import com.google.gson.Gson;
 import java.util.List;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.measures.response.ComponentMeasuresResponse;
@@ -38,8 +38,7 @@ public class MeasuresApi {
   public ComponentMeasuresResponse getComponentMeasures(@Nullable String component, @Nullable String branch,
     @Nullable List<String> metricKeys, @Nullable String pullRequest) {
     try (var response = helper.get(buildPath(component, branch, metricKeys, pullRequest))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ComponentMeasuresResponse.class);
+      return JsonCodec.fromJson(response, ComponentMeasuresResponse.class);
     }
   }
 
@@ -60,8 +59,7 @@ public class MeasuresApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ComponentTreeResponse.class);
+      return JsonCodec.fromJson(response, ComponentTreeResponse.class);
     }
   }
 
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.metrics;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.metrics.response.SearchMetricsResponse;
@@ -34,8 +34,7 @@ public class MetricsApi {
 
   public SearchMetricsResponse searchMetrics(@Nullable Integer page, @Nullable Integer pageSize) {
     try (var response = helper.get(buildSearchPath(page, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchMetricsResponse.class);
+      return JsonCodec.fromJson(response, SearchMetricsResponse.class);
     }
   }
 
@@ -16,12 +16,12 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.organizations;
 
-import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import jakarta.annotation.Nullable;
 import java.util.Arrays;
 import java.util.List;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 
@@ -38,15 +38,24 @@ public class OrganizationsApi {
 
   /**
    * Returns the UUID v4 of the organization identified by the given key. Only available on SonarQube Cloud.
+   * The UUID of the helper's own organization is served from the tenant state.
    */
   @Nullable
   public String getOrganizationUuidV4(String organizationKey) {
+    if (organizationKey.equals(helper.getOrganization())) {
+      return helper.getTenantState().organizationUuidV4(() -> fetchOrganizationUuidV4(organizationKey));
+    }
+    return fetchOrganizationUuidV4(organizationKey);
+  }
+
+  @Nullable
+  private String fetchOrganizationUuidV4(String organizationKey) {
     var path = new UrlBuilder(ORGANIZATIONS_PATH)
       .addParam("organizationKey", organizationKey)
       .addParam("excludeEligibility", "true")
       .build();
     try (var response = helper.getApiSubdomain(path)) {
-      var dtos = new Gson().fromJson(response.bodyAsString(), Organization[].class);
+      var dtos = JsonCodec.fromJson(response, Organization[].class);
       if (dtos == null || dtos.length == 0) {
         return null;
       }
@@ -67,7 +76,7 @@ public class OrganizationsApi {
       .addParam("excludeEligibility", "true")
       .build();
     try (var response = helper.getApiSubdomain(path)) {
-      var dtos = new Gson().fromJson(response.bodyAsString(), Organization[].class);
+      var dtos = JsonCodec.fromJson(response, Organization[].class);
       if (dtos == null) {
         return List.of();
       }
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.plugins;
 
-import com.google.gson.Gson;
+import java.util.Map;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.response.InstalledPluginsResponse;
 
@@ -38,15 +39,25 @@ public class PluginsApi {
     // On SonarQube Cloud, plugin endpoints don't require authentication
     var response = isSonarQubeCloud ? helper.getAnonymous(INSTALLED_PLUGINS_PATH) : helper.get(INSTALLED_PLUGINS_PATH);
     try (response) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, InstalledPluginsResponse.class);
+      return JsonCodec.fromJson(response, InstalledPluginsResponse.class);
     }
   }
 
   public HttpClient.Response downloadPlugin(String pluginKey) {
     var downloadPath = DOWNLOAD_PLUGINS_PATH + "?plugin=" + pluginKey;
     // On SonarQube Cloud, plugin endpoints don't require authentication
-    return isSonarQubeCloud ? helper.rawGetAnonymous(downloadPath) : helper.rawGet(downloadPath);
+    // Plugin jars can be large: stream them instead of holding them in memory
+    return isSonarQubeCloud ? helper.rawGetStreamingAnonymous(downloadPath) : helper.rawGetStreaming(downloadPath);
+  }
+
+  /**
+   * Downloads the plugin jar from the given byte offset, to resume a partial download. The server answers with a 206 status when it
+   * honored the range, or sends the whole jar with a 200 status.
+   */
+  public HttpClient.Response downloadPlugin(String pluginKey, long fromByte) {
+    var downloadPath = DOWNLOAD_PLUGINS_PATH + "?plugin=" + pluginKey;
+    var headers = Map.of(HttpClient.RANGE_HEADER, "bytes=" + fromByte + "-");
+    return isSonarQubeCloud ? helper.rawGetStreamingAnonymous(downloadPath, headers) : helper.rawGetStreaming(downloadPath, headers);
   }
 
 }
@@ -16,7 +16,7 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.pullrequests;
 
-import com.google.gson.Gson;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.pullrequests.response.PullRequestsListResponse;
@@ -37,8 +37,7 @@ public class PullRequestsApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, PullRequestsListResponse.class);
+      return JsonCodec.fromJson(response, PullRequestsListResponse.class);
     }
   }
 
@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.qualitygates;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.qualitygates.response.ListResponse;
@@ -37,8 +37,7 @@ public class QualityGatesApi {
   public ProjectStatusResponse getProjectQualityGateStatus(@Nullable String analysisId, @Nullable String branch,
     @Nullable String projectId, @Nullable String projectKey, @Nullable String pullRequest) {
     try (var response = helper.get(buildStatusPath(analysisId, branch, projectId, projectKey, pullRequest))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ProjectStatusResponse.class);
+      return JsonCodec.fromJson(response, ProjectStatusResponse.class);
     }
   }
 
@@ -55,8 +54,7 @@ public class QualityGatesApi {
 
   public ListResponse list() {
     try (var response = helper.get(buildListPath(helper.getOrganization()))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
+      return JsonCodec.fromJson(response, ListResponse.class);
     }
   }
 
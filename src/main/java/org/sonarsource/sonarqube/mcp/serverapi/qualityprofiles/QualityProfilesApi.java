@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.response.SearchResponse;
@@ -41,8 +41,7 @@ public class QualityProfilesApi {
       url.addParam("defaults", "true");
     }
     try (var response = helper.get(url.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
+      return JsonCodec.fromJson(response, SearchResponse.class);
     }
   }
 
@@ -16,7 +16,7 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.rules;
 
-import com.google.gson.Gson;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
@@ -35,8 +35,7 @@ public class RulesApi {
 
   public ShowResponse showRule(String ruleKey) {
     try (var response = helper.get(buildPath(ruleKey))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ShowResponse.class);
+      return JsonCodec.fromJson(response, ShowResponse.class);
     }
   }
 
@@ -56,8 +55,7 @@ public class RulesApi {
       .addParam("p", page)
       .build();
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
+      return JsonCodec.fromJson(response, SearchResponse.class);
     }
   }
 }
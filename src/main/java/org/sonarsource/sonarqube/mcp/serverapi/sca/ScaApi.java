@@ -16,8 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.sca;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.sca.response.DependencyRisksResponse;
@@ -43,8 +43,7 @@ public class ScaApi {
       .addParam("organization", organization)
       .build();
     try (var response = helper.getApiSubdomain(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, FeatureEnabledResponse.class).enabled();
+      return JsonCodec.fromJson(response, FeatureEnabledResponse.class).enabled();
     } catch (Exception e) {
       return false;
     }
@@ -54,8 +53,7 @@ public class ScaApi {
     @Nullable Integer pageIndex, @Nullable Integer pageSize) {
     var path = buildPath(projectKey, branchKey, pullRequestKey, pageIndex, pageSize);
     try (var response = helper.isSonarQubeCloud() ? helper.getApiSubdomain(path) : helper.get("/api/v2" + path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, DependencyRisksResponse.class);
+      return JsonCodec.fromJson(response, DependencyRisksResponse.class);
     }
   }
 
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.sources;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
+import org.sonarsource.sonarqube.mcp.serverapi.ResponseText;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.sources.response.ScmResponse;
@@ -28,6 +29,10 @@ public class SourcesApi {
   public static final String SOURCES_RAW_PATH = "/api/sources/raw";
   public static final String SOURCES_SCM_PATH = "/api/sources/scm";
   public static final String SOURCES_LINES_PATH = "/api/sources/lines";
+  /**
+   * Generated or minified files can be huge, the rest of such a file is not downloaded.
+   */
+  public static final int MAX_RAW_SOURCE_CHARS = 1_000_000;
 
   private final ServerApiHelper helper;
 
@@ -35,6 +40,9 @@ public class SourcesApi {
     this.helper = helper;
   }
 
+  /**
+   * Returns the first {@link #MAX_RAW_SOURCE_CHARS} characters of the source file.
+   */
   public String getRawSource(String key, @Nullable String branch, @Nullable String pullRequest) {
     var url = new UrlBuilder(SOURCES_RAW_PATH)
       .addParam("key", key)
@@ -42,8 +50,8 @@ public class SourcesApi {
       .addParam("pullRequest", pullRequest)
       .build();
 
-    try (var response = helper.get(url)) {
-      return response.bodyAsString();
+    try (var response = helper.getStreaming(url)) {
+      return ResponseText.head(response, MAX_RAW_SOURCE_CHARS);
     }
   }
 
@@ -56,8 +64,7 @@ public class SourcesApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ScmResponse.class);
+      return JsonCodec.fromJson(response, ScmResponse.class);
     }
   }
 
@@ -72,8 +79,7 @@ public class SourcesApi {
       .build();
 
     try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SourceLinesResponse.class);
+      return JsonCodec.fromJson(response, SourceLinesResponse.class);
     }
   }
 
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.system;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
+import org.sonarsource.sonarqube.mcp.serverapi.ResponseText;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.system.response.HealthResponse;
@@ -31,6 +32,10 @@ public class SystemApi {
   public static final String LOGS_PATH = "/api/system/logs";
   public static final String PING_PATH = "/api/system/ping";
   public static final String STATUS_PATH = "/api/system/status";
+  /**
+   * Log files are returned whole by the server and can weigh hundreds of megabytes, only their most recent lines are kept.
+   */
+  public static final int MAX_LOGS_CHARS = 1_000_000;
 
   private final ServerApiHelper helper;
 
@@ -40,21 +45,22 @@ public class SystemApi {
 
   public HealthResponse getHealth() {
     try (var response = helper.get(HEALTH_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, HealthResponse.class);
+      return JsonCodec.fromJson(response, HealthResponse.class);
     }
   }
 
   public InfoResponse getInfo() {
     try (var response = helper.get(INFO_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, InfoResponse.class);
+      return JsonCodec.fromJson(response, InfoResponse.class);
     }
   }
 
+  /**
+   * Returns the last {@link #MAX_LOGS_CHARS} characters of the logs.
+   */
   public String getLogs(@Nullable String name) {
-    try (var response = helper.get(buildLogsPath(name))) {
-      return response.bodyAsString();
+    try (var response = helper.getStreaming(buildLogsPath(name))) {
+      return ResponseText.tail(response, MAX_LOGS_CHARS);
     }
   }
 
@@ -66,11 +72,24 @@ public class SystemApi {
 
   public StatusResponse getStatus() {
     try (var response = helper.getAnonymous(STATUS_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, StatusResponse.class);
+      return JsonCodec.fromJson(response, StatusResponse.class);
     }
   }
 
+  /**
+   * Returns the server version, served from the tenant state and reloaded once expired.
+   */
+  public String getVersion() {
+    return helper.getTenantState().serverStatus(this::getStatus).version();
+  }
+
+  /**
+   * Returns the server installation id, served from the tenant state and reloaded once expired.
+   */
+  public String getInstallationId() {
+    return helper.getTenantState().serverStatus(this::getStatus).id();
+  }
+
   private static String buildLogsPath(@Nullable String name) {
     var builder = new UrlBuilder(LOGS_PATH);
     if (name != null) {
@@ -16,9 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.users;
 
-import com.google.gson.Gson;
 import jakarta.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 
 public class UsersApi {
@@ -38,7 +38,7 @@ public class UsersApi {
   @Nullable
   public String getCurrentUserId() {
     try (var response = helper.get(CURRENT_USER_PATH)) {
-      var dto = new Gson().fromJson(response.bodyAsString(), CurrentUserResponse.class);
+      var dto = JsonCodec.fromJson(response, CurrentUserResponse.class);
       return dto.id();
     } catch (Exception e) {
       LOG.debug("Could not retrieve current user id: " + e.getMessage());
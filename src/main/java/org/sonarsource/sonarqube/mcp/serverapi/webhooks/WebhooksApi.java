@@ -16,9 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.webhooks;
 
-import com.google.gson.Gson;
 import java.util.ArrayList;
 import jakarta.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.webhooks.response.CreateResponse;
@@ -41,16 +41,14 @@ public class WebhooksApi {
     var path = buildPath();
     var body = buildRequestBody(name, url, project, secret);
     try (var response = helper.post(path, "application/x-www-form-urlencoded", body)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, CreateResponse.class);
+      return JsonCodec.fromJson(response, CreateResponse.class);
     }
   }
 
   public ListResponse listWebhooks(@Nullable String project) {
     var path = buildListPath(project);
     try (var response = helper.get(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
+      return JsonCodec.fromJson(response, ListResponse.class);
     }
   }
 
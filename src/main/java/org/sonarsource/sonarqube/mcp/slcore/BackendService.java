@@ -20,21 +20,33 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonarsource.sonarlint.core.rpc.client.ClientJsonRpcLauncher;
@@ -65,13 +77,16 @@ import org.sonarsource.sonarqube.mcp.log.McpLogger;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Objects.requireNonNull;
 
 public class BackendService {
 
   public static final String PROJECT_ID = "sonarqube-mcp-server";
+  static final int MAX_PROJECT_CONFIGURATION_SCOPES = 64;
+  private static final int DRAIN_TIMEOUT_SECONDS = 120;
   private static final McpLogger LOG = McpLogger.getInstance();
 
-  private CompletableFuture<SonarLintRpcServer> backendFuture = new CompletableFuture<>();
+  private volatile CompletableFuture<SonarLintRpcServer> backendFuture = new CompletableFuture<>();
   private final Path storagePath;
   private final Path logFilePath;
   private final String appVersion;
@@ -79,9 +94,27 @@ public class BackendService {
   private final String appName;
   private boolean isTelemetryEnabled;
   private final boolean isFileLoggingDisabled;
+  @Nullable
   private ClientJsonRpcLauncher clientLauncher;
   private McpTransportMode transportMode;
   private volatile boolean isInitialized = false;
+  private volatile String analyzersFingerprint = fingerprintOf(Set.of());
+  private final InMemoryFileSystem inMemoryFileSystem = new InMemoryFileSystem();
+  @Nullable
+  private volatile AnalyzersAndLanguagesEnabled analyzers;
+  private final RulesConfigurationGate rulesConfigurationGate;
+  // Indexed by slot of the gate, the first one is the main backend
+  private final List<AnalysisBackend> analysisBackends;
+  private final Set<String> projectConfigurationScopeIds = new LinkedHashSet<>();
+  private final Set<CompletableFuture<AnalyzeFilesResponse>> analysesInFlight = ConcurrentHashMap.newKeySet();
+  // Guards the switch to a new backend against the registration of analyses and configuration scopes
+  private final Object backendSwitchLock = new Object();
+  private final LauncherFactory launcherFactory;
+  private final AtomicReference<AnalyzersAndLanguagesEnabled> deferredInitialization = new AtomicReference<>();
+  // Shuts down the replaced backends once their analyses are done, off the thread of the restart
+  private final ExecutorService drainExecutor = Executors.newCachedThreadPool(Thread.ofPlatform().name("sonarqube-backend-drain-", 0).daemon().factory());
+  private final Set<PreviousBackends> drainingBackends = ConcurrentHashMap.newKeySet();
+  private boolean isLoggingConfigured;
 
   public BackendService(McpServerLaunchConfiguration mcpConfiguration) {
     this.storagePath = mcpConfiguration.getStoragePath();
@@ -91,6 +124,9 @@ public class BackendService {
     this.appName = mcpConfiguration.getAppName();
     this.isTelemetryEnabled = mcpConfiguration.isTelemetryEnabled();
     this.isFileLoggingDisabled = mcpConfiguration.isFileLoggingDisabled();
+    this.launcherFactory = this::launchInProcessBackend;
+    this.rulesConfigurationGate = new RulesConfigurationGate(mcpConfiguration.getAnalysisBackends());
+    this.analysisBackends = analysisBackends(mcpConfiguration.getAnalysisBackends());
     if (!mcpConfiguration.isHttpEnabled()) {
       this.transportMode = McpTransportMode.STDIO;
     } else if (mcpConfiguration.isHttpsEnabled()) {
@@ -102,7 +138,20 @@ public class BackendService {
 
   // For tests
   BackendService(ClientJsonRpcLauncher launcher, Path storagePath, String appVersion, String appName) {
+    this(client -> launcher, storagePath, appVersion, appName);
     this.clientLauncher = launcher;
+  }
+
+  // For tests
+  BackendService(LauncherFactory launcherFactory, Path storagePath, String appVersion, String appName) {
+    this(launcherFactory, storagePath, appVersion, appName, 1);
+  }
+
+  // For tests
+  BackendService(LauncherFactory launcherFactory, Path storagePath, String appVersion, String appName, int analysisBackendCount) {
+    this.launcherFactory = launcherFactory;
+    this.rulesConfigurationGate = new RulesConfigurationGate(analysisBackendCount);
+    this.analysisBackends = analysisBackends(analysisBackendCount);
     this.storagePath = storagePath;
     this.logFilePath = storagePath.resolve("mcp.log");
     this.appVersion = appVersion;
@@ -111,28 +160,105 @@ public class BackendService {
     this.isFileLoggingDisabled = false;
   }
 
+  private static List<AnalysisBackend> analysisBackends(int count) {
+    var backends = new ArrayList<AnalysisBackend>();
+    for (var i = 0; i < count; i++) {
+      backends.add(new AnalysisBackend());
+    }
+    return List.copyOf(backends);
+  }
+
   public CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(UUID analysisId, List<URI> filesToAnalyze) {
-    return backendFuture.thenComposeAsync(server -> server.getAnalysisService().analyzeFilesAndTrack(
-      new AnalyzeFilesAndTrackParams(PROJECT_ID, analysisId, filesToAnalyze, Map.of(), false)));
+    return analyzeFilesAndTrack(PROJECT_ID, analysisId, filesToAnalyze);
+  }
+
+  /**
+   * Analyzes the files on the main backend, with the rules last applied to it. Use {@link RulesLease#analyzeFilesAndTrack} to analyze
+   * with the rules of a lease.
+   */
+  public CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(String configScopeId, UUID analysisId, List<URI> filesToAnalyze) {
+    return analyzeFilesAndTrack(analysisBackends.getFirst(), configScopeId, analysisId, filesToAnalyze);
+  }
+
+  private CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(AnalysisBackend analysisBackend, String configScopeId, UUID analysisId,
+    List<URI> filesToAnalyze) {
+    CompletableFuture<AnalyzeFilesResponse> analysis;
+    // Registered along with the backend it is sent to, so that a restart waits for it before shutting that backend down
+    synchronized (backendSwitchLock) {
+      analysis = serverOf(analysisBackend).thenComposeAsync(server -> {
+        // The backend may have been replaced since the rules were applied
+        applyRequestedRules(analysisBackend, server);
+        return server.getAnalysisService().analyzeFilesAndTrack(
+          new AnalyzeFilesAndTrackParams(configScopeId, analysisId, filesToAnalyze, Map.of(), false));
+      });
+      analysesInFlight.add(analysis);
+    }
+    analysis.whenComplete((response, error) -> analysesInFlight.remove(analysis));
+    return analysis;
+  }
+
+  /**
+   * Returns the configuration scope in which the files of the given project are analyzed, registering it on first use. Each project
+   * gets its own scope, so that the files of concurrent analyses of different projects are not listed together. Beyond
+   * {@link #MAX_PROJECT_CONFIGURATION_SCOPES} projects, or without project, the default scope is used.
+   */
+  public String configurationScopeFor(@Nullable String projectKey) {
+    if (projectKey == null) {
+      return PROJECT_ID;
+    }
+    var configScopeId = PROJECT_ID + ":" + projectKey;
+    // A restart sends the scopes added until the switch to the new backend
+    synchronized (backendSwitchLock) {
+      synchronized (projectConfigurationScopeIds) {
+        if (projectConfigurationScopeIds.contains(configScopeId)) {
+          return configScopeId;
+        }
+        if (projectConfigurationScopeIds.size() >= MAX_PROJECT_CONFIGURATION_SCOPES) {
+          return PROJECT_ID;
+        }
+        projectConfigurationScopeIds.add(configScopeId);
+      }
+      var params = new DidAddConfigurationScopesParams(List.of(configurationScope(configScopeId)));
+      backendFuture.thenAcceptAsync(server -> server.getConfigurationService().didAddConfigurationScopes(params));
+      additionalBackends().forEach(backend -> backend.thenAcceptAsync(server -> server.getConfigurationService().didAddConfigurationScopes(params)));
+    }
+    return configScopeId;
   }
 
+  /**
+   * Makes the file known to the backend. Its content is sent along, the file does not need to exist on disk.
+   */
   public void addFile(ClientFileDto clientFileDto) {
     LOG.info("Adding file " + clientFileDto.getUri());
-    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(clientFileDto), List.of(), List.of())));
+    inMemoryFileSystem.add(clientFileDto);
+    var params = new DidUpdateFileSystemParams(List.of(clientFileDto), List.of(), List.of());
+    startedBackend().thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(params));
+    additionalBackends().forEach(backend -> backend.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(params)));
   }
 
   public ClientFileDto toClientFileDto(Path filePath, String content, @Nullable Language language, boolean isTest) {
-    return new ClientFileDto(filePath.toUri(), filePath, PROJECT_ID, isTest, Charset.defaultCharset().toString(), filePath,
+    return toClientFileDto(PROJECT_ID, filePath, content, language, isTest);
+  }
+
+  public ClientFileDto toClientFileDto(String configScopeId, Path filePath, String content, @Nullable Language language, boolean isTest) {
+    return new ClientFileDto(filePath.toUri(), filePath, configScopeId, isTest, Charset.defaultCharset().toString(), filePath,
       content, language, true);
   }
 
   public void removeFile(URI file) {
     LOG.info("Removing file " + file);
-    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(), List.of(), List.of(file))));
+    inMemoryFileSystem.remove(file);
+    var params = new DidUpdateFileSystemParams(List.of(), List.of(), List.of(file));
+    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(params));
+    additionalBackends().forEach(backend -> backend.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(params)));
   }
 
   public void notifyToolCalled(String toolName, boolean succeeded) {
-    backendFuture.thenAcceptAsync(server -> server.getTelemetryService().toolCalled(new ToolCalledParams(toolName, succeeded)));
+    if (!isTelemetryEnabled && deferredInitialization.get() != null) {
+      // The backend would drop it, it is not worth starting it for that
+      return;
+    }
+    startedBackend().thenAcceptAsync(server -> server.getTelemetryService().toolCalled(new ToolCalledParams(toolName, succeeded)));
   }
 
   public void notifySonarQubeIdeIntegration() {
@@ -143,45 +269,151 @@ public class BackendService {
     backendFuture.thenAcceptAsync(server -> server.getTelemetryService().mcpTransportModeUsed(new McpTransportModeUsedParams(transportMode)));
   }
 
+  InMemoryFileSystem getInMemoryFileSystem() {
+    return inMemoryFileSystem;
+  }
+
+  /**
+   * Identifies the analyzers the backend was last initialized with, it changes whenever one of them is added, removed or replaced.
+   */
+  public String getAnalyzersFingerprint() {
+    return analyzersFingerprint;
+  }
+
+  /**
+   * Identifies the analyzers applied to the files of the given language: the ones of that language and the ones applied to files of
+   * any language, like secrets detection. Unlike {@link #getAnalyzersFingerprint()}, it does not change when an analyzer of another
+   * language is loaded.
+   */
+  public String getAnalyzersFingerprint(@Nullable Language language) {
+    var currentAnalyzers = analyzers;
+    if (currentAnalyzers == null) {
+      return fingerprintOf(Set.of());
+    }
+    return fingerprintOf(currentAnalyzers.analyzerPaths().stream()
+      .filter(analyzerPath -> isApplied(currentAnalyzers.languagesByAnalyzer().getOrDefault(analyzerPath, Set.of()), language))
+      .collect(Collectors.toSet()));
+  }
+
+  private static boolean isApplied(Set<Language> analyzerLanguages, @Nullable Language language) {
+    // An analyzer of unknown languages may apply to any file
+    return analyzerLanguages.isEmpty() || analyzerLanguages.contains(Language.SECRETS) || (language != null && analyzerLanguages.contains(language));
+  }
+
   public Path getWorkDir() {
     return Paths.get(System.getProperty("user.home")).resolve(".sonarlint");
   }
 
-  public void initialize(AnalyzersAndLanguagesEnabled analyzers) {
+  /**
+   * Defers the initialization of the backend until it is first needed, i.e. until a file is analyzed or a tool call is reported, so
+   * that deployments without local analysis do not start it at all. Other notifications are sent once it is started.
+   */
+  public void initializeOnFirstUse(AnalyzersAndLanguagesEnabled analyzers) {
+    LOG.info("Backend service will be started on first use");
+    this.analyzers = analyzers;
+    deferredInitialization.set(analyzers);
+  }
+
+  private CompletableFuture<SonarLintRpcServer> startedBackend() {
+    var analyzers = deferredInitialization.getAndSet(null);
+    if (analyzers != null) {
+      CompletableFuture.runAsync(() -> initialize(analyzers));
+    }
+    return backendFuture;
+  }
+
+  private CompletableFuture<SonarLintRpcServer> serverOf(AnalysisBackend analysisBackend) {
+    if (analysisBackend == analysisBackends.getFirst()) {
+      return startedBackend();
+    }
+    synchronized (analysisBackend) {
+      if (analysisBackend.launcher == null) {
+        var launcher = startedBackend().thenApplyAsync(mainBackend -> launchAdditionalBackend());
+        analysisBackend.launcher = launcher;
+        launcher.whenComplete((started, error) -> {
+          if (error != null) {
+            // The next analysis will try again
+            synchronized (analysisBackend) {
+              if (analysisBackend.launcher == launcher) {
+                analysisBackend.launcher = null;
+              }
+            }
+          }
+        });
+      }
+      return analysisBackend.launcher.thenApply(ClientJsonRpcLauncher::getServerProxy);
+    }
+  }
+
+  /**
+   * Starts a backend with the analyzers and configuration scopes of the main one. Its files are listed from the shared in-memory file
+   * system when it first needs them.
+   */
+  private ClientJsonRpcLauncher launchAdditionalBackend() {
+    LOG.info("Starting an additional backend to run analyses with other rules in parallel");
+    ClientJsonRpcLauncher launcher = null;
+    try {
+      launcher = launcherFactory.launch(new McpSonarLintRpcClient(inMemoryFileSystem));
+      var server = launcher.getServerProxy();
+      // Telemetry is reported by the main backend only
+      initRpcServer(server, requireNonNull(analyzers), false).get(1, TimeUnit.MINUTES);
+      server.getConfigurationService().didAddConfigurationScopes(new DidAddConfigurationScopesParams(configurationScopes()));
+      return launcher;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      closeQuietly(launcher);
+      throw new IllegalStateException("Interrupted while starting an additional backend", e);
+    } catch (Exception e) {
+      closeQuietly(launcher);
+      throw new IllegalStateException("Unable to start an additional backend", e);
+    }
+  }
+
+  /**
+   * Returns the additional backends that are started or starting.
+   */
+  private List<CompletableFuture<SonarLintRpcServer>> additionalBackends() {
+    var backends = new ArrayList<CompletableFuture<SonarLintRpcServer>>();
+    for (var analysisBackend : analysisBackends.subList(1, analysisBackends.size())) {
+      synchronized (analysisBackend) {
+        if (analysisBackend.launcher != null) {
+          backends.add(analysisBackend.launcher.thenApply(ClientJsonRpcLauncher::getServerProxy));
+        }
+      }
+    }
+    return backends;
+  }
+
+  /**
+   * Detaches the additional backends, the next analyses sent to them start new ones.
+   */
+  private List<CompletableFuture<ClientJsonRpcLauncher>> detachAdditionalBackends() {
+    var launchers = new ArrayList<CompletableFuture<ClientJsonRpcLauncher>>();
+    for (var analysisBackend : analysisBackends.subList(1, analysisBackends.size())) {
+      synchronized (analysisBackend) {
+        if (analysisBackend.launcher != null) {
+          launchers.add(analysisBackend.launcher);
+          analysisBackend.launcher = null;
+        }
+      }
+    }
+    return launchers;
+  }
+
+  public synchronized void initialize(AnalyzersAndLanguagesEnabled analyzers) {
+    deferredInitialization.set(null);
+    if (isInitialized) {
+      return;
+    }
+    this.analyzers = analyzers;
+    analyzersFingerprint = fingerprintOf(analyzers.analyzerPaths());
     try {
       LOG.info("Starting backend service");
       if (clientLauncher == null) {
-        var clientToServerOutputStream = new PipedOutputStream();
-        var clientToServerInputStream = new PipedInputStream(clientToServerOutputStream);
-        var serverToClientOutputStream = new PipedOutputStream();
-        var serverToClientInputStream = new PipedInputStream(serverToClientOutputStream);
-        new BackendJsonRpcLauncher(clientToServerInputStream, serverToClientOutputStream);
-        var rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
-        rootLogger.detachAndStopAllAppenders();
-        if (!isFileLoggingDisabled) {
-          var fileAppender = new RollingFileAppender<ILoggingEvent>();
-          fileAppender.setContext(rootLogger.getLoggerContext());
-          fileAppender.setName("FILE");
-          fileAppender.setFile(logFilePath.toAbsolutePath().toString());
-          var policy = new TimeBasedRollingPolicy<ILoggingEvent>();
-          policy.setContext(rootLogger.getLoggerContext());
-          policy.setFileNamePattern(storagePath.toAbsolutePath() + "/logs/mcp.%d{yyyy-MM-dd}.log");
-          policy.setMaxHistory(10);
-          policy.setParent(fileAppender);
-          policy.start();
-          fileAppender.setRollingPolicy(policy);
-          var encoder = new PatternLayoutEncoder();
-          encoder.setContext(rootLogger.getLoggerContext());
-          encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
-          encoder.start();
-          fileAppender.setEncoder(encoder);
-          fileAppender.start();
-          rootLogger.addAppender(fileAppender);
-        }
-        clientLauncher = new ClientJsonRpcLauncher(serverToClientInputStream, clientToServerOutputStream, new McpSonarLintRpcClient());
+        clientLauncher = launcherFactory.launch(new McpSonarLintRpcClient(inMemoryFileSystem));
       }
       var backend = clientLauncher.getServerProxy();
-      initRpcServer(backend, analyzers).get(1, TimeUnit.MINUTES);
+      initRpcServer(backend, analyzers, isTelemetryEnabled).get(1, TimeUnit.MINUTES);
       backendFuture.complete(backend);
       isInitialized = true;
       LOG.info("Backend service initialized");
@@ -194,54 +426,203 @@ public class BackendService {
     }
   }
 
+  private void configureLogging() {
+    var rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    rootLogger.detachAndStopAllAppenders();
+    if (!isFileLoggingDisabled) {
+      var fileAppender = new RollingFileAppender<ILoggingEvent>();
+      fileAppender.setContext(rootLogger.getLoggerContext());
+      fileAppender.setName("FILE");
+      fileAppender.setFile(logFilePath.toAbsolutePath().toString());
+      var policy = new TimeBasedRollingPolicy<ILoggingEvent>();
+      policy.setContext(rootLogger.getLoggerContext());
+      policy.setFileNamePattern(storagePath.toAbsolutePath() + "/logs/mcp.%d{yyyy-MM-dd}.log");
+      policy.setMaxHistory(10);
+      policy.setParent(fileAppender);
+      policy.start();
+      fileAppender.setRollingPolicy(policy);
+      var encoder = new PatternLayoutEncoder();
+      encoder.setContext(rootLogger.getLoggerContext());
+      encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+      encoder.start();
+      fileAppender.setEncoder(encoder);
+      fileAppender.start();
+      rootLogger.addAppender(fileAppender);
+    }
+  }
+
+  private ClientJsonRpcLauncher launchInProcessBackend(McpSonarLintRpcClient client) throws IOException {
+    if (!isLoggingConfigured) {
+      configureLogging();
+      isLoggingConfigured = true;
+    }
+    var clientToServer = new InProcessPipe();
+    var serverToClient = new InProcessPipe();
+    new BackendJsonRpcLauncher(clientToServer.inputStream(), serverToClient.outputStream());
+    return new ClientJsonRpcLauncher(serverToClient.inputStream(), clientToServer.outputStream(), client);
+  }
+
   /**
-   * Restarts the backend with new analyzers. This shuts down the current backend
-   * and initializes a new one with the provided analyzers.
+   * Replaces the analyzers of the backend without downtime. A second backend is started with the new analyzers and prepared with the
+   * configuration scopes, files and rules of the current one. Calls are then switched over to it, and the current backend is shut down
+   * in the background once the analyses it is running are done. If the new backend fails to start, the current one is kept. The
+   * additional backends are shut down as well once drained, they are started again with the new analyzers when needed.
+   *
+   * @return completes once the replaced backends are shut down
    */
-  public void restartWithAnalyzers(AnalyzersAndLanguagesEnabled analyzers) {
+  public CompletableFuture<Void> restartWithAnalyzers(AnalyzersAndLanguagesEnabled analyzers) {
+    var previousBackends = switchToNewBackend(analyzers);
+    if (previousBackends == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    LOG.info("Backend restarted with new analyzers");
+    drainingBackends.add(previousBackends);
+    try {
+      return CompletableFuture.runAsync(() -> shutdownOnceDrained(previousBackends), drainExecutor);
+    } catch (RejectedExecutionException e) {
+      // Shutting down
+      shutdownPreviousBackends(previousBackends);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Returns the backends replaced by the new one, or null when it was not started.
+   */
+  @Nullable
+  private synchronized PreviousBackends switchToNewBackend(AnalyzersAndLanguagesEnabled analyzers) {
     if (!isInitialized) {
       LOG.info("Backend not yet initialized, initializing with analyzers");
       initialize(analyzers);
-      return;
+      return null;
+    }
+
+    LOG.info("Starting a new backend with the new analyzers...");
+    ClientJsonRpcLauncher newLauncher = null;
+    SonarLintRpcServer newBackend;
+    try {
+      newLauncher = launcherFactory.launch(new McpSonarLintRpcClient(inMemoryFileSystem));
+      newBackend = newLauncher.getServerProxy();
+      initRpcServer(newBackend, analyzers, isTelemetryEnabled).get(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOG.error("Interrupted while starting the new backend, keeping the current one", e);
+      closeQuietly(newLauncher);
+      return null;
+    } catch (Exception e) {
+      LOG.error("Unable to start a backend with the new analyzers, keeping the current one", e);
+      closeQuietly(newLauncher);
+      return null;
     }
+    var warmedUpScopeIds = warmUp(newBackend);
 
-    LOG.info("Restarting backend with new analyzers...");
+    PreviousBackends previousBackends;
+    synchronized (backendSwitchLock) {
+      // Switch over, new calls go to the new backend. The analyses registered until now were sent to the previous backends.
+      previousBackends = new PreviousBackends(clientLauncher, backendFuture.getNow(null), detachAdditionalBackends(),
+        List.copyOf(analysesInFlight));
+      // Only the analyses sent to the new backend delay its own replacement
+      analysesInFlight.clear();
+      clientLauncher = newLauncher;
+      backendFuture = CompletableFuture.completedFuture(newBackend);
+      this.analyzers = analyzers;
+      analyzersFingerprint = fingerprintOf(analyzers.analyzerPaths());
+      // Scopes added while the new backend was warming up were only sent to the previous one
+      var addedScopes = configurationScopes().stream().filter(scope -> !warmedUpScopeIds.contains(scope.getId())).toList();
+      if (!addedScopes.isEmpty()) {
+        newBackend.getConfigurationService().didAddConfigurationScopes(new DidAddConfigurationScopesParams(addedScopes));
+      }
+    }
+    // Files added while the new backend was starting were only sent to the previous one
+    var files = inMemoryFileSystem.listAllFiles();
+    if (!files.isEmpty()) {
+      newBackend.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(files, List.of(), List.of()));
+    }
+    LOG.info("Switched to the backend with the new analyzers");
+    return previousBackends;
+  }
+
+  /**
+   * Prepares the new backend so that the first analyses it receives do not pay for its configuration. Returns the identifiers of the
+   * configuration scopes it was given.
+   */
+  private Set<String> warmUp(SonarLintRpcServer newBackend) {
+    var configurationScopes = configurationScopes();
+    newBackend.getConfigurationService().didAddConfigurationScopes(new DidAddConfigurationScopesParams(configurationScopes));
+    applyRequestedRules(analysisBackends.getFirst(), newBackend);
+    return configurationScopes.stream().map(ConfigurationScopeDto::getId).collect(Collectors.toSet());
+  }
+
+  private void shutdownOnceDrained(PreviousBackends previousBackends) {
+    drain(previousBackends.analyses());
+    shutdownPreviousBackends(previousBackends);
+  }
+
+  private void shutdownPreviousBackends(PreviousBackends previousBackends) {
+    if (!drainingBackends.remove(previousBackends)) {
+      // Already shut down along with the service
+      return;
+    }
     try {
-      // Shut down current backend
-      var currentBackend = backendFuture.getNow(null);
-      if (currentBackend != null) {
-        currentBackend.shutdown().get(10, TimeUnit.SECONDS);
+      var previousBackend = previousBackends.backend();
+      if (previousBackend != null) {
+        previousBackend.shutdown().get(10, TimeUnit.SECONDS);
       }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      LOG.error("Interrupted while shutting down backend for restart", e);
+      LOG.error("Interrupted while shutting down the previous backend", e);
+    } catch (Exception e) {
+      LOG.warn("Error during shutdown of the previous backend, proceeding anyway: " + e.getMessage());
+    }
+    closeQuietly(previousBackends.launcher());
+    previousBackends.additionalLaunchers().forEach(launcher -> launcher.thenAccept(BackendService::stopQuietly));
+  }
+
+  /**
+   * Waits for the analyses sent to the previous backends to complete, so that switching backends does not fail them.
+   */
+  private static void drain(List<CompletableFuture<AnalyzeFilesResponse>> analyses) {
+    var pendingAnalyses = analyses.stream().filter(analysis -> !analysis.isDone()).toArray(CompletableFuture[]::new);
+    if (pendingAnalyses.length == 0) {
       return;
+    }
+    LOG.info("Waiting for " + pendingAnalyses.length + " analyses to complete on the previous backend");
+    try {
+      CompletableFuture.allOf(pendingAnalyses).get(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // Failed analyses are reported to their callers
+    } catch (TimeoutException e) {
+      LOG.warn("Analyses still running on the previous backend after " + DRAIN_TIMEOUT_SECONDS + "s, shutting it down anyway");
+    }
+  }
+
+  private static void stopQuietly(ClientJsonRpcLauncher launcher) {
+    try {
+      launcher.getServerProxy().shutdown().get(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } catch (Exception e) {
-      LOG.warn("Error during backend shutdown for restart, proceeding anyway: " + e.getMessage());
+      LOG.warn("Error during shutdown of an additional backend, proceeding anyway: " + e.getMessage());
     }
+    closeQuietly(launcher);
+  }
 
-    // Close the old launcher
+  private static void closeQuietly(@Nullable ClientJsonRpcLauncher launcher) {
     try {
-      if (clientLauncher != null) {
-        clientLauncher.close();
+      if (launcher != null) {
+        launcher.close();
       }
     } catch (Exception e) {
       LOG.warn("Error closing launcher during restart: " + e.getMessage());
     }
-
-    // Reset state for clean restart
-    clientLauncher = null;
-    isInitialized = false;
-    backendFuture = new CompletableFuture<>();
-
-    // Initialize with new analyzers
-    initialize(analyzers);
-    LOG.info("Backend restarted with new analyzers");
   }
 
-  private CompletableFuture<Void> initRpcServer(SonarLintRpcServer rpcServer, AnalyzersAndLanguagesEnabled analyzersInStorage) {
+  private CompletableFuture<Void> initRpcServer(SonarLintRpcServer rpcServer, AnalyzersAndLanguagesEnabled analyzersInStorage,
+    boolean withTelemetry) {
     var capabilities = EnumSet.of(BackendCapability.FULL_SYNCHRONIZATION, BackendCapability.PROJECT_SYNCHRONIZATION);
-    if (isTelemetryEnabled) {
+    if (withTelemetry) {
       capabilities.add(BackendCapability.TELEMETRY);
     }
 
@@ -276,14 +657,53 @@ public class BackendService {
         LogLevel.DEBUG));
   }
 
+  static String fingerprintOf(Set<Path> analyzerPaths) {
+    var analyzers = analyzerPaths.stream()
+      .map(BackendService::describeAnalyzer)
+      .sorted()
+      .toList();
+    return DigestUtils.sha256Hex(String.join("\n", analyzers));
+  }
+
+  private static String describeAnalyzer(Path analyzerPath) {
+    try {
+      return analyzerPath.getFileName() + ":" + Files.size(analyzerPath) + ":" + Files.getLastModifiedTime(analyzerPath).toMillis();
+    } catch (IOException e) {
+      return analyzerPath.getFileName().toString();
+    }
+  }
+
   private void projectOpened() {
+    var configurationScopes = configurationScopes();
     backendFuture.thenAcceptAsync(server -> server
       .getConfigurationService()
-      .didAddConfigurationScopes(new DidAddConfigurationScopesParams(
-        List.of(new ConfigurationScopeDto(PROJECT_ID, null, false, PROJECT_ID, null)))));
+      .didAddConfigurationScopes(new DidAddConfigurationScopesParams(configurationScopes)));
+  }
+
+  private List<ConfigurationScopeDto> configurationScopes() {
+    var configurationScopes = new ArrayList<ConfigurationScopeDto>();
+    configurationScopes.add(configurationScope(PROJECT_ID));
+    synchronized (projectConfigurationScopeIds) {
+      projectConfigurationScopeIds.forEach(configScopeId -> configurationScopes.add(configurationScope(configScopeId)));
+    }
+    return configurationScopes;
+  }
+
+  private static ConfigurationScopeDto configurationScope(String configScopeId) {
+    return new ConfigurationScopeDto(configScopeId, null, false, configScopeId, null);
   }
 
   public void shutdown() {
+    deferredInitialization.set(null);
+    // The backends still draining are shut down without waiting for their analyses
+    drainExecutor.shutdownNow();
+    List.copyOf(drainingBackends).forEach(this::shutdownPreviousBackends);
+    detachAdditionalBackends().forEach(launcher -> {
+      var startedLauncher = launcher.getNow(null);
+      if (startedLauncher != null) {
+        stopQuietly(startedLauncher);
+      }
+    });
     try {
       var aliveBackend = backendFuture.getNow(null);
       if (aliveBackend != null) {
@@ -297,7 +717,9 @@ public class BackendService {
       // Clear interrupt flag so clientLauncher.close() (which calls awaitTermination) can complete
       boolean wasInterrupted = Thread.interrupted();
       try {
-        clientLauncher.close();
+        if (clientLauncher != null) {
+          clientLauncher.close();
+        }
       } catch (Exception e) {
         LOG.error("Unable to stop the MCP backend launcher", e);
       }
@@ -307,19 +729,151 @@ public class BackendService {
     }
   }
 
+  /**
+   * Applies the given rules for the duration of an analysis. The rules configuration of a backend is global, so analyses requiring
+   * other rules than the ones in progress go to another backend, started on first use. When all of them are busy with other rules,
+   * the analysis waits until the returned leases of one of them are closed.
+   *
+   * @throws TimeoutException when the analyses using other rules did not complete in time
+   */
+  public RulesLease useRulesConfiguration(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey, long timeout, TimeUnit unit)
+    throws InterruptedException, TimeoutException {
+    var slot = rulesConfigurationGate.enter(snapshotOf(ruleConfigurationByKey), timeout, unit);
+    var analysisBackend = analysisBackends.get(slot);
+    try {
+      updateRulesConfiguration(analysisBackend, ruleConfigurationByKey);
+    } catch (RuntimeException e) {
+      rulesConfigurationGate.exit(slot);
+      throw e;
+    }
+    var closed = new AtomicBoolean();
+    return new RulesLease() {
+      @Override
+      public CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(String configScopeId, UUID analysisId, List<URI> filesToAnalyze) {
+        return BackendService.this.analyzeFilesAndTrack(analysisBackend, configScopeId, analysisId, filesToAnalyze);
+      }
+
+      @Override
+      public void close() {
+        if (closed.compareAndSet(false, true)) {
+          rulesConfigurationGate.exit(slot);
+        }
+      }
+    };
+  }
+
+  /**
+   * Enables the given rules on the main backend and disables all the other standalone rules. Nothing is sent to the backend when the
+   * configuration is the same as the one last applied to it, so that consecutive analyses with the same rules do not reconfigure the
+   * backend.
+   */
   public void updateRulesConfiguration(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
-    backendFuture.thenAccept(server -> {
+    updateRulesConfiguration(analysisBackends.getFirst(), ruleConfigurationByKey);
+  }
+
+  private void updateRulesConfiguration(AnalysisBackend analysisBackend, Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
+    synchronized (analysisBackend.rulesLock) {
+      analysisBackend.requestedRulesConfiguration = ruleConfigurationByKey;
+    }
+    serverOf(analysisBackend).thenAccept(server -> applyRequestedRules(analysisBackend, server));
+  }
+
+  private void applyRequestedRules(AnalysisBackend analysisBackend, SonarLintRpcServer server) {
+    synchronized (analysisBackend.rulesLock) {
+      var ruleConfigurationByKey = analysisBackend.requestedRulesConfiguration;
+      if (ruleConfigurationByKey == null) {
+        return;
+      }
+      var requestedRules = snapshotOf(ruleConfigurationByKey);
+      if (server != analysisBackend.rulesConfiguredBackend) {
+        analysisBackend.rulesConfiguredBackend = server;
+        analysisBackend.standaloneRuleKeys = Set.copyOf(server.getRulesService().listAllStandaloneRulesDefinitions().join().getRulesByKey().keySet());
+        analysisBackend.appliedRulesConfiguration = null;
+      }
+      if (requestedRules.equals(analysisBackend.appliedRulesConfiguration)) {
+        LOG.debug("Rules configuration unchanged, skipping update");
+        return;
+      }
       var newActiveRules = new HashMap<String, StandaloneRuleConfigDto>();
-      server.getRulesService().listAllStandaloneRulesDefinitions().join().getRulesByKey().forEach((key, value) ->
       // disable all standalone rules
-      newActiveRules.put(key, new StandaloneRuleConfigDto(false, Map.of())));
+      analysisBackend.standaloneRuleKeys.forEach(key -> newActiveRules.put(key, new StandaloneRuleConfigDto(false, Map.of())));
       // enable custom ones
       newActiveRules.putAll(ruleConfigurationByKey);
       server.getRulesService().updateStandaloneRulesConfiguration(new UpdateStandaloneRulesConfigurationParams(newActiveRules));
-    });
+      analysisBackend.appliedRulesConfiguration = requestedRules;
+    }
+  }
+
+  private static Map<String, RuleConfiguration> snapshotOf(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
+    var snapshot = new HashMap<String, RuleConfiguration>();
+    ruleConfigurationByKey.forEach((key, config) -> snapshot.put(key, new RuleConfiguration(config.isActive(), Map.copyOf(config.getParamValueByKey()))));
+    return snapshot;
+  }
+
+  /**
+   * Keeps a rules configuration applied until closed.
+   */
+  public interface RulesLease extends AutoCloseable {
+
+    /**
+     * Analyzes the files on the backend the rules are applied to.
+     */
+    CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(String configScopeId, UUID analysisId, List<URI> filesToAnalyze);
+
+    @Override
+    void close();
+  }
+
+  /**
+   * A backend analyses are sent to, with the rules last applied to it. The first one is the main backend, the others are started on
+   * demand when analyses requiring different rules run at the same time.
+   */
+  private static final class AnalysisBackend {
+    // Only for the additional backends, guarded by the monitor of this object
+    @Nullable
+    private CompletableFuture<ClientJsonRpcLauncher> launcher;
+    // The rules are applied while holding this lock, which must not delay the registration of analyses
+    private final Object rulesLock = new Object();
+    @Nullable
+    private SonarLintRpcServer rulesConfiguredBackend;
+    private Set<String> standaloneRuleKeys = Set.of();
+    @Nullable
+    private Map<String, RuleConfiguration> appliedRulesConfiguration;
+    @Nullable
+    private Map<String, StandaloneRuleConfigDto> requestedRulesConfiguration;
+  }
+
+  private record PreviousBackends(@Nullable ClientJsonRpcLauncher launcher, @Nullable SonarLintRpcServer backend,
+    List<CompletableFuture<ClientJsonRpcLauncher>> additionalLaunchers, List<CompletableFuture<AnalyzeFilesResponse>> analyses) {
+  }
+
+  private record RuleConfiguration(boolean active, Map<String, String> paramValueByKey) {
   }
 
-  public record AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages) {
+  /**
+   * Starts a backend and connects a client to it.
+   */
+  @FunctionalInterface
+  interface LauncherFactory {
+    ClientJsonRpcLauncher launch(McpSonarLintRpcClient client) throws IOException;
+  }
+
+  /**
+   * @param languagesByAnalyzer the languages analyzed by each analyzer, an analyzer without languages is considered to apply to all
+   */
+  /**
+   * @param missingPluginKeys plugins supported by the server whose analyzer could not be installed, e.g. because its download failed
+   */
+  public record AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages, Map<Path, Set<Language>> languagesByAnalyzer,
+    Set<String> missingPluginKeys) {
+
+    public AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages) {
+      this(analyzerPaths, enabledLanguages, Map.of());
+    }
+
+    public AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages, Map<Path, Set<Language>> languagesByAnalyzer) {
+      this(analyzerPaths, enabledLanguages, languagesByAnalyzer, Set.of());
+    }
   }
 
 }
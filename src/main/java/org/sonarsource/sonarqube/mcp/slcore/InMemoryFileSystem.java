@@ -0,0 +1,61 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.slcore;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.ClientFileDto;
+
+/**
+ * Files known to the sonarlint backend that only exist in memory. Their content travels inline in the {@link ClientFileDto},
+ * so analyzing them never reads nor writes the disk. They are also listed to the backend when it asks for the files of a
+ * configuration scope.
+ */
+public class InMemoryFileSystem {
+
+  private final Map<URI, ClientFileDto> filesByUri = Collections.synchronizedMap(new HashMap<>());
+
+  public void add(ClientFileDto file) {
+    filesByUri.put(file.getUri(), file);
+  }
+
+  public void remove(URI uri) {
+    filesByUri.remove(uri);
+  }
+
+  public List<ClientFileDto> listFiles(String configScopeId) {
+    synchronized (filesByUri) {
+      return filesByUri.values().stream()
+        .filter(file -> configScopeId.equals(file.getConfigScopeId()))
+        .toList();
+    }
+  }
+
+  public List<ClientFileDto> listAllFiles() {
+    synchronized (filesByUri) {
+      return List.copyOf(filesByUri.values());
+    }
+  }
+
+  public int size() {
+    return filesByUri.size();
+  }
+
+}
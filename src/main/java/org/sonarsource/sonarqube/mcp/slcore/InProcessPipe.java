@@ -0,0 +1,198 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.slcore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One-way byte channel between two threads of the same process, used to connect the JSON-RPC client and the sonarlint backend.
+ * <p>
+ * Unlike {@link java.io.PipedInputStream}, which polls every second for room or data, waiting readers and writers are woken up as
+ * soon as the other side makes progress. The buffer is large enough to hold whole messages, including file contents, and any thread
+ * can write: the pipe is not broken when the thread that last wrote to it terminates.
+ */
+class InProcessPipe {
+
+  static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+  private final byte[] buffer;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final InputStream inputStream = new PipeInputStream();
+  private final OutputStream outputStream = new PipeOutputStream();
+  // Index of the next byte to read, and number of readable bytes from it
+  private int readIndex;
+  private int count;
+  private boolean writerClosed;
+  private boolean readerClosed;
+
+  InProcessPipe() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  InProcessPipe(int capacity) {
+    this.buffer = new byte[capacity];
+  }
+
+  InputStream inputStream() {
+    return inputStream;
+  }
+
+  OutputStream outputStream() {
+    return outputStream;
+  }
+
+  private void write(byte[] bytes, int offset, int length) throws IOException {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    lock.lock();
+    try {
+      if (writerClosed) {
+        throw new IOException("Write end closed");
+      }
+      var written = 0;
+      while (written < length) {
+        while (count == buffer.length && !readerClosed) {
+          await(notFull);
+        }
+        if (readerClosed) {
+          throw new IOException("Pipe closed");
+        }
+        var writeIndex = (readIndex + count) % buffer.length;
+        var chunk = Math.min(length - written, Math.min(buffer.length - count, buffer.length - writeIndex));
+        System.arraycopy(bytes, offset + written, buffer, writeIndex, chunk);
+        count += chunk;
+        written += chunk;
+        notEmpty.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int read(byte[] bytes, int offset, int length) throws IOException {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    if (length == 0) {
+      return 0;
+    }
+    lock.lock();
+    try {
+      while (count == 0) {
+        if (writerClosed || readerClosed) {
+          return -1;
+        }
+        await(notEmpty);
+      }
+      var chunk = Math.min(length, Math.min(count, buffer.length - readIndex));
+      System.arraycopy(buffer, readIndex, bytes, offset, chunk);
+      readIndex = (readIndex + chunk) % buffer.length;
+      count -= chunk;
+      notFull.signalAll();
+      return chunk;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int available() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void closeWriter() {
+    lock.lock();
+    try {
+      writerClosed = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void closeReader() {
+    lock.lock();
+    try {
+      readerClosed = true;
+      count = 0;
+      notFull.signalAll();
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void await(Condition condition) throws InterruptedIOException {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting on the pipe");
+    }
+  }
+
+  private class PipeInputStream extends InputStream {
+    @Override
+    public int read() throws IOException {
+      var singleByte = new byte[1];
+      var read = InProcessPipe.this.read(singleByte, 0, 1);
+      return read == -1 ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      return InProcessPipe.this.read(bytes, offset, length);
+    }
+
+    @Override
+    public int available() {
+      return InProcessPipe.this.available();
+    }
+
+    @Override
+    public void close() {
+      closeReader();
+    }
+  }
+
+  private class PipeOutputStream extends OutputStream {
+    @Override
+    public void write(int singleByte) throws IOException {
+      InProcessPipe.this.write(new byte[] {(byte) singleByte}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      InProcessPipe.this.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() {
+      closeWriter();
+    }
+  }
+
+}
@@ -54,6 +54,16 @@ import org.sonarsource.sonarlint.core.rpc.protocol.common.UsernamePasswordDto;
 
 public class McpSonarLintRpcClient implements SonarLintRpcClientDelegate {
 
+  private final InMemoryFileSystem inMemoryFileSystem;
+
+  public McpSonarLintRpcClient() {
+    this(new InMemoryFileSystem());
+  }
+
+  public McpSonarLintRpcClient(InMemoryFileSystem inMemoryFileSystem) {
+    this.inMemoryFileSystem = inMemoryFileSystem;
+  }
+
   @Override
   public void suggestBinding(Map<String, List<BindingSuggestionDto>> suggestionsByConfigScope) {
     //
@@ -173,7 +183,7 @@ public class McpSonarLintRpcClient implements SonarLintRpcClientDelegate {
 
   @Override
   public List<ClientFileDto> listFiles(String configScopeId) {
-    return List.of();
+    return inMemoryFileSystem.listFiles(configScopeId);
   }
 
   @Override
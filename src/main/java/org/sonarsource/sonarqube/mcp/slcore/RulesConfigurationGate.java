@@ -0,0 +1,159 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.slcore;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import jakarta.annotation.Nullable;
+
+/**
+ * Lets analyses share the rules configurations of a fixed number of slots, one per backend since the rules configuration of a backend
+ * is global. Any number of analyses can run in a slot at the same time as long as they use the same configuration. An analysis
+ * requiring another configuration goes to an idle slot, preferably one already configured with its rules, and waits when there is
+ * none. Requests are served in arrival order, so that a steady flow of analyses for one project cannot starve the others.
+ */
+class RulesConfigurationGate {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+  private final Slot[] slots;
+
+  RulesConfigurationGate() {
+    this(1);
+  }
+
+  RulesConfigurationGate(int slotCount) {
+    if (slotCount < 1) {
+      throw new IllegalArgumentException("At least one slot is required");
+    }
+    slots = new Slot[slotCount];
+    for (var i = 0; i < slotCount; i++) {
+      slots[i] = new Slot();
+    }
+  }
+
+  /**
+   * Waits until analyses can run with the given configuration in one of the slots, and returns the index of that slot. The
+   * configuration must then be applied to the slot before analyzing. Each call must be followed by a call to {@link #exit(int)} once
+   * the analysis is done.
+   */
+  int enter(Object configuration, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    var waiter = new Waiter(configuration);
+    var remainingNanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      waiters.addLast(waiter);
+      int slot;
+      try {
+        while ((slot = slotFor(waiter)) < 0) {
+          if (remainingNanos <= 0) {
+            throw new TimeoutException("Timed out waiting for analyses using other rules to complete");
+          }
+          remainingNanos = changed.awaitNanos(remainingNanos);
+        }
+      } finally {
+        waiters.remove(waiter);
+        // The waiters behind this one may be allowed in now
+        changed.signalAll();
+      }
+      slots[slot].configuration = configuration;
+      slots[slot].inFlight++;
+      return slot;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void exit(int slot) {
+    lock.lock();
+    try {
+      slots[slot].inFlight--;
+      if (slots[slot].inFlight == 0) {
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int inFlight() {
+    lock.lock();
+    try {
+      var inFlight = 0;
+      for (var slot : slots) {
+        inFlight += slot.inFlight;
+      }
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int waiting() {
+    lock.lock();
+    try {
+      return waiters.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the slot the waiter can enter, or -1 when it has to wait.
+   */
+  private int slotFor(Waiter waiter) {
+    for (var earlier : waiters) {
+      if (earlier == waiter) {
+        break;
+      }
+      if (!earlier.configuration.equals(waiter.configuration)) {
+        return -1;
+      }
+    }
+    var idleSlot = -1;
+    for (var i = 0; i < slots.length; i++) {
+      if (waiter.configuration.equals(slots[i].configuration)) {
+        // Joining analyses with the same rules, or reusing the rules already applied
+        return i;
+      }
+      if (idleSlot < 0 && slots[i].inFlight == 0) {
+        idleSlot = i;
+      }
+    }
+    return idleSlot;
+  }
+
+  private static final class Slot {
+    @Nullable
+    private Object configuration;
+    private int inFlight;
+  }
+
+  // Compared by identity, several waiters can wait for equal configurations
+  private static final class Waiter {
+    private final Object configuration;
+
+    private Waiter(Object configuration) {
+      this.configuration = configuration;
+    }
+  }
+
+}
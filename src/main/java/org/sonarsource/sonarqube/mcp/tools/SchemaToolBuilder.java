@@ -115,6 +115,27 @@ public class SchemaToolBuilder {
     return this;
   }
 
+  /**
+   * Adds an array of objects, each item being described by the properties of {@code itemSchema}.
+   */
+  public SchemaToolBuilder addRequiredObjectArrayProperty(String propertyName, String description, SchemaToolBuilder itemSchema) {
+    var items = new HashMap<String, Object>();
+    items.put(TYPE_PROPERTY_NAME, OBJECT_TYPE);
+    items.put("properties", itemSchema.properties);
+    items.put("required", List.copyOf(itemSchema.requiredProperties));
+    items.put("additionalProperties", false);
+    properties.put(propertyName, Map.of(TYPE_PROPERTY_NAME, ARRAY_TYPE, DESCRIPTION_KEY_NAME, description, ITEMS_PROPERTY_NAME, items));
+    requiredProperties.add(propertyName);
+    return this;
+  }
+
+  /**
+   * Builder for the properties of objects nested in an array, see {@link #addRequiredObjectArrayProperty}.
+   */
+  public static SchemaToolBuilder forItems() {
+    return new SchemaToolBuilder(Map.of());
+  }
+
   public SchemaToolBuilder addEnumProperty(String propertyName, String[] items, String description) {
     var content = new HashMap<String, Object>();
     content.put(TYPE_PROPERTY_NAME, STRING_TYPE);
@@ -21,6 +21,7 @@ import io.modelcontextprotocol.spec.McpSchema;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -208,6 +209,26 @@ public abstract class Tool {
       return (List<String>) argumentsMap.get(argumentName);
     }
 
+    /**
+     * Returns the objects of an array argument, each one wrapped as {@link Arguments} to read its properties.
+     */
+    public List<Arguments> getObjectListOrThrow(String argumentName) {
+      var arg = argumentsMap.get(argumentName);
+      if (!(arg instanceof List<?> list)) {
+        throw new MissingRequiredArgumentException(argumentName);
+      }
+      var items = new ArrayList<Arguments>();
+      for (var item : list) {
+        if (!(item instanceof Map<?, ?> map)) {
+          throw new IllegalArgumentException("Invalid " + argumentName + ": every item must be an object");
+        }
+        var itemArguments = new HashMap<String, Object>();
+        map.forEach((key, value) -> itemArguments.put(String.valueOf(key), value));
+        items.add(new Arguments(itemArguments, null));
+      }
+      return items;
+    }
+
     @Nullable
     public List<String> getOptionalStringList(String argumentName) {
       var arg = argumentsMap.get(argumentName);
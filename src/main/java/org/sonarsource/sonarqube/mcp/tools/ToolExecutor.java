@@ -28,6 +28,8 @@ import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
 import org.sonarsource.sonarqube.mcp.analytics.AnalyticsService;
 import org.sonarsource.sonarqube.mcp.analytics.ConnectionContext;
 import org.sonarsource.sonarqube.mcp.analytics.ToolInvocationResult;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
@@ -69,6 +71,11 @@ public class ToolExecutor {
    */
   private final Supplier<Set<ToolCategory>> enabledToolsetsSupplier;
 
+  /**
+   * Time budget of each invocation, bound to the executing thread so that calls to SonarQube are aborted once it is spent.
+   */
+  private final ToolTimeouts toolTimeouts;
+
   public ToolExecutor(BackendService backendService) {
     this(backendService, null, null, null, null, ToolCategory::all);
   }
@@ -76,12 +83,19 @@ public class ToolExecutor {
   public ToolExecutor(BackendService backendService, @Nullable AnalyticsService analyticsService,
     @Nullable ConnectionContext stdioContext, @Nullable Supplier<ServerApi> httpServerApiSupplier, @Nullable String mcpServerId,
     Supplier<Set<ToolCategory>> enabledToolsetsSupplier) {
+    this(backendService, analyticsService, stdioContext, httpServerApiSupplier, mcpServerId, enabledToolsetsSupplier, ToolTimeouts.defaults());
+  }
+
+  public ToolExecutor(BackendService backendService, @Nullable AnalyticsService analyticsService,
+    @Nullable ConnectionContext stdioContext, @Nullable Supplier<ServerApi> httpServerApiSupplier, @Nullable String mcpServerId,
+    Supplier<Set<ToolCategory>> enabledToolsetsSupplier, ToolTimeouts toolTimeouts) {
     this.backendService = backendService;
     this.analyticsService = analyticsService;
     this.stdioContext = stdioContext;
     this.httpServerApiSupplier = httpServerApiSupplier;
     this.mcpServerId = mcpServerId;
     this.enabledToolsetsSupplier = enabledToolsetsSupplier;
+    this.toolTimeouts = toolTimeouts;
   }
 
   public McpSchema.CallToolResult execute(Tool tool, McpSchema.CallToolRequest toolRequest) {
@@ -102,7 +116,9 @@ public class ToolExecutor {
     }
 
     try {
-      result = tool.execute(new Tool.Arguments(toolRequest.arguments(), meta));
+      var arguments = new Tool.Arguments(toolRequest.arguments(), meta);
+      var budget = toolTimeouts.budgetFor(toolName);
+      result = budget != null ? Deadline.after(budget).callWithin(() -> tool.execute(arguments)) : tool.execute(arguments);
       logSuccess(toolName, invocationTimestamp);
     } catch (Exception e) {
       errorType = resolveErrorType(e);
@@ -197,6 +213,7 @@ public class ToolExecutor {
       case NotFoundException ignored -> "not_found";
       case ServerInternalErrorException ignored -> "server_error";
       case ServerApiException ignored -> "server_api_error";
+      case DeadlineExceededException ignored -> "deadline_exceeded";
       case MissingRequiredArgumentException ignored -> "missing_argument";
       case IllegalArgumentException ignored -> "invalid_argument";
       case ResponseErrorException ignored -> "protocol_error";
@@ -0,0 +1,82 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import jakarta.annotation.Nullable;
+
+/**
+ * Time budgets of tool invocations. Once its budget is spent, a tool waiting for SonarQube fails and the pending request is aborted.
+ *
+ * @param defaultBudget budget of the tools without a specific one, {@link Duration#ZERO} for no budget
+ * @param budgetsByTool specific budgets by tool name
+ */
+public record ToolTimeouts(Duration defaultBudget, Map<String, Duration> budgetsByTool) {
+
+  public static final Duration DEFAULT_BUDGET = Duration.ofMinutes(2);
+
+  public ToolTimeouts {
+    budgetsByTool = Map.copyOf(budgetsByTool);
+  }
+
+  public static ToolTimeouts defaults() {
+    return new ToolTimeouts(DEFAULT_BUDGET, Map.of());
+  }
+
+  /**
+   * Returns the budget of the given tool, or null when it is not bounded.
+   */
+  @Nullable
+  public Duration budgetFor(String toolName) {
+    var budget = budgetsByTool.getOrDefault(toolName, defaultBudget);
+    return budget.isZero() ? null : budget;
+  }
+
+  /**
+   * Parses per-tool budgets formatted as {@code tool_name=seconds,other_tool=seconds}.
+   */
+  public static Map<String, Duration> parseBudgetsByTool(@Nullable String budgetsStr) {
+    var budgets = new HashMap<String, Duration>();
+    if (budgetsStr == null || budgetsStr.isBlank()) {
+      return budgets;
+    }
+    for (var entry : budgetsStr.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      var separator = entry.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Invalid tool timeout '" + entry.trim() + "', expected tool_name=seconds");
+      }
+      var toolName = entry.substring(0, separator).trim();
+      var seconds = entry.substring(separator + 1).trim();
+      try {
+        var parsed = Long.parseLong(seconds);
+        if (parsed < 0) {
+          throw new IllegalArgumentException("Invalid timeout for tool '" + toolName + "', must not be negative: " + parsed);
+        }
+        budgets.put(toolName, Duration.ofSeconds(parsed));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid timeout for tool '" + toolName + "': " + seconds, e);
+      }
+    }
+    return budgets;
+  }
+
+}
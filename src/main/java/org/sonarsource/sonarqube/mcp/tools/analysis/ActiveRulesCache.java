@@ -0,0 +1,103 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.response.SearchResponse.QualityProfile;
+
+/**
+ * Active rules of quality profiles, so that consecutive snippet analyses do not page through all the rules of the profile again.
+ * <p>
+ * Entries are keyed by (profile key, token hash) and hold the fingerprint of the profile version they were resolved from, built from
+ * its {@code rulesUpdatedAt} date and active rule count. The profiles are still looked up before every analysis, which is a single
+ * small request, and a changed fingerprint triggers a reload. Profiles without a fingerprint are never cached.
+ */
+class ActiveRulesCache {
+
+  static final int DEFAULT_MAX_PROFILES = 64;
+
+  private final int maxProfiles;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  ActiveRulesCache() {
+    this(DEFAULT_MAX_PROFILES);
+  }
+
+  @VisibleForTesting
+  ActiveRulesCache(int maxProfiles) {
+    this.maxProfiles = maxProfiles;
+  }
+
+  Map<String, StandaloneRuleConfigDto> getActiveRules(QualityProfile profile, String tokenHash, Supplier<Map<String, StandaloneRuleConfigDto>> loader) {
+    var fingerprint = fingerprintOf(profile);
+    if (fingerprint == null) {
+      misses.incrementAndGet();
+      return loader.get();
+    }
+    var key = new Key(profile.key(), tokenHash);
+    synchronized (entries) {
+      var entry = entries.get(key);
+      if (entry != null && entry.fingerprint().equals(fingerprint)) {
+        hits.incrementAndGet();
+        return entry.activeRules();
+      }
+    }
+    misses.incrementAndGet();
+    var activeRules = Map.copyOf(loader.get());
+    synchronized (entries) {
+      entries.put(key, new Entry(fingerprint, activeRules));
+      var iterator = entries.values().iterator();
+      while (entries.size() > maxProfiles && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    return activeRules;
+  }
+
+  Stats stats() {
+    synchronized (entries) {
+      return new Stats(hits.get(), misses.get(), entries.size());
+    }
+  }
+
+  @Nullable
+  private static String fingerprintOf(QualityProfile profile) {
+    if (profile.rulesUpdatedAt() == null) {
+      return null;
+    }
+    return profile.rulesUpdatedAt() + "/" + profile.activeRuleCount();
+  }
+
+  record Stats(long hits, long misses, int profiles) {
+  }
+
+  private record Key(String profileKey, String tokenHash) {
+  }
+
+  private record Entry(String fingerprint, Map<String, StandaloneRuleConfigDto> activeRules) {
+  }
+
+}
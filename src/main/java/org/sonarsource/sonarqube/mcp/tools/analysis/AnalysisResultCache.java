@@ -0,0 +1,282 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Issues raised by previous analyses, so that re-submitting unchanged code returns without running the analyzers again.
+ * <p>
+ * Results are content-addressed: the key is the SHA-256 of the analyzed content, its language and scope, the fingerprint of the
+ * active rules configuration and the fingerprint of the analyzers applied to that language. The cache is bounded by the approximate
+ * size of the results it holds and evicts the least recently used ones first. When a directory is given, results are also persisted
+ * there and reloaded at startup. The results of a language are dropped as soon as a key built from other analyzers is seen for that
+ * language, e.g. after its plugin was synchronized with a newer version, the results of the other languages are kept.
+ */
+public class AnalysisResultCache {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final Gson GSON = new Gson();
+  private static final Type ISSUES_TYPE = new TypeToken<List<AnalyzeCodeSnippetToolResponse.Issue>>() {
+  }.getType();
+  private static final String RESULT_EXTENSION = ".json";
+  // Written by previous versions, when all the results were dropped on any analyzer change
+  private static final String LEGACY_ANALYZERS_MARKER = "analyzers";
+  // Rough per-entry overhead of the key and the map node, on top of the serialized issues
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+  private final long maxBytes;
+  @Nullable
+  private final Path directory;
+  private final LinkedHashMap<String, Result> resultsByDigest = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, String> analyzersFingerprintByLanguage = new HashMap<>();
+  private long sizeInBytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param maxBytes the maximum size of the cached results, 0 disables the cache
+   * @param directory where results are persisted, or null to only keep them in memory
+   */
+  public AnalysisResultCache(long maxBytes, @Nullable Path directory) {
+    this.maxBytes = maxBytes;
+    this.directory = maxBytes > 0 ? directory : null;
+    if (this.directory != null) {
+      load(this.directory);
+    }
+  }
+
+  public static AnalysisResultCache disabled() {
+    return new AnalysisResultCache(0, null);
+  }
+
+  public boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  @Nullable
+  public synchronized List<AnalyzeCodeSnippetToolResponse.Issue> get(Key key) {
+    if (!isEnabled()) {
+      return null;
+    }
+    useAnalyzers(key.language(), key.analyzersFingerprint());
+    var result = resultsByDigest.get(key.digest());
+    if (result == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return GSON.fromJson(result.serializedIssues(), ISSUES_TYPE);
+  }
+
+  public synchronized void put(Key key, List<AnalyzeCodeSnippetToolResponse.Issue> issues) {
+    if (!isEnabled()) {
+      return;
+    }
+    useAnalyzers(key.language(), key.analyzersFingerprint());
+    var digest = key.digest();
+    var result = new Result(key.language(), key.analyzersFingerprint(), GSON.toJson(issues, ISSUES_TYPE));
+    if (result.size() > maxBytes) {
+      return;
+    }
+    var previous = resultsByDigest.put(digest, result);
+    if (previous != null) {
+      sizeInBytes -= previous.size();
+    }
+    sizeInBytes += result.size();
+    persist(digest, result);
+    evictOverBudget();
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits, misses, evictions, resultsByDigest.size(), sizeInBytes);
+  }
+
+  public synchronized void clear() {
+    resultsByDigest.clear();
+    sizeInBytes = 0;
+  }
+
+  /**
+   * Drops the results of the language obtained with other analyzers, they can no longer be hit.
+   */
+  private void useAnalyzers(String language, String fingerprint) {
+    if (fingerprint.equals(analyzersFingerprintByLanguage.put(language, fingerprint))) {
+      return;
+    }
+    var dropped = 0;
+    var iterator = resultsByDigest.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+      var result = entry.getValue();
+      if (result.language().equals(language) && !result.analyzersFingerprint().equals(fingerprint)) {
+        iterator.remove();
+        sizeInBytes -= result.size();
+        deletePersisted(entry.getKey());
+        dropped++;
+      }
+    }
+    if (dropped > 0) {
+      LOG.info("Analyzers of " + language + " changed, dropped " + dropped + " cached analysis results");
+    }
+  }
+
+  private void evictOverBudget() {
+    var iterator = resultsByDigest.entrySet().iterator();
+    while (sizeInBytes > maxBytes && iterator.hasNext()) {
+      var eldest = iterator.next();
+      iterator.remove();
+      sizeInBytes -= eldest.getValue().size();
+      evictions++;
+      deletePersisted(eldest.getKey());
+    }
+  }
+
+  private void persist(String digest, Result result) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      var temporaryFile = Files.createTempFile(directory, digest, ".tmp");
+      Files.writeString(temporaryFile, result.language() + "\n" + result.analyzersFingerprint() + "\n" + result.serializedIssues(), UTF_8);
+      Files.move(temporaryFile, directory.resolve(digest + RESULT_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Unable to persist analysis result: " + e.getMessage());
+    }
+  }
+
+  private void deletePersisted(String digest) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(directory.resolve(digest + RESULT_EXTENSION));
+    } catch (IOException e) {
+      LOG.warn("Unable to delete persisted analysis result: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Loads the persisted results, most recently written first, and deletes the ones that do not fit in the budget.
+   */
+  private void load(Path cacheDirectory) {
+    try {
+      Files.createDirectories(cacheDirectory);
+      Files.deleteIfExists(cacheDirectory.resolve(LEGACY_ANALYZERS_MARKER));
+      List<Path> resultFiles;
+      try (var files = Files.list(cacheDirectory)) {
+        resultFiles = files.filter(file -> file.getFileName().toString().endsWith(RESULT_EXTENSION))
+          .sorted(Comparator.comparing(AnalysisResultCache::lastModified).reversed())
+          .toList();
+      }
+      var loaded = new LinkedHashMap<String, Result>();
+      for (var resultFile : resultFiles) {
+        var result = readResult(resultFile);
+        if (result != null && sizeInBytes + result.size() <= maxBytes) {
+          var fileName = resultFile.getFileName().toString();
+          loaded.put(fileName.substring(0, fileName.length() - RESULT_EXTENSION.length()), result);
+          sizeInBytes += result.size();
+        } else {
+          Files.deleteIfExists(resultFile);
+        }
+      }
+      // Insert the oldest first, so that they are the first evicted
+      var digests = new ArrayList<>(loaded.keySet());
+      for (var i = digests.size() - 1; i >= 0; i--) {
+        resultsByDigest.put(digests.get(i), loaded.get(digests.get(i)));
+      }
+      LOG.info("Loaded " + resultsByDigest.size() + " persisted analysis results");
+    } catch (IOException e) {
+      LOG.warn("Unable to load persisted analysis results: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns null for unreadable results, including the ones persisted by previous versions without language and analyzers.
+   */
+  @Nullable
+  private static Result readResult(Path resultFile) {
+    try {
+      var lines = Files.readString(resultFile, UTF_8).split("\n", 3);
+      if (lines.length < 3) {
+        return null;
+      }
+      GSON.fromJson(lines[2], ISSUES_TYPE);
+      return new Result(lines[0], lines[1], lines[2]);
+    } catch (IOException | JsonParseException e) {
+      return null;
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      // Deleted in the meantime
+      return 0L;
+    }
+  }
+
+  @VisibleForTesting
+  static long sizeOf(String serializedIssues) {
+    return serializedIssues.length() * 2L + ENTRY_OVERHEAD_BYTES;
+  }
+
+  /**
+   * Identifies an analysis result. Only the hash of the analyzed content is kept.
+   */
+  public record Key(String contentHash, String language, boolean isTest, String rulesFingerprint, String analyzersFingerprint) {
+
+    public static Key of(String content, String language, boolean isTest, String rulesFingerprint, String analyzersFingerprint) {
+      return new Key(DigestUtils.sha256Hex(content), language, isTest, rulesFingerprint, analyzersFingerprint);
+    }
+
+    String digest() {
+      return DigestUtils.sha256Hex(String.join("\n", contentHash, language, Boolean.toString(isTest), rulesFingerprint, analyzersFingerprint));
+    }
+  }
+
+  private record Result(String language, String analyzersFingerprint, String serializedIssues) {
+    long size() {
+      return sizeOf(serializedIssues);
+    }
+  }
+
+  public record Stats(long hits, long misses, long evictions, int entries, long sizeInBytes) {
+  }
+
+}
@@ -18,10 +18,10 @@ package org.sonarsource.sonarqube.mcp.tools.analysis;
 
 import jakarta.annotation.Nullable;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -29,18 +29,16 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.sonarsource.sonarlint.core.commons.api.SonarLanguage;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
-import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.plugins.AnalyzersLoader;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiProvider;
-import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 import org.sonarsource.sonarqube.mcp.tools.ToolCategory;
 import org.sonarsource.sonarqube.mcp.tools.ToolParameters;
 
-import static java.util.stream.Collectors.toMap;
 import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.getSonarLanguageFromInput;
 import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.getValidLanguageNames;
 import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.mapSonarLanguageToLanguage;
@@ -49,12 +47,8 @@ import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.resolveAnalys
 public class AnalyzeCodeSnippetTool extends Tool {
 
   private static final McpLogger LOG = McpLogger.getInstance();
-  private static final int INITIALIZATION_TIMEOUT_SECONDS = 30;
-
-  private enum AnalysisMode {
-    FULL_CONTENT,
-    FILTERED_BY_SNIPPET
-  }
+  static final int INITIALIZATION_TIMEOUT_SECONDS = 30;
+  private static final int ANALYSIS_TIMEOUT_SECONDS = 30;
 
   public static final String TOOL_NAME = "analyze_code_snippet";
   public static final String DEPRECATION_NOTICE = "analyze_code_snippet is deprecated and will be removed in a future release. " +
@@ -66,11 +60,13 @@ public class AnalyzeCodeSnippetTool extends Tool {
   public static final String LANGUAGE_PROPERTY = "language";
   public static final String SCOPE_PROPERTY = "scope";
   
-  private static final String[] VALID_SCOPES = {"MAIN", "TEST"};
-  private static final String[] VALID_LANGUAGES = getValidLanguageNames();
+  static final String[] VALID_SCOPES = {"MAIN", "TEST"};
+  static final String[] VALID_LANGUAGES = getValidLanguageNames();
 
   private final BackendService backendService;
-  private final ServerApiProvider serverApiProvider;
+  private final ProjectRulesConfigurer projectRules;
+  private final AnalysisResultCache resultCache;
+  private final AnalyzersLoader analyzersLoader;
   @Nullable
   private final String configuredProjectKey;
   @Nullable
@@ -80,9 +76,21 @@ public class AnalyzeCodeSnippetTool extends Tool {
 
   public AnalyzeCodeSnippetTool(BackendService backendService, ServerApiProvider serverApiProvider,
     CompletableFuture<Void> initializationFuture, @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath) {
+    this(backendService, serverApiProvider, initializationFuture, configuredProjectKey, configuredWorkspacePath, AnalysisResultCache.disabled());
+  }
+
+  public AnalyzeCodeSnippetTool(BackendService backendService, ServerApiProvider serverApiProvider, CompletableFuture<Void> initializationFuture,
+    @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath, AnalysisResultCache resultCache) {
+    this(backendService, serverApiProvider, initializationFuture, configuredProjectKey, configuredWorkspacePath, resultCache, AnalyzersLoader.preloaded());
+  }
+
+  public AnalyzeCodeSnippetTool(BackendService backendService, ServerApiProvider serverApiProvider, CompletableFuture<Void> initializationFuture,
+    @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath, AnalysisResultCache resultCache, AnalyzersLoader analyzersLoader) {
     super(buildSchema(configuredProjectKey, configuredWorkspacePath), ToolCategory.ANALYSIS);
     this.backendService = backendService;
-    this.serverApiProvider = serverApiProvider;
+    this.projectRules = new ProjectRulesConfigurer(backendService, serverApiProvider);
+    this.resultCache = resultCache;
+    this.analyzersLoader = analyzersLoader;
     this.initializationFuture = initializationFuture;
     this.configuredProjectKey = configuredProjectKey;
     this.configuredWorkspacePath = configuredWorkspacePath;
@@ -121,10 +129,10 @@ public class AnalyzeCodeSnippetTool extends Tool {
       }
       initializationFuture.get(INITIALIZATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     } catch (TimeoutException | ExecutionException e) {
-      return handleInitializationError(e, startTime);
+      return handleInitializationError(e, startTime, TOOL_NAME);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      return handleInitializationError(e, startTime);
+      return handleInitializationError(e, startTime, TOOL_NAME);
     }
     var projectKey = arguments.getOptionalProjectKeyWithFallback(PROJECT_KEY_PROPERTY, configuredProjectKey);
     String fileContent;
@@ -139,34 +147,11 @@ public class AnalyzeCodeSnippetTool extends Tool {
     var scope = arguments.getEnumOrDefault(SCOPE_PROPERTY, VALID_SCOPES, "MAIN");
     var language = arguments.getOptionalEnumValue(LANGUAGE_PROPERTY, VALID_LANGUAGES);
 
-    AnalysisMode mode;
-    Integer snippetStartLineNumber = null;
-    Integer snippetEndLineNumber = null;
-
-    if (codeSnippet != null && !codeSnippet.isBlank()) {
-      mode = AnalysisMode.FILTERED_BY_SNIPPET;
-
-      // Normalize line endings for matching (handles Windows \r\n and Unix \n)
-      var normalizedFileContent = fileContent.replace("\r\n", "\n");
-      var normalizedSnippet = codeSnippet.replace("\r\n", "\n");
-
-      // Split into lines for matching
-      var fileLines = normalizedFileContent.split("\n", -1);
-      var snippetLines = normalizedSnippet.split("\n", -1);
-
-      // Try to find the snippet in the file
-      var foundLine = findSnippetInFile(fileLines, snippetLines);
-      if (foundLine == -1) {
-        throw new IllegalArgumentException("Could not find the provided code snippet in the file content. " +
-          "Please ensure the snippet exactly matches content in the file (including whitespace).");
-      }
-
-      snippetStartLineNumber = foundLine + 1;
-      snippetEndLineNumber = snippetStartLineNumber + snippetLines.length - 1;
+    var snippetLines = locateSnippet(fileContent, codeSnippet);
+    if (snippetLines != null) {
       LOG.info("Analyzing complete file content, filtering issues to snippet at lines " +
-        snippetStartLineNumber + "-" + snippetEndLineNumber);
+        snippetLines.startLine() + "-" + snippetLines.endLine());
     } else {
-      mode = AnalysisMode.FULL_CONTENT;
       LOG.info("Analyzing complete file content, reporting all issues");
     }
 
@@ -174,67 +159,85 @@ public class AnalyzeCodeSnippetTool extends Tool {
     if (sonarLanguage == null) {
       sonarLanguage = SonarLanguage.SECRETS;
     }
+    var analyzedLanguage = mapSonarLanguageToLanguage(sonarLanguage);
+    // Before computing the cache key, loading an analyzer changes the analyzers fingerprint
+    analyzersLoader.ensureLoaded(analyzedLanguage == null ? Set.of() : Set.of(analyzedLanguage));
 
     var isTest = "TEST".equalsIgnoreCase(scope);
 
-    applyRulesFromProject(projectKey);
+    var rules = projectRules.resolve(projectKey);
+    var cacheKey = AnalysisResultCache.Key.of(fileContent, cacheLanguageOf(language, sonarLanguage), isTest, rules.fingerprint(),
+      backendService.getAnalyzersFingerprint(analyzedLanguage));
+    var cachedIssues = resultCache.get(cacheKey);
+    if (cachedIssues != null) {
+      LOG.info("Unchanged code, returning the issues of the previous analysis");
+      var issues = filterToSnippet(cachedIssues, snippetLines);
+      return Tool.Result.success(new AnalyzeCodeSnippetToolResponse(issues, issues.size(), DEPRECATION_NOTICE));
+    }
 
     var analysisId = UUID.randomUUID();
-    Path tmpFile = null;
-    try {
-      tmpFile = createTemporaryFileForLanguage(analysisId.toString(), backendService.getWorkDir(), fileContent,
-        language, sonarLanguage);
-      var clientFileDto = backendService.toClientFileDto(tmpFile, fileContent, mapSonarLanguageToLanguage(sonarLanguage), isTest);
-      backendService.addFile(clientFileDto);
-      var response = backendService.analyzeFilesAndTrack(analysisId, List.of(tmpFile.toUri())).get(30, TimeUnit.SECONDS);
-      var toolResponse = buildStructuredContent(response, mode, snippetStartLineNumber, snippetEndLineNumber);
-      return Tool.Result.success(toolResponse);
-    } catch (IOException | ExecutionException | TimeoutException e) {
+    // The file only exists in memory, its content is sent to the backend along with its description
+    var virtualFile = virtualFileForLanguage(analysisId.toString(), backendService.getWorkDir(), language, sonarLanguage);
+    var configScopeId = backendService.configurationScopeFor(projectKey);
+    var clientFileDto = backendService.toClientFileDto(configScopeId, virtualFile, fileContent, analyzedLanguage, isTest);
+    backendService.addFile(clientFileDto);
+    try (var rulesLease = projectRules.apply(rules, ANALYSIS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      var response = rulesLease.analyzeFilesAndTrack(configScopeId, analysisId, List.of(virtualFile.toUri()))
+        .get(ANALYSIS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      var fileIssues = toIssues(response, null);
+      if (response.getFailedAnalysisFiles().isEmpty()) {
+        resultCache.put(cacheKey, fileIssues);
+      }
+      var issues = filterToSnippet(fileIssues, snippetLines);
+      return Tool.Result.success(new AnalyzeCodeSnippetToolResponse(issues, issues.size(), DEPRECATION_NOTICE));
+    } catch (ExecutionException | TimeoutException e) {
       return Tool.Result.failure("Error while analyzing the code: " + e.getMessage());
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       return Tool.Result.failure("Error while analyzing the code: " + e.getMessage());
     } finally {
-      if (tmpFile != null) {
-        backendService.removeFile(tmpFile.toUri());
-        try {
-          removeTmpFileForAnalysis(tmpFile);
-        } catch (IOException e) {
-          // Error
-        }
-      }
+      backendService.removeFile(virtualFile.toUri());
     }
   }
 
-  private void applyRulesFromProject(@Nullable String projectKey) {
-    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
-    serverApiProvider.get().qualityProfilesApi().getQualityProfiles(projectKey).profiles()
-      .forEach(profile -> {
-        var count = 0;
-        var page = 1;
-        SearchResponse searchResponse;
-        do {
-          searchResponse = serverApiProvider.get().rulesApi().search(profile.key(), page);
-          page++;
-          count += searchResponse.ps();
-          searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
-            new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key,
-              SearchResponse.RuleParameter::value)))));
-        } while (count < searchResponse.total());
-      });
-    backendService.updateRulesConfiguration(activeRules);
+  static Path virtualFileForLanguage(String analysisId, Path workDir, @Nullable String languageInput, SonarLanguage language) {
+    var extension = resolveAnalysisFileExtension(languageInput, language);
+    return workDir.resolve("analysis-" + analysisId + extension);
   }
 
-  private static Path createTemporaryFileForLanguage(String analysisId, Path workDir, String fileContent,
-    @Nullable String languageInput, SonarLanguage language) throws IOException {
-    var extension = resolveAnalysisFileExtension(languageInput, language);
-    var tempFile = workDir.resolve("analysis-" + analysisId + extension);
-    Files.writeString(tempFile, fileContent);
-    return tempFile;
+  /**
+   * Identifies the language of an analysis in the result cache. The extension is part of it, as e.g. 'ts' and 'tsx' are analyzed
+   * differently.
+   */
+  static String cacheLanguageOf(@Nullable String languageInput, SonarLanguage language) {
+    return language.name() + resolveAnalysisFileExtension(languageInput, language);
   }
 
-  private static void removeTmpFileForAnalysis(Path tempFile) throws IOException {
-    Files.deleteIfExists(tempFile);
+  /**
+   * Locates the snippet in the file content, returns null when no snippet is provided.
+   */
+  @Nullable
+  static SnippetLines locateSnippet(String fileContent, @Nullable String codeSnippet) {
+    if (codeSnippet == null || codeSnippet.isBlank()) {
+      return null;
+    }
+    // Normalize line endings for matching (handles Windows \r\n and Unix \n)
+    var normalizedFileContent = fileContent.replace("\r\n", "\n");
+    var normalizedSnippet = codeSnippet.replace("\r\n", "\n");
+
+    // Split into lines for matching
+    var fileLines = normalizedFileContent.split("\n", -1);
+    var snippetLines = normalizedSnippet.split("\n", -1);
+
+    // Try to find the snippet in the file
+    var foundLine = findSnippetInFile(fileLines, snippetLines);
+    if (foundLine == -1) {
+      throw new IllegalArgumentException("Could not find the provided code snippet in the file content. " +
+        "Please ensure the snippet exactly matches content in the file (including whitespace).");
+    }
+
+    var startLine = foundLine + 1;
+    return new SnippetLines(startLine, startLine + snippetLines.length - 1);
   }
 
   private static int findSnippetInFile(String[] fileLines, String[] snippetLines) {
@@ -259,9 +262,12 @@ public class AnalyzeCodeSnippetTool extends Tool {
     return -1;
   }
 
-  private static AnalyzeCodeSnippetToolResponse buildStructuredContent(AnalyzeFilesResponse response, AnalysisMode mode,
-    @Nullable Integer snippetStartLine, @Nullable Integer snippetEndLine) {
-    var allIssues = response.getRawIssues().stream()
+  /**
+   * Converts the issues raised on the given file, or on all the analyzed files when null.
+   */
+  static List<AnalyzeCodeSnippetToolResponse.Issue> toIssues(AnalyzeFilesResponse response, @Nullable URI fileUri) {
+    return response.getRawIssues().stream()
+      .filter(issue -> fileUri == null || fileUri.equals(issue.getFileUri()))
       .map(issue -> {
         AnalyzeCodeSnippetToolResponse.TextRange textRange = null;
         if (issue.getTextRange() != null) {
@@ -280,44 +286,44 @@ public class AnalyzeCodeSnippetTool extends Tool {
           textRange);
       })
       .toList();
+  }
 
-    // Filter issues based on mode
-    List<AnalyzeCodeSnippetToolResponse.Issue> filteredIssues;
-
-    if (mode == AnalysisMode.FILTERED_BY_SNIPPET && snippetStartLine != null && snippetEndLine != null) {
-      // Only report issues within the snippet range
-      filteredIssues = allIssues.stream()
-        .filter(issue -> {
-          if (issue.textRange() == null) {
-            return false;
-          }
-          var issueStartLine = issue.textRange().startLine();
-          var issueEndLine = issue.textRange().endLine();
-          // Issue overlaps with snippet if it starts before snippet ends and ends after snippet starts
-          return issueStartLine <= snippetEndLine && issueEndLine >= snippetStartLine;
-        })
-        .toList();
-    } else {
-      filteredIssues = allIssues;
+  static List<AnalyzeCodeSnippetToolResponse.Issue> filterToSnippet(List<AnalyzeCodeSnippetToolResponse.Issue> issues,
+    @Nullable SnippetLines snippetLines) {
+    if (snippetLines == null) {
+      return issues;
     }
-
-    return new AnalyzeCodeSnippetToolResponse(filteredIssues, filteredIssues.size(), DEPRECATION_NOTICE);
+    // Only report issues within the snippet range
+    return issues.stream()
+      .filter(issue -> {
+        if (issue.textRange() == null) {
+          return false;
+        }
+        var issueStartLine = issue.textRange().startLine();
+        var issueEndLine = issue.textRange().endLine();
+        // Issue overlaps with snippet if it starts before snippet ends and ends after snippet starts
+        return issueStartLine <= snippetLines.endLine() && issueEndLine >= snippetLines.startLine();
+      })
+      .toList();
   }
 
-  private static Tool.Result handleInitializationError(Exception e, long startTime) {
+  static Tool.Result handleInitializationError(Exception e, long startTime, String toolName) {
     var executionTime = System.currentTimeMillis() - startTime;
     String errorMessage;
 
     if (e instanceof TimeoutException) {
       errorMessage = "Server initialization is taking longer than expected. Please try again in a moment.";
-      LOG.error("Tool failed due to initialization timeout: " + TOOL_NAME + " (execution time: " + executionTime + "ms)", e);
+      LOG.error("Tool failed due to initialization timeout: " + toolName + " (execution time: " + executionTime + "ms)", e);
     } else {
       errorMessage = "Server initialization failed: " + e.getCause().getMessage() +
         ". Please check the server logs for more details.";
-      LOG.error("Tool failed due to initialization error: " + TOOL_NAME + " (execution time: " + executionTime + "ms)", e);
+      LOG.error("Tool failed due to initialization error: " + toolName + " (execution time: " + executionTime + "ms)", e);
     }
 
     return Tool.Result.failure(errorMessage);
   }
 
+  record SnippetLines(int startLine, int endLine) {
+  }
+
 }
@@ -0,0 +1,245 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import jakarta.annotation.Nullable;
+import org.sonarsource.sonarlint.core.commons.api.SonarLanguage;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.ClientFileDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.plugins.AnalyzersLoader;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiProvider;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+import org.sonarsource.sonarqube.mcp.tools.ToolCategory;
+import org.sonarsource.sonarqube.mcp.tools.ToolParameters;
+
+import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.getSonarLanguageFromInput;
+import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.mapSonarLanguageToLanguage;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool.DEPRECATION_NOTICE;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool.INITIALIZATION_TIMEOUT_SECONDS;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool.VALID_LANGUAGES;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool.VALID_SCOPES;
+
+/**
+ * Batch variant of {@link AnalyzeCodeSnippetTool}: all the files are analyzed together in a single backend analysis, so that its
+ * fixed cost is paid once per batch, and the raised issues are split back per file.
+ */
+public class AnalyzeCodeSnippetsTool extends Tool {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final int ANALYSIS_TIMEOUT_SECONDS = 120;
+
+  public static final String TOOL_NAME = "analyze_code_snippets";
+  public static final String PROJECT_KEY_PROPERTY = ToolParameters.PROJECT_KEY;
+  public static final String FILES_PROPERTY = "files";
+  public static final int MAX_FILES = 50;
+
+  private final BackendService backendService;
+  private final ProjectRulesConfigurer projectRules;
+  private final AnalysisResultCache resultCache;
+  private final AnalyzersLoader analyzersLoader;
+  @Nullable
+  private final String configuredProjectKey;
+  @Nullable
+  private final Path configuredWorkspacePath;
+  private final CompletableFuture<Void> initializationFuture;
+
+  public AnalyzeCodeSnippetsTool(BackendService backendService, ServerApiProvider serverApiProvider,
+    CompletableFuture<Void> initializationFuture, @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath) {
+    this(backendService, serverApiProvider, initializationFuture, configuredProjectKey, configuredWorkspacePath, AnalysisResultCache.disabled());
+  }
+
+  public AnalyzeCodeSnippetsTool(BackendService backendService, ServerApiProvider serverApiProvider, CompletableFuture<Void> initializationFuture,
+    @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath, AnalysisResultCache resultCache) {
+    this(backendService, serverApiProvider, initializationFuture, configuredProjectKey, configuredWorkspacePath, resultCache, AnalyzersLoader.preloaded());
+  }
+
+  public AnalyzeCodeSnippetsTool(BackendService backendService, ServerApiProvider serverApiProvider, CompletableFuture<Void> initializationFuture,
+    @Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath, AnalysisResultCache resultCache, AnalyzersLoader analyzersLoader) {
+    super(buildSchema(configuredProjectKey, configuredWorkspacePath), ToolCategory.ANALYSIS);
+    this.backendService = backendService;
+    this.projectRules = new ProjectRulesConfigurer(backendService, serverApiProvider);
+    this.resultCache = resultCache;
+    this.analyzersLoader = analyzersLoader;
+    this.initializationFuture = initializationFuture;
+    this.configuredProjectKey = configuredProjectKey;
+    this.configuredWorkspacePath = configuredWorkspacePath;
+  }
+
+  private static McpSchema.Tool buildSchema(@Nullable String configuredProjectKey, @Nullable Path configuredWorkspacePath) {
+    var fileSchema = SchemaToolBuilder.forItems();
+    if (configuredWorkspacePath != null) {
+      fileSchema = fileSchema.addRequiredStringProperty(AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY,
+        "Project-relative path of the file to analyze (e.g., 'src/main/java/MyClass.java').");
+    } else {
+      fileSchema = fileSchema.addRequiredStringProperty(AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "Complete file content to analyze.")
+        .addStringProperty(AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY, "Path of the file, only used to identify it in the results.");
+    }
+    fileSchema = fileSchema
+      .addStringProperty(AnalyzeCodeSnippetTool.SNIPPET_PROPERTY, "Code snippet to filter issues - must match content within the analyzed file")
+      .addEnumProperty(AnalyzeCodeSnippetTool.LANGUAGE_PROPERTY, VALID_LANGUAGES, "Language of the code (e.g., 'java', 'python', 'ts', 'tsx', 'js', 'jsx')")
+      .addEnumProperty(AnalyzeCodeSnippetTool.SCOPE_PROPERTY, VALID_SCOPES, "Scope of the file: MAIN or TEST (default: MAIN)");
+
+    return SchemaToolBuilder.forOutput(AnalyzeCodeSnippetsToolResponse.class)
+      .setName(TOOL_NAME)
+      .setTitle("SonarQube Batch Code Analysis")
+      .setDescription("Analyze several files or code snippets at once to identify code quality and security issues, e.g. all the files of a changeset. " +
+        "Prefer this tool over repeated analyze_code_snippet calls: the files are analyzed together and the issues are reported per file. " +
+        "At most " + MAX_FILES + " files per call. " +
+        "This tool is deprecated and will be removed in a future release. For richer, cross-file analysis, " +
+        "connect SonarQube for IDE (enables analyze_file_list) or enable Vortex analysis (run_advanced_code_analysis).")
+      .addOptionalProjectKeyProperty(PROJECT_KEY_PROPERTY, configuredProjectKey)
+      .addRequiredObjectArrayProperty(FILES_PROPERTY, "Files to analyze", fileSchema)
+      .setReadOnlyHint()
+      .build();
+  }
+
+  @Override
+  public Result execute(Arguments arguments) {
+    var startTime = System.currentTimeMillis();
+    try {
+      if (!initializationFuture.isDone()) {
+        LOG.info("Waiting for plugins download to complete before executing " + TOOL_NAME);
+      }
+      initializationFuture.get(INITIALIZATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      return AnalyzeCodeSnippetTool.handleInitializationError(e, startTime, TOOL_NAME);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return AnalyzeCodeSnippetTool.handleInitializationError(e, startTime, TOOL_NAME);
+    }
+    var projectKey = arguments.getOptionalProjectKeyWithFallback(PROJECT_KEY_PROPERTY, configuredProjectKey);
+    var fileArguments = arguments.getObjectListOrThrow(FILES_PROPERTY);
+    if (fileArguments.isEmpty()) {
+      return Tool.Result.failure("At least one file must be provided");
+    }
+    if (fileArguments.size() > MAX_FILES) {
+      return Tool.Result.failure("At most " + MAX_FILES + " files can be analyzed at once, got " + fileArguments.size());
+    }
+
+    var analysisId = UUID.randomUUID();
+    var configScopeId = backendService.configurationScopeFor(projectKey);
+    var files = new ArrayList<BatchFile>();
+    for (var index = 0; index < fileArguments.size(); index++) {
+      try {
+        files.add(toBatchFile(configScopeId, analysisId, index, fileArguments.get(index)));
+      } catch (IOException e) {
+        return Tool.Result.failure("Could not read file #" + index + ": " + e.getMessage());
+      } catch (IllegalArgumentException e) {
+        return Tool.Result.failure("Invalid file #" + index + ": " + e.getMessage());
+      }
+    }
+    // Before computing the cache keys, loading an analyzer changes the analyzers fingerprint
+    analyzersLoader.ensureLoaded(files.stream().map(BatchFile::language).filter(Objects::nonNull).collect(Collectors.toSet()));
+    var rules = projectRules.resolve(projectKey);
+    var rulesFingerprint = rules.fingerprint();
+    var cacheKeyByIndex = new HashMap<Integer, AnalysisResultCache.Key>();
+    var issuesByIndex = new HashMap<Integer, List<AnalyzeCodeSnippetToolResponse.Issue>>();
+    var filesToAnalyze = new ArrayList<BatchFile>();
+    for (var file : files) {
+      var cacheKey = file.cacheKey(rulesFingerprint, backendService.getAnalyzersFingerprint(file.language()));
+      cacheKeyByIndex.put(file.index(), cacheKey);
+      var cachedIssues = resultCache.get(cacheKey);
+      if (cachedIssues != null) {
+        issuesByIndex.put(file.index(), cachedIssues);
+      } else {
+        filesToAnalyze.add(file);
+      }
+    }
+    var failedIndexes = new HashSet<Integer>();
+    if (!filesToAnalyze.isEmpty()) {
+      LOG.info("Analyzing " + filesToAnalyze.size() + " files in a single analysis, " + issuesByIndex.size() + " unchanged files skipped");
+      filesToAnalyze.forEach(file -> backendService.addFile(file.clientFile()));
+      try (var rulesLease = projectRules.apply(rules, ANALYSIS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        var response = rulesLease.analyzeFilesAndTrack(configScopeId, analysisId, filesToAnalyze.stream().map(BatchFile::uri).toList())
+          .get(ANALYSIS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (var file : filesToAnalyze) {
+          var fileIssues = AnalyzeCodeSnippetTool.toIssues(response, file.uri());
+          if (response.getFailedAnalysisFiles().contains(file.uri())) {
+            failedIndexes.add(file.index());
+          } else {
+            resultCache.put(cacheKeyByIndex.get(file.index()), fileIssues);
+          }
+          issuesByIndex.put(file.index(), fileIssues);
+        }
+      } catch (ExecutionException | TimeoutException e) {
+        return Tool.Result.failure("Error while analyzing the code: " + e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return Tool.Result.failure("Error while analyzing the code: " + e.getMessage());
+      } finally {
+        filesToAnalyze.forEach(file -> backendService.removeFile(file.uri()));
+      }
+    } else {
+      LOG.info("All " + files.size() + " files are unchanged, returning the issues of the previous analyses");
+    }
+
+    var results = new ArrayList<AnalyzeCodeSnippetsToolResponse.FileResult>();
+    var issueCount = 0;
+    for (var file : files) {
+      var issues = AnalyzeCodeSnippetTool.filterToSnippet(issuesByIndex.get(file.index()), file.snippetLines());
+      results.add(new AnalyzeCodeSnippetsToolResponse.FileResult(file.index(), file.filePath(), issues, issues.size(), failedIndexes.contains(file.index())));
+      issueCount += issues.size();
+    }
+    return Tool.Result.success(new AnalyzeCodeSnippetsToolResponse(results, issueCount, DEPRECATION_NOTICE));
+  }
+
+  private BatchFile toBatchFile(String configScopeId, UUID analysisId, int index, Arguments fileArguments) throws IOException {
+    var fileContent = Tool.resolveFileContent(configuredWorkspacePath, fileArguments, AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY,
+      AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY);
+    var filePath = fileArguments.getOptionalString(AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY);
+    var snippetLines = AnalyzeCodeSnippetTool.locateSnippet(fileContent, fileArguments.getOptionalString(AnalyzeCodeSnippetTool.SNIPPET_PROPERTY));
+    var scope = fileArguments.getEnumOrDefault(AnalyzeCodeSnippetTool.SCOPE_PROPERTY, VALID_SCOPES, "MAIN");
+    var language = fileArguments.getOptionalEnumValue(AnalyzeCodeSnippetTool.LANGUAGE_PROPERTY, VALID_LANGUAGES);
+    var sonarLanguage = getSonarLanguageFromInput(language);
+    if (sonarLanguage == null) {
+      sonarLanguage = SonarLanguage.SECRETS;
+    }
+    // The file only exists in memory, its content is sent to the backend along with its description
+    var virtualFile = AnalyzeCodeSnippetTool.virtualFileForLanguage(analysisId + "-" + index, backendService.getWorkDir(), language, sonarLanguage);
+    var analyzedLanguage = mapSonarLanguageToLanguage(sonarLanguage);
+    var clientFile = backendService.toClientFileDto(configScopeId, virtualFile, fileContent, analyzedLanguage, "TEST".equalsIgnoreCase(scope));
+    return new BatchFile(index, filePath, virtualFile.toUri(), clientFile, analyzedLanguage, snippetLines,
+      AnalyzeCodeSnippetTool.cacheLanguageOf(language, sonarLanguage));
+  }
+
+  private record BatchFile(int index, @Nullable String filePath, URI uri, ClientFileDto clientFile, @Nullable Language language,
+    @Nullable AnalyzeCodeSnippetTool.SnippetLines snippetLines, String cacheLanguage) {
+
+    AnalysisResultCache.Key cacheKey(String rulesFingerprint, String analyzersFingerprint) {
+      return AnalysisResultCache.Key.of(clientFile.getContent(), cacheLanguage, clientFile.isTest(), rulesFingerprint, analyzersFingerprint);
+    }
+  }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import java.util.List;
+import jakarta.annotation.Nullable;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AnalyzeCodeSnippetsToolResponse(
+  @JsonPropertyDescription("Analysis results, in the same order as the submitted files") List<FileResult> files,
+  @JsonPropertyDescription("Total number of issues across all files") int issueCount,
+  @JsonPropertyDescription("Deprecation notice for this tool") String deprecationNotice
+) {
+
+  public record FileResult(
+    @JsonPropertyDescription("Position of the file in the submitted list, starting at 0") int index,
+    @JsonPropertyDescription("Path of the file, when provided") @Nullable String filePath,
+    @JsonPropertyDescription("List of issues found in the file") List<AnalyzeCodeSnippetToolResponse.Issue> issues,
+    @JsonPropertyDescription("Number of issues found in the file") int issueCount,
+    @JsonPropertyDescription("Whether the analysis of this file failed") boolean analysisFailed
+  ) {}
+}
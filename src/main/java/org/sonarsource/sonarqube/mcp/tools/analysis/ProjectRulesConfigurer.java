@@ -0,0 +1,96 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiProvider;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Configures the backend with the rules activated in the quality profiles of a project, or in the default ones.
+ */
+class ProjectRulesConfigurer {
+
+  private final BackendService backendService;
+  private final ServerApiProvider serverApiProvider;
+  private final ActiveRulesCache activeRulesCache = new ActiveRulesCache();
+
+  ProjectRulesConfigurer(BackendService backendService, ServerApiProvider serverApiProvider) {
+    this.backendService = backendService;
+    this.serverApiProvider = serverApiProvider;
+  }
+
+  /**
+   * Resolves the rules activated in the quality profiles of the project, or in the default ones.
+   */
+  ProjectRules resolve(@Nullable String projectKey) {
+    var serverApi = serverApiProvider.get();
+    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
+    serverApi.qualityProfilesApi().getQualityProfiles(projectKey).profiles()
+      .forEach(profile -> activeRules.putAll(activeRulesCache.getActiveRules(profile, serverApi.getTokenHash(),
+        () -> fetchActiveRules(serverApi, profile.key()))));
+    return new ProjectRules(activeRules, fingerprintOf(activeRules));
+  }
+
+  /**
+   * Applies the rules to the backend, they stay applied until the returned lease is closed.
+   */
+  BackendService.RulesLease apply(ProjectRules rules, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    return backendService.useRulesConfiguration(rules.activeRules(), timeout, unit);
+  }
+
+  static String fingerprintOf(Map<String, StandaloneRuleConfigDto> rules) {
+    var description = new StringBuilder();
+    new TreeMap<>(rules).forEach((ruleKey, config) -> description.append(ruleKey).append(':').append(config.isActive())
+      .append(new TreeMap<>(config.getParamValueByKey())).append('\n'));
+    return DigestUtils.sha256Hex(description.toString());
+  }
+
+  /**
+   * @param fingerprint equal for equal rules configurations
+   */
+  record ProjectRules(Map<String, StandaloneRuleConfigDto> activeRules, String fingerprint) {
+  }
+
+  private static Map<String, StandaloneRuleConfigDto> fetchActiveRules(ServerApi serverApi, String profileKey) {
+    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
+    var count = 0;
+    var page = 1;
+    SearchResponse searchResponse;
+    do {
+      searchResponse = serverApi.rulesApi().search(profileKey, page);
+      page++;
+      count += searchResponse.ps();
+      searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
+        new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key,
+          SearchResponse.RuleParameter::value)))));
+    } while (count < searchResponse.total());
+    return activeRules;
+  }
+
+}
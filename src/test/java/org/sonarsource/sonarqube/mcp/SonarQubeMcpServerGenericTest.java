@@ -22,13 +22,16 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import org.junit.jupiter.api.io.TempDir;
 import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTest;
 import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTestHarness;
 import org.sonarsource.sonarqube.mcp.tools.ToolCategory;
 import org.sonarsource.sonarqube.mcp.tools.agenticreadiness.StartAgenticReadinessAssessmentTool;
+import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetTool;
 import org.sonarsource.sonarqube.mcp.tools.proxied.ProxiedMcpTool;
 import org.sonarsource.sonarqube.mcp.transport.HttpServerTransportProvider;
 import org.sonarsource.sonarqube.mcp.transport.StdioServerTransportProvider;
@@ -158,6 +161,27 @@ class SonarQubeMcpServerGenericTest {
     server.shutdown();
   }
 
+  @SonarQubeMcpServerTest
+  void should_not_create_analysis_cache_when_analysis_toolset_is_not_enabled(SonarQubeMcpServerTestHarness harness, @TempDir Path storagePath) {
+    var environment = createStdioEnvironment(harness.getMockSonarQubeServer().baseUrl());
+    environment.put("STORAGE_PATH", storagePath.toString());
+    environment.put("SONARQUBE_TOOLSETS", "projects,issues");
+    environment.put("SONARQUBE_ANALYSIS_CACHE_PERSISTED", "true");
+    harness.prepareMockWebServer(environment);
+
+    var server = new SonarQubeMcpServer(
+      new StdioServerTransportProvider(null),
+      null,
+      environment);
+    server.start();
+
+    assertThat(server.getSupportedTools())
+      .noneMatch(AnalyzeCodeSnippetTool.class::isInstance);
+    assertThat(storagePath.resolve("analysis-cache")).doesNotExist();
+
+    server.shutdown();
+  }
+
   @SonarQubeMcpServerTest
   void should_not_start_proxied_server_when_cag_is_not_enabled_for_org(SonarQubeMcpServerTestHarness harness) {
     var environment = createStdioEnvironment(harness.getMockSonarQubeServer().baseUrl());
@@ -22,7 +22,6 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.system.SystemApi;
-import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -53,7 +52,7 @@ class SonarQubeVersionCheckerTest {
 
   @Test
   void it_should_not_throw_if_sonarqube_server_version_is_supported() {
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("id", "2025.1", "UP"));
+    when(systemApi.getVersion()).thenReturn("2025.1");
 
     assertThatCode(versionChecker::failIfSonarQubeServerVersionIsNotSupported)
       .doesNotThrowAnyException();
@@ -61,7 +60,7 @@ class SonarQubeVersionCheckerTest {
 
   @Test
   void it_should_throw_if_sonarqube_server_version_is_not_supported() {
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("id", "10.4", "UP"));
+    when(systemApi.getVersion()).thenReturn("10.4");
 
     var throwable = catchThrowable(versionChecker::failIfSonarQubeServerVersionIsNotSupported);
     assertThat(throwable)
@@ -82,7 +81,7 @@ class SonarQubeVersionCheckerTest {
   @ValueSource(strings = {"2025.4", "2025.3", "10.9.1", "2025.3-SNAPSHOT"})
   void it_should_return_true_when_valid(String input) {
     when(serverApi.isSonarQubeCloud()).thenReturn(false);
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("id", "2025.4", "UP"));
+    when(systemApi.getVersion()).thenReturn("2025.4");
 
     var result = versionChecker.isSonarQubeServerVersionHigherOrEqualsThan(input);
 
@@ -92,7 +91,7 @@ class SonarQubeVersionCheckerTest {
   @Test
   void it_should_return_false_when_server_version_is_lower_than_min_version() {
     when(serverApi.isSonarQubeCloud()).thenReturn(false);
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("id", "2025.2", "UP"));
+    when(systemApi.getVersion()).thenReturn("2025.2");
 
     var result = versionChecker.isSonarQubeServerVersionHigherOrEqualsThan("2025.3");
 
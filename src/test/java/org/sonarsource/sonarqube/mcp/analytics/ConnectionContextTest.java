@@ -20,7 +20,6 @@ import org.junit.jupiter.api.Test;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.organizations.OrganizationsApi;
 import org.sonarsource.sonarqube.mcp.serverapi.system.SystemApi;
-import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
 import org.sonarsource.sonarqube.mcp.serverapi.users.UsersApi;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -88,7 +87,7 @@ class ConnectionContextTest {
     when(serverApi.isSonarQubeCloud()).thenReturn(false);
     when(serverApi.usersApi()).thenReturn(usersApi);
     when(serverApi.systemApi()).thenReturn(systemApi);
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("server-install-id", "10.0", "UP"));
+    when(systemApi.getInstallationId()).thenReturn("server-install-id");
     when(usersApi.getCurrentUserId()).thenReturn("user-uuid");
 
     var ctx = ConnectionContext.empty();
@@ -127,7 +126,7 @@ class ConnectionContextTest {
     when(serverApi.isSonarQubeCloud()).thenReturn(false);
     when(serverApi.usersApi()).thenReturn(usersApi);
     when(serverApi.systemApi()).thenReturn(systemApi);
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("server-id", "9.9", "UP"));
+    when(systemApi.getInstallationId()).thenReturn("server-id");
     when(usersApi.getCurrentUserId()).thenReturn(null);
 
     var ctx = ConnectionContext.empty();
@@ -146,7 +145,7 @@ class ConnectionContextTest {
     when(serverApi.isSonarQubeCloud()).thenReturn(false);
     when(serverApi.usersApi()).thenReturn(usersApi);
     when(serverApi.systemApi()).thenReturn(systemApi);
-    when(systemApi.getStatus()).thenReturn(new StatusResponse("server-id", "9.9", "UP"));
+    when(systemApi.getInstallationId()).thenReturn("server-id");
     when(usersApi.getCurrentUserId()).thenReturn("user-uuid");
 
     var ctx = ConnectionContext.empty();
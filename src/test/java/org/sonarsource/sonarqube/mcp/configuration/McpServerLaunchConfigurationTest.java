@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.configuration;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -571,4 +572,214 @@ class McpServerLaunchConfigurationTest {
       .hasMessageContaining("SONARQUBE_TOKEN environment variable or property must be set");
   }
 
+  @Test
+  void should_disable_http2_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getHttpClientSettings().http2Enabled()).isFalse();
+  }
+
+  @Test
+  void should_enable_http2_when_requested(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP2_ENABLED", "true"));
+
+    assertThat(configuration.getHttpClientSettings().http2Enabled()).isTrue();
+  }
+
+  @Test
+  void should_use_default_connection_pool_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    var settings = configuration.getHttpClientSettings();
+    assertThat(settings.maxConnectionsPerRoute()).isEqualTo(20);
+    assertThat(settings.maxConnectionsTotal()).isEqualTo(50);
+    assertThat(settings.idleConnectionTimeout()).isEqualTo(Duration.ofSeconds(60));
+    assertThat(settings.connectionTimeToLive()).isZero();
+  }
+
+  @Test
+  void should_configure_connection_pool(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE", "64",
+      "SONARQUBE_CONNECTION_POOL_MAX_TOTAL", "128",
+      "SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS", "30",
+      "SONARQUBE_CONNECTION_TTL_SECONDS", "300"));
+
+    var settings = configuration.getHttpClientSettings();
+    assertThat(settings.maxConnectionsPerRoute()).isEqualTo(64);
+    assertThat(settings.maxConnectionsTotal()).isEqualTo(128);
+    assertThat(settings.idleConnectionTimeout()).isEqualTo(Duration.ofSeconds(30));
+    assertThat(settings.connectionTimeToLive()).isEqualTo(Duration.ofMinutes(5));
+  }
+
+  @Test
+  void should_raise_total_pool_size_to_per_route_limit_when_only_per_route_is_set(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE", "100"));
+
+    assertThat(configuration.getHttpClientSettings().maxConnectionsTotal()).isEqualTo(100);
+  }
+
+  @Test
+  void should_accept_zero_as_unlimited_connection_time_to_live(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_TTL_SECONDS", "0"));
+
+    assertThat(configuration.getHttpClientSettings().connectionTimeToLive()).isZero();
+  }
+
+  @Test
+  void should_reject_negative_connection_time_to_live(@TempDir Path tempDir) {
+    var environment = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_TTL_SECONDS", "-1");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(environment))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_CONNECTION_TTL_SECONDS value must be at least 0, got: -1");
+  }
+
+  @Test
+  void should_reject_invalid_connection_pool_settings(@TempDir Path tempDir) {
+    var invalidNumber = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE", "many");
+    var notPositive = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS", "0");
+    var totalBelowPerRoute = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE", "10", "SONARQUBE_CONNECTION_POOL_MAX_TOTAL", "5");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(invalidNumber))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE value: many");
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(notPositive))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_CONNECTION_IDLE_TIMEOUT_SECONDS value must be a positive integer, got: 0");
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(totalBelowPerRoute))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("SONARQUBE_CONNECTION_POOL_MAX_TOTAL value must not be lower than SONARQUBE_CONNECTION_POOL_MAX_PER_ROUTE");
+  }
+
+  @Test
+  void should_configure_retries_and_circuit_breaker(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP_MAX_RETRIES", "0",
+      "SONARQUBE_CIRCUIT_BREAKER_FAILURE_THRESHOLD", "10",
+      "SONARQUBE_CIRCUIT_BREAKER_OPEN_SECONDS", "5"));
+
+    var resilience = configuration.getHttpClientSettings().resilience();
+    assertThat(resilience.maxRetries()).isZero();
+    assertThat(resilience.circuitBreakerFailureThreshold()).isEqualTo(10);
+    assertThat(resilience.circuitBreakerOpenDuration()).isEqualTo(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void should_reject_negative_retries(@TempDir Path tempDir) {
+    var environment = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP_MAX_RETRIES", "-1");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(environment))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_HTTP_MAX_RETRIES value must be at least 0, got: -1");
+  }
+
+  @Test
+  void should_configure_tool_timeouts(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_TOOL_TIMEOUT_SECONDS", "30",
+      "SONARQUBE_TOOL_TIMEOUTS", "analyze_code_snippet=300"));
+
+    var toolTimeouts = configuration.getToolTimeouts();
+    assertThat(toolTimeouts.budgetFor("search_sonar_issues_in_projects")).isEqualTo(Duration.ofSeconds(30));
+    assertThat(toolTimeouts.budgetFor("analyze_code_snippet")).isEqualTo(Duration.ofMinutes(5));
+  }
+
+  @Test
+  void should_use_default_tool_timeout(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getToolTimeouts().budgetFor("search_sonar_issues_in_projects")).isEqualTo(Duration.ofMinutes(2));
+  }
+
+  @Test
+  void should_configure_analysis_cache(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_ANALYSIS_CACHE_SIZE_MB", "4",
+      "SONARQUBE_ANALYSIS_CACHE_PERSISTED", "true"));
+
+    assertThat(configuration.getAnalysisCacheSizeBytes()).isEqualTo(4L * 1024 * 1024);
+    assertThat(configuration.isAnalysisCachePersisted()).isTrue();
+  }
+
+  @Test
+  void should_use_in_memory_analysis_cache_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getAnalysisCacheSizeBytes()).isEqualTo(16L * 1024 * 1024);
+    assertThat(configuration.isAnalysisCachePersisted()).isFalse();
+  }
+
+  @Test
+  void should_configure_analysis_backends(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_ANALYSIS_BACKENDS", "3"));
+
+    assertThat(configuration.getAnalysisBackends()).isEqualTo(3);
+  }
+
+  @Test
+  void should_use_a_single_analysis_backend_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getAnalysisBackends()).isEqualTo(1);
+  }
+
+  @Test
+  void should_configure_plugin_download_concurrency(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_PLUGIN_DOWNLOAD_CONCURRENCY", "8"));
+
+    assertThat(configuration.getPluginDownloadConcurrency()).isEqualTo(8);
+  }
+
+  @Test
+  void should_download_four_plugins_at_a_time_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getPluginDownloadConcurrency()).isEqualTo(4);
+  }
+
+  @Test
+  void should_configure_analyzers_store_path(@TempDir Path tempDir) {
+    var storePath = tempDir.resolve("analyzers");
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_ANALYZERS_STORE_PATH", storePath.toString()));
+
+    assertThat(configuration.getAnalyzersStorePath()).isEqualTo(storePath);
+  }
+
+  @Test
+  void should_not_share_analyzers_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getAnalyzersStorePath()).isNull();
+  }
+
+  @Test
+  void should_configure_lazy_analyzers_loading(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_ANALYZERS_LAZY", "true",
+      "SONARQUBE_ANALYZERS_PREFETCH", "java, python,,ts"));
+
+    assertThat(configuration.isAnalyzersLoadedLazily()).isTrue();
+    assertThat(configuration.getAnalyzersPrefetch()).containsExactly("java", "python", "ts");
+  }
+
+  @Test
+  void should_load_all_analyzers_at_startup_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.isAnalyzersLoadedLazily()).isFalse();
+    assertThat(configuration.getAnalyzersPrefetch()).isEmpty();
+  }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentDecodingTests {
+
+  private static final String BODY = "{\"components\":[" + "{\"key\":\"project:src/main/java/Foo.java\",\"measures\":[]},".repeat(500) + "{}]}";
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  @Test
+  void it_should_negotiate_compression() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(okJson("{}")));
+    var provider = new HttpClientProvider("test");
+
+    provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join().close();
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/api/issues/search")).withHeader("Accept-Encoding", equalTo("gzip, deflate")));
+  }
+
+  @Test
+  void it_should_not_negotiate_compression_with_the_ide_bridge() {
+    sonarqubeMock.stubFor(get("/sonarlint/api/status").willReturn(okJson("{}")));
+    var provider = new HttpClientProvider("test");
+
+    provider.getHttpClientForBridge().getAsync(sonarqubeMock.url("/sonarlint/api/status")).join().close();
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/sonarlint/api/status")).withHeader("Accept-Encoding", absent()));
+  }
+
+  @Test
+  void it_should_decode_gzip_response() throws IOException {
+    var compressed = gzip(BODY);
+    sonarqubeMock.stubFor(get("/api/measures/component_tree")
+      .willReturn(aResponse().withHeader("Content-Type", "application/json").withHeader("Content-Encoding", "gzip").withBody(compressed)));
+    var provider = new HttpClientProvider("test");
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/measures/component_tree")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo(BODY);
+    }
+
+    var stats = provider.getCompressionStats();
+    assertThat(stats.compressedResponses()).isEqualTo(1);
+    assertThat(stats.compressedBytes()).isEqualTo(compressed.length);
+    assertThat(stats.decompressedBytes()).isEqualTo(BODY.length());
+    assertThat(stats.compressionRatio()).isGreaterThan(10);
+  }
+
+  @Test
+  void it_should_decode_deflate_response() throws IOException {
+    var output = new ByteArrayOutputStream();
+    try (var deflater = new DeflaterOutputStream(output)) {
+      deflater.write(BODY.getBytes(StandardCharsets.UTF_8));
+    }
+    sonarqubeMock.stubFor(get("/api/system/info")
+      .willReturn(aResponse().withHeader("Content-Type", "application/json").withHeader("Content-Encoding", "deflate").withBody(output.toByteArray())));
+    var provider = new HttpClientProvider("test");
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/system/info")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo(BODY);
+    }
+  }
+
+  @Test
+  void it_should_refuse_to_decode_bodies_larger_than_the_limit() throws IOException {
+    var response = SimpleHttpResponse.create(200, gzip("0".repeat(10 * 1024 * 1024)), ContentType.APPLICATION_JSON);
+    response.addHeader("Content-Encoding", "gzip");
+    var contentDecoding = new ContentDecoding(1024 * 1024);
+
+    assertThatThrownBy(() -> contentDecoding.decode(response))
+      .isInstanceOf(UncheckedIOException.class)
+      .hasMessageStartingWith("Unable to decode gzip response body: it exceeds 1048576 bytes once decoded");
+    assertThat(contentDecoding.stats().decompressedBytes()).isZero();
+  }
+
+  @Test
+  void it_should_decode_bodies_as_large_as_the_limit() throws IOException {
+    var response = SimpleHttpResponse.create(200, gzip("0".repeat(1024)), ContentType.APPLICATION_JSON);
+    response.addHeader("Content-Encoding", "gzip");
+
+    new ContentDecoding(1024).decode(response);
+
+    assertThat(response.getBodyText()).hasSize(1024);
+  }
+
+  @Test
+  void it_should_decode_streamed_gzip_response() throws IOException {
+    sonarqubeMock.stubFor(get("/api/system/logs")
+      .willReturn(aResponse().withHeader("Content-Type", "text/plain").withHeader("Content-Encoding", "gzip").withBody(gzip(BODY))));
+    var provider = new HttpClientProvider("test");
+
+    try (var response = provider.getHttpClient("token").getStreamingAsync(sonarqubeMock.url("/api/system/logs")).join();
+      var body = response.bodyAsStream()) {
+      assertThat(IOUtils.toString(body, StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+
+    assertThat(provider.getCompressionStats().decompressedBytes()).isEqualTo(BODY.length());
+  }
+
+  @Test
+  void it_should_count_uncompressed_responses() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(okJson("{}")));
+    var provider = new HttpClientProvider("test");
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("{}");
+    }
+
+    var stats = provider.getCompressionStats();
+    assertThat(stats.compressedResponses()).isZero();
+    assertThat(stats.compressionRatio()).isEqualTo(1);
+  }
+
+  private static byte[] gzip(String content) throws IOException {
+    var output = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(output)) {
+      gzip.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return output.toByteArray();
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineTests {
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  @Test
+  void it_should_abort_the_request_when_the_deadline_expires() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withFixedDelay(20000)));
+    var client = new HttpClientProvider("test").getHttpClient("token");
+    var pending = new CompletableFuture[1];
+
+    var start = System.nanoTime();
+    assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(200)).callWithin(() -> {
+      var future = client.getAsync(sonarqubeMock.url("/api/issues/search"));
+      pending[0] = future;
+      return Deadline.await(future);
+    })).isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    assertThat(pending[0]).isCancelled();
+  }
+
+  @Test
+  void it_should_not_send_requests_once_the_deadline_expired() {
+    var client = new HttpClientProvider("test").getHttpClient("token");
+
+    var future = Deadline.after(Duration.ZERO).callWithin(() -> client.getAsync(sonarqubeMock.url("/api/issues/search")));
+
+    assertThatThrownBy(future::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(DeadlineExceededException.class);
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo("/api/issues/search")));
+  }
+
+  @Test
+  void it_should_report_requests_not_sent_because_the_deadline_expired() {
+    var client = new HttpClientProvider("test").getHttpClient("token");
+
+    assertThatThrownBy(() -> Deadline.after(Duration.ZERO).callWithin(() -> Deadline.await(client.getAsync(sonarqubeMock.url("/api/issues/search")))))
+      .isInstanceOf(DeadlineExceededException.class);
+  }
+
+  @Test
+  void it_should_abort_the_streamed_body_when_the_deadline_expires() {
+    sonarqubeMock.stubFor(get("/api/sources/raw").willReturn(aResponse().withBody("a".repeat(1000)).withChunkedDribbleDelay(10, 20000)));
+    var client = new HttpClientProvider("test").getHttpClient("token");
+
+    var start = System.nanoTime();
+    assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(500)).callWithin(() -> {
+      try (var response = Deadline.await(client.getStreamingAsync(sonarqubeMock.url("/api/sources/raw")))) {
+        return response.bodyAsString();
+      }
+    })).isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void it_should_leave_shared_futures_running_on_expiry() {
+    var shared = new CompletableFuture<String>();
+    var gaveUp = new AtomicBoolean();
+
+    assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(50)).callWithin(() -> Deadline.awaitShared(shared, () -> gaveUp.set(true))))
+      .isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(shared).isNotDone();
+    assertThat(gaveUp).isTrue();
+  }
+
+  @Test
+  void it_should_wait_without_deadline_like_join() {
+    var failed = CompletableFuture.<String>failedFuture(new IllegalStateException("boom"));
+
+    assertThat(Deadline.current()).isNull();
+    assertThat(Deadline.await(CompletableFuture.completedFuture("done"))).isEqualTo("done");
+    assertThatThrownBy(() -> Deadline.await(failed)).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void it_should_restore_the_enclosing_deadline() {
+    var outer = Deadline.after(Duration.ofMinutes(1));
+
+    var inner = outer.callWithin(() -> Deadline.after(Duration.ofSeconds(1)).callWithin(Deadline::current));
+
+    assertThat(inner).isNotSameAs(outer);
+    assertThat(outer.callWithin(Deadline::current)).isSameAs(outer);
+    assertThat(Deadline.current()).isNull();
+  }
+
+}
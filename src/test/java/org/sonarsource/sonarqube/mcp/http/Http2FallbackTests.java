@@ -0,0 +1,77 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.io.IOException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http2.H2Error;
+import org.apache.hc.core5.http2.H2StreamResetException;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Http2FallbackTests {
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  @Test
+  void it_should_negotiate_http2_by_default() {
+    var underTest = new Http2Fallback();
+
+    assertThat(underTest.tlsConfigFor(new HttpHost("https", "api.sonarcloud.io", 443)).getHttpVersionPolicy()).isEqualTo(HttpVersionPolicy.NEGOTIATE);
+  }
+
+  @Test
+  void it_should_fall_back_to_http1_for_host_failing_at_http2_level() {
+    var underTest = new Http2Fallback();
+
+    underTest.onFailure("https://proxy.example.com/api/issues/search", new IOException(new H2StreamResetException(H2Error.PROTOCOL_ERROR, "reset")));
+
+    assertThat(underTest.isHttp1Only("proxy.example.com", 443)).isTrue();
+    assertThat(underTest.tlsConfigFor(new HttpHost("https", "proxy.example.com", 443)).getHttpVersionPolicy()).isEqualTo(HttpVersionPolicy.FORCE_HTTP_1);
+    assertThat(underTest.tlsConfigFor(new HttpHost("https", "api.sonarcloud.io", 443)).getHttpVersionPolicy()).isEqualTo(HttpVersionPolicy.NEGOTIATE);
+  }
+
+  @Test
+  void it_should_not_fall_back_on_other_failures() {
+    var underTest = new Http2Fallback();
+
+    underTest.onFailure("https://sonarqube.example.com:9000/api/issues/search", new IOException("Connection refused"));
+
+    assertThat(underTest.isHttp1Only("sonarqube.example.com", 9000)).isFalse();
+  }
+
+  @Test
+  void it_should_keep_working_over_http1_for_plain_http_hosts_when_http2_is_enabled() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider("test", new HttpClientSettings(true));
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/test")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+  }
+
+}
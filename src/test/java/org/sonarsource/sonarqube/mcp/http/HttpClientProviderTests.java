@@ -18,6 +18,7 @@ package org.sonarsource.sonarqube.mcp.http;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,6 +36,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -163,6 +165,79 @@ class HttpClientProviderTests {
       .withHeader("Origin", equalTo("http://localhost")));
   }
 
+  @Test
+  void it_should_size_the_connection_pool_from_settings() {
+    var underTest = new HttpClientProvider(USER_AGENT, new HttpClientSettings(false, 7, 13, Duration.ofSeconds(5), Duration.ofMinutes(1),
+      ResilienceSettings.defaults(), HttpCompletionMode.DIRECT));
+
+    assertThat(underTest.getConnectionPoolStats()).isEqualTo(new ConnectionPoolStats(0, 0, 0, 13));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_keep_connections_available_in_the_pool_after_a_request() {
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var ignored = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/test")).join()) {
+      // nothing
+    }
+
+    await().atMost(Duration.ofSeconds(5))
+      .untilAsserted(() -> assertThat(underTest.getConnectionPoolStats())
+        .isEqualTo(new ConnectionPoolStats(0, 0, 1, HttpClientSettings.DEFAULT_MAX_CONNECTIONS_TOTAL)));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_reject_invalid_pool_settings() {
+    var idleTimeout = Duration.ofSeconds(5);
+    var timeToLive = Duration.ZERO;
+    var resilience = ResilienceSettings.defaults();
+    assertThrows(IllegalArgumentException.class, () -> new HttpClientSettings(false, 0, 10, idleTimeout, timeToLive, resilience, HttpCompletionMode.DIRECT));
+    var negativeTimeToLive = Duration.ofSeconds(-1);
+    assertThrows(IllegalArgumentException.class, () -> new HttpClientSettings(false, 5, 10, idleTimeout, negativeTimeToLive, resilience, HttpCompletionMode.DIRECT));
+  }
+
+  @Test
+  void it_should_complete_responses_on_the_io_thread_in_direct_mode() {
+    assertThat(completingThread(HttpCompletionMode.DIRECT).getName()).doesNotStartWith("ForkJoinPool").doesNotStartWith("sonarqube-http-completion-");
+  }
+
+  @Test
+  void it_should_complete_responses_on_a_dedicated_pool() {
+    var thread = completingThread(HttpCompletionMode.POOL);
+
+    assertThat(thread.getName()).startsWith("sonarqube-http-completion-");
+    assertThat(thread.isVirtual()).isFalse();
+  }
+
+  @Test
+  void it_should_complete_responses_on_virtual_threads() {
+    assertThat(completingThread(HttpCompletionMode.VIRTUAL_THREADS).isVirtual()).isTrue();
+  }
+
+  @Test
+  void it_should_parse_completion_mode() {
+    assertThat(HttpCompletionMode.parse("virtual-threads")).isEqualTo(HttpCompletionMode.VIRTUAL_THREADS);
+    assertThat(HttpCompletionMode.parse(" Pool ")).isEqualTo(HttpCompletionMode.POOL);
+    assertThrows(IllegalArgumentException.class, () -> HttpCompletionMode.parse("reactor"));
+  }
+
+  private static Thread completingThread(HttpCompletionMode completionMode) {
+    sonarqubeMock.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(200)));
+    var underTest = new HttpClientProvider(USER_AGENT, new HttpClientSettings(false, HttpClientSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+      HttpClientSettings.DEFAULT_MAX_CONNECTIONS_TOTAL, HttpClientSettings.DEFAULT_IDLE_CONNECTION_TIMEOUT, Duration.ZERO, ResilienceSettings.defaults(),
+      completionMode));
+    try {
+      // registered before the response is received, so it runs on the thread completing the future
+      return underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/delayed"))
+        .thenApply(response -> Thread.currentThread())
+        .join();
+    } finally {
+      underTest.shutdown();
+    }
+  }
+
   @Test
   void body_as_string_should_fallback_to_bytes_when_text_is_null() {
     var response = mock(SimpleHttpResponse.class);
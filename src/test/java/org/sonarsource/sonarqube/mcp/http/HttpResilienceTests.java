@@ -0,0 +1,255 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HttpResilienceTests {
+
+  private static final ResilienceSettings FAST_RETRIES = new ResilienceSettings(2, Duration.ofMillis(10), Duration.ofSeconds(2), 3, Duration.ofSeconds(30));
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  @Test
+  void it_should_retry_get_on_service_unavailable() {
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("brownout").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withStatus(503)).willSetStateTo("recovered"));
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("brownout").whenScenarioStateIs("recovered")
+      .willReturn(aResponse().withStatus(200).withBody("{}")));
+    var provider = newProvider(FAST_RETRIES);
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.code()).isEqualTo(200);
+    }
+
+    sonarqubeMock.verify(2, getRequestedFor(urlEqualTo("/api/issues/search")));
+    assertThat(provider.getResilienceStats().retries()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_retry_get_on_network_failure() {
+    sonarqubeMock.stubFor(get("/api/system/status").inScenario("reset").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)).willSetStateTo("recovered"));
+    sonarqubeMock.stubFor(get("/api/system/status").inScenario("reset").whenScenarioStateIs("recovered")
+      .willReturn(aResponse().withStatus(200)));
+    var provider = newProvider(FAST_RETRIES);
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/system/status")).join()) {
+      assertThat(response.code()).isEqualTo(200);
+    }
+  }
+
+  @Test
+  void it_should_return_last_response_when_retries_are_exhausted() {
+    sonarqubeMock.stubFor(get("/api/rules/search").willReturn(aResponse().withStatus(502)));
+    var provider = newProvider(new ResilienceSettings(2, Duration.ofMillis(10), Duration.ofSeconds(2), 10, Duration.ofSeconds(30)));
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/rules/search")).join()) {
+      assertThat(response.code()).isEqualTo(502);
+    }
+
+    sonarqubeMock.verify(3, getRequestedFor(urlEqualTo("/api/rules/search")));
+  }
+
+  @Test
+  void it_should_honour_retry_after() {
+    sonarqubeMock.stubFor(get("/api/projects/search").inScenario("throttled").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1")).willSetStateTo("allowed"));
+    sonarqubeMock.stubFor(get("/api/projects/search").inScenario("throttled").whenScenarioStateIs("allowed")
+      .willReturn(aResponse().withStatus(200)));
+    var provider = newProvider(FAST_RETRIES);
+
+    var start = System.nanoTime();
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/projects/search")).join()) {
+      assertThat(response.code()).isEqualTo(200);
+    }
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void it_should_not_wait_for_retry_after_longer_than_max_backoff() {
+    sonarqubeMock.stubFor(get("/api/projects/search").willReturn(aResponse().withStatus(429).withHeader("Retry-After", "3600")));
+    var provider = newProvider(FAST_RETRIES);
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/projects/search")).join()) {
+      assertThat(response.code()).isEqualTo(429);
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo("/api/projects/search")));
+  }
+
+  @Test
+  void it_should_send_retries_within_the_deadline_of_the_caller() {
+    var underTest = new HttpResilience(FAST_RETRIES);
+    var upstreamCalls = new AtomicInteger();
+    var deadlinesSeen = new ArrayList<Deadline>();
+    var deadline = Deadline.after(Duration.ofSeconds(30));
+
+    var response = deadline.callWithin(() -> underTest.execute("https://sonarqube.example.com/api/issues/search", true, () -> {
+      deadlinesSeen.add(Deadline.current());
+      return respond(upstreamCalls, upstreamCalls.get() == 0 ? 503 : 200);
+    })).join();
+
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(deadlinesSeen).hasSize(2).containsOnly(deadline);
+  }
+
+  @Test
+  void it_should_not_retry_when_the_backoff_would_end_after_the_deadline() {
+    sonarqubeMock.stubFor(get("/api/projects/search").willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1")));
+    var provider = newProvider(FAST_RETRIES);
+    var httpClient = provider.getHttpClient("token");
+
+    try (var response = Deadline.after(Duration.ofMillis(500)).callWithin(() -> httpClient.getAsync(sonarqubeMock.url("/api/projects/search"))).join()) {
+      assertThat(response.code()).isEqualTo(429);
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo("/api/projects/search")));
+    assertThat(provider.getResilienceStats().retries()).isZero();
+  }
+
+  @Test
+  void it_should_not_retry_post() {
+    sonarqubeMock.stubFor(post("/api/issues/do_transition").willReturn(aResponse().withStatus(503)));
+    var provider = newProvider(FAST_RETRIES);
+
+    try (var response = provider.getHttpClient("token").postAsync(sonarqubeMock.url("/api/issues/do_transition"), "application/json", "{}").join()) {
+      assertThat(response.code()).isEqualTo(503);
+    }
+
+    sonarqubeMock.verify(1, postRequestedFor(urlEqualTo("/api/issues/do_transition")));
+  }
+
+  @Test
+  void it_should_not_retry_client_or_internal_errors() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(500)));
+    var provider = newProvider(FAST_RETRIES);
+
+    try (var response = provider.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.code()).isEqualTo(500);
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo("/api/issues/search")));
+    assertThat(provider.getResilienceStats().retries()).isZero();
+  }
+
+  @Test
+  void it_should_fail_fast_once_the_circuit_breaker_is_open() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(503)));
+    var provider = newProvider(new ResilienceSettings(0, Duration.ofMillis(10), Duration.ofSeconds(2), 3, Duration.ofSeconds(30)));
+    var client = provider.getHttpClient("token");
+    var url = sonarqubeMock.url("/api/issues/search");
+
+    for (var i = 0; i < 3; i++) {
+      client.getAsync(url).join().close();
+    }
+    var failingCall = client.getAsync(url);
+
+    assertThatThrownBy(failingCall::join)
+      .isInstanceOf(CompletionException.class)
+      .hasCauseInstanceOf(CircuitBreakerOpenException.class);
+    sonarqubeMock.verify(3, getRequestedFor(urlEqualTo("/api/issues/search")));
+    var stats = provider.getResilienceStats();
+    assertThat(stats.rejectedCalls()).isEqualTo(1);
+    assertThat(stats.circuitBreakerStates()).containsExactly(Map.entry("localhost:" + sonarqubeMock.getPort(), CircuitBreaker.State.OPEN));
+  }
+
+  @Test
+  void it_should_close_the_circuit_breaker_after_a_successful_probe() {
+    var clock = new AtomicLong();
+    var underTest = new HttpResilience(new ResilienceSettings(0, Duration.ofMillis(10), Duration.ofSeconds(2), 2, Duration.ofSeconds(30)), clock::get);
+    var url = "https://sonarqube.example.com/api/issues/search";
+    var upstreamCalls = new AtomicInteger();
+    var failure = CompletableFuture.<HttpClient.Response>failedFuture(new IOException("connection refused"));
+
+    underTest.execute(url, true, () -> failure).exceptionally(e -> null).join();
+    underTest.execute(url, true, () -> failure).exceptionally(e -> null).join();
+    assertThatThrownBy(() -> underTest.execute(url, true, () -> respond(upstreamCalls, 200)).join()).hasCauseInstanceOf(CircuitBreakerOpenException.class);
+    assertThat(upstreamCalls).hasValue(0);
+
+    clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertThat(underTest.execute(url, true, () -> respond(upstreamCalls, 200)).join().code()).isEqualTo(200);
+
+    assertThat(upstreamCalls).hasValue(1);
+    assertThat(underTest.stats().circuitBreakerStates()).containsEntry("sonarqube.example.com", CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void it_should_reopen_the_circuit_breaker_after_a_failed_probe() {
+    var clock = new AtomicLong();
+    var underTest = new HttpResilience(new ResilienceSettings(0, Duration.ofMillis(10), Duration.ofSeconds(2), 1, Duration.ofSeconds(30)), clock::get);
+    var url = "https://sonarqube.example.com/api/issues/search";
+    var upstreamCalls = new AtomicInteger();
+
+    underTest.execute(url, true, () -> respond(upstreamCalls, 503)).join();
+    clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    underTest.execute(url, true, () -> respond(upstreamCalls, 503)).join();
+
+    assertThat(upstreamCalls).hasValue(2);
+    assertThat(underTest.stats().circuitBreakerStates()).containsEntry("sonarqube.example.com", CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  void it_should_parse_retry_after() {
+    assertThat(HttpResilience.parseRetryAfter("120")).isEqualTo(Duration.ofMinutes(2));
+    assertThat(HttpResilience.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isZero();
+    assertThat(HttpResilience.parseRetryAfter("soon")).isNull();
+    assertThat(HttpResilience.parseRetryAfter(null)).isNull();
+  }
+
+  private static CompletableFuture<HttpClient.Response> respond(AtomicInteger upstreamCalls, int code) {
+    upstreamCalls.incrementAndGet();
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    return CompletableFuture.completedFuture(response);
+  }
+
+  private static HttpClientProvider newProvider(ResilienceSettings resilience) {
+    return new HttpClientProvider("test", new HttpClientSettings(false, HttpClientSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+      HttpClientSettings.DEFAULT_MAX_CONNECTIONS_TOTAL, HttpClientSettings.DEFAULT_IDLE_CONNECTION_TIMEOUT, Duration.ZERO, resilience,
+      HttpCompletionMode.DIRECT));
+  }
+
+}
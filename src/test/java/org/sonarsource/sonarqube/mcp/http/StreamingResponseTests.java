@@ -0,0 +1,258 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class StreamingResponseTests {
+
+  private static final String USER_AGENT = "SonarQube MCP Server Tests";
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  private final HttpClientProvider underTest = new HttpClientProvider(USER_AGENT);
+
+  @Test
+  void it_should_stream_large_bodies() throws IOException {
+    var body = new byte[5 * 1024 * 1024];
+    new Random(42).nextBytes(body);
+    sonarqubeMock.stubFor(get("/plugin.jar").willReturn(aResponse().withBody(body)));
+
+    try (var response = underTest.getHttpClient("token").getStreamingAsync(sonarqubeMock.url("/plugin.jar")).join();
+      var stream = response.bodyAsStream()) {
+      assertThat(response.code()).isEqualTo(200);
+      assertThat(DigestUtils.md5Hex(stream)).isEqualTo(DigestUtils.md5Hex(body));
+    }
+  }
+
+  @Test
+  void it_should_decode_body_as_string() {
+    sonarqubeMock.stubFor(get("/logs").willReturn(aResponse()
+      .withHeader("Content-Type", "text/plain; charset=ISO-8859-1")
+      .withBody("café".getBytes(StandardCharsets.ISO_8859_1))
+      .withChunkedDribbleDelay(4, 200)));
+
+    try (var response = underTest.getHttpClient("token").getStreamingAsync(sonarqubeMock.url("/logs")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("café");
+      assertThat(response.header("Content-Type")).isEqualTo("text/plain; charset=ISO-8859-1");
+    }
+  }
+
+  @Test
+  void it_should_expose_error_responses() {
+    sonarqubeMock.stubFor(get("/missing").willReturn(aResponse().withStatus(404).withBody("{\"errors\":[{\"msg\":\"Not found\"}]}")));
+
+    try (var response = underTest.getHttpClient("token").getStreamingAsync(sonarqubeMock.url("/missing")).join()) {
+      assertThat(response.isSuccessful()).isFalse();
+      assertThat(response.bodyAsString()).contains("Not found");
+    }
+  }
+
+  @Test
+  void it_should_not_send_token_for_anonymous_requests() {
+    sonarqubeMock.stubFor(get("/anonymous").willReturn(aResponse().withBody("ok")));
+
+    try (var response = underTest.getHttpClient("token").getStreamingAsyncAnonymous(sonarqubeMock.url("/anonymous")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/anonymous")).withoutHeader("Authorization"));
+  }
+
+  @Test
+  void it_should_abort_exchange_when_closed_before_end_of_body() {
+    var body = new byte[2 * 1024 * 1024];
+    sonarqubeMock.stubFor(get("/big").willReturn(aResponse().withBody(body)));
+    sonarqubeMock.stubFor(get("/small").willReturn(aResponse().withBody("ok")));
+    var httpClient = underTest.getHttpClient("token");
+
+    var response = httpClient.getStreamingAsync(sonarqubeMock.url("/big")).join();
+    response.close();
+
+    assertThatThrownBy(() -> response.bodyAsStream().read()).isInstanceOf(IOException.class);
+    try (var next = httpClient.getStreamingAsync(sonarqubeMock.url("/small")).join()) {
+      assertThat(next.bodyAsString()).isEqualTo("ok");
+    }
+  }
+
+  @Test
+  void it_should_close_responses_received_after_cancellation() throws Exception {
+    sonarqubeMock.stubFor(get("/big").willReturn(aResponse().withBody(new byte[2 * 1024 * 1024])));
+    var connectionManager = PoolingAsyncClientConnectionManagerBuilder.create().build();
+    var pendingCompletions = new LinkedBlockingQueue<Runnable>();
+    try (var apacheClient = HttpAsyncClients.custom().setConnectionManager(connectionManager).build()) {
+      apacheClient.start();
+      var httpClient = new HttpClientAdapter(apacheClient, "token", false, null, null, null,
+        new HttpCompletionMode.ResponseCompletion(Runnable::run, pendingCompletions::add, null));
+
+      var future = httpClient.getStreamingAsync(sonarqubeMock.url("/big"));
+      // the headers are received, the response is about to be handed over
+      var completion = pendingCompletions.poll(5, TimeUnit.SECONDS);
+      assertThat(future.cancel(true)).isTrue();
+      assertThat(completion).isNotNull();
+      completion.run();
+
+      assertThat(future).isCancelled();
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(connectionManager.getTotalStats().getLeased()).isZero());
+    }
+  }
+
+  @Test
+  void it_should_release_the_connection_of_a_stalled_body_as_soon_as_the_response_is_closed() throws Exception {
+    sonarqubeMock.stubFor(get("/stalled").willReturn(aResponse().withBody(new byte[1024]).withChunkedDribbleDelay(2, 30_000)));
+    var connectionManager = PoolingAsyncClientConnectionManagerBuilder.create().build();
+    try (var apacheClient = HttpAsyncClients.custom().setConnectionManager(connectionManager).build()) {
+      apacheClient.start();
+      var httpClient = new HttpClientAdapter(apacheClient, "token", false);
+
+      var response = httpClient.getStreamingAsync(sonarqubeMock.url("/stalled")).join();
+      response.close();
+
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(connectionManager.getTotalStats().getLeased()).isZero());
+    }
+  }
+
+  @Test
+  void it_should_abort_the_attached_exchange_when_closed_before_end_of_body() {
+    var consumer = new StreamingResponseConsumer("http://localhost/test", 10);
+    var result = new AtomicReference<HttpClient.Response>();
+    var aborted = new AtomicBoolean();
+    consumer.attachExchange(() -> {
+      aborted.set(true);
+      return true;
+    });
+    consumer.consumeResponse(new BasicHttpResponse(200), new BasicEntityDetails(20, ContentType.APPLICATION_OCTET_STREAM), HttpCoreContext.create(),
+      new CapturingCallback(result));
+
+    result.get().close();
+
+    assertThat(aborted).isTrue();
+  }
+
+  @Test
+  void it_should_not_abort_the_exchange_when_closed_after_end_of_body() {
+    var consumer = new StreamingResponseConsumer("http://localhost/test", 10);
+    var result = new AtomicReference<HttpClient.Response>();
+    var aborted = new AtomicBoolean();
+    consumer.attachExchange(() -> {
+      aborted.set(true);
+      return true;
+    });
+    consumer.consumeResponse(new BasicHttpResponse(200), new BasicEntityDetails(0, ContentType.APPLICATION_OCTET_STREAM), HttpCoreContext.create(),
+      new CapturingCallback(result));
+    consumer.streamEnd(null);
+
+    result.get().close();
+
+    assertThat(aborted).isFalse();
+  }
+
+  @Test
+  void it_should_only_grant_capacity_for_consumed_bytes() throws Exception {
+    var consumer = new StreamingResponseConsumer("http://localhost/test", 10);
+    var result = new AtomicReference<HttpClient.Response>();
+    consumer.consumeResponse(new BasicHttpResponse(200), new BasicEntityDetails(20, ContentType.APPLICATION_OCTET_STREAM), HttpCoreContext.create(),
+      new CapturingCallback(result));
+    var channel = new RecordingCapacityChannel();
+
+    consumer.updateCapacity(channel);
+    consumer.consume(ByteBuffer.wrap(new byte[10]));
+    consumer.updateCapacity(channel);
+
+    assertThat(channel.increments).containsExactly(10);
+
+    var read = result.get().bodyAsStream().read(new byte[10], 0, 10);
+
+    assertThat(read).isEqualTo(10);
+    assertThat(channel.increments).containsExactly(10, 10);
+  }
+
+  @Test
+  void it_should_report_failures_to_the_reader() throws Exception {
+    var consumer = new StreamingResponseConsumer("http://localhost/test", 10);
+    var result = new AtomicReference<HttpClient.Response>();
+    consumer.consumeResponse(new BasicHttpResponse(200), new BasicEntityDetails(20, ContentType.APPLICATION_OCTET_STREAM), HttpCoreContext.create(),
+      new CapturingCallback(result));
+
+    consumer.failed(new IOException("Connection reset"));
+
+    assertThatThrownBy(() -> result.get().bodyAsStream().read())
+      .isInstanceOf(IOException.class)
+      .hasRootCauseMessage("Connection reset");
+  }
+
+  private record CapturingCallback(AtomicReference<HttpClient.Response> result) implements FutureCallback<HttpClient.Response> {
+    @Override
+    public void completed(HttpClient.Response response) {
+      result.set(response);
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      // not expected
+    }
+
+    @Override
+    public void cancelled() {
+      // not expected
+    }
+  }
+
+  private static class RecordingCapacityChannel implements CapacityChannel {
+    private final List<Integer> increments = new ArrayList<>();
+
+    @Override
+    public void update(int increment) {
+      increments.add(increment);
+    }
+  }
+
+}
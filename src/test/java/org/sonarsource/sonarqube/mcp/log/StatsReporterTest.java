@@ -0,0 +1,101 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class StatsReporterTest {
+
+  private static final String DEBUG_PROPERTY = "SONARQUBE_DEBUG_ENABLED";
+
+  private Logger mcpLoggerLogger;
+  private ListAppender<ILoggingEvent> logAppender;
+
+  @BeforeEach
+  void setUp() {
+    mcpLoggerLogger = (Logger) LoggerFactory.getLogger(McpLogger.class);
+    logAppender = new ListAppender<>();
+    logAppender.start();
+    mcpLoggerLogger.addAppender(logAppender);
+    mcpLoggerLogger.setLevel(Level.TRACE);
+  }
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty(DEBUG_PROPERTY);
+    mcpLoggerLogger.detachAppender(logAppender);
+    logAppender.stop();
+  }
+
+  @Test
+  void it_should_log_the_stats_periodically_and_when_stopped() {
+    System.setProperty(DEBUG_PROPERTY, "true");
+    var calls = new AtomicInteger();
+    var reporter = new StatsReporter(Duration.ofMillis(10));
+    reporter.register("Response cache", () -> "calls=" + calls.incrementAndGet());
+
+    reporter.start();
+    await().until(() -> calls.get() >= 2);
+    reporter.stop();
+    var reportsWhenStopped = calls.get();
+
+    assertThat(logAppender.list).extracting(ILoggingEvent::getFormattedMessage)
+      .contains("Response cache: calls=1", "Response cache: calls=2", "Response cache: calls=" + reportsWhenStopped);
+  }
+
+  @Test
+  void it_should_not_schedule_reports_when_debug_is_disabled() throws InterruptedException {
+    System.setProperty(DEBUG_PROPERTY, "false");
+    var calls = new AtomicInteger();
+    var reporter = new StatsReporter(Duration.ofMillis(1));
+    reporter.register("Response cache", calls::incrementAndGet);
+
+    reporter.start();
+    Thread.sleep(50);
+
+    assertThat(calls).hasValue(0);
+    reporter.stop();
+  }
+
+  @Test
+  void it_should_keep_reporting_when_a_component_fails() {
+    System.setProperty(DEBUG_PROPERTY, "true");
+    var reporter = new StatsReporter();
+    reporter.register("Broken", () -> {
+      throw new IllegalStateException("closed");
+    });
+    reporter.register("Connection pool", () -> "leased=0");
+
+    reporter.report();
+
+    assertThat(logAppender.list).extracting(ILoggingEvent::getFormattedMessage)
+      .containsExactly("Unable to get the statistics of Broken: closed", "Connection pool: leased=0");
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.plugins;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AnalyzersLoaderTest {
+
+  private static final BackendService.AnalyzersAndLanguagesEnabled ANALYZERS =
+    new BackendService.AnalyzersAndLanguagesEnabled(Set.of(Path.of("analyzer.jar")), EnumSet.of(Language.JAVA));
+
+  private final PluginsSynchronizer pluginsSynchronizer = mock(PluginsSynchronizer.class);
+  private final BackendService backendService = mock(BackendService.class);
+
+  @Test
+  void it_should_load_all_analyzers_at_startup_by_default() {
+    when(pluginsSynchronizer.synchronizeAnalyzers()).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.eager(pluginsSynchronizer, backendService);
+
+    loader.loadInitialAnalyzers();
+    loader.ensureLoaded(Set.of(Language.PYTHON));
+
+    verify(backendService).restartWithAnalyzers(ANALYZERS);
+    verify(pluginsSynchronizer, never()).synchronizeAnalyzers(anySet());
+  }
+
+  @Test
+  void it_should_only_load_secrets_and_prefetched_analyzers_at_startup() {
+    when(pluginsSynchronizer.synchronizeAnalyzers(anySet())).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.lazy(pluginsSynchronizer, backendService, List.of("java", "py", "unknown"));
+
+    loader.loadInitialAnalyzers();
+
+    verify(pluginsSynchronizer).synchronizeAnalyzers(Set.of("text", "textenterprise", "java", "javasymbolicexecution", "python"));
+    verify(pluginsSynchronizer, never()).synchronizeAnalyzers();
+    verify(backendService).restartWithAnalyzers(ANALYZERS);
+  }
+
+  @Test
+  void it_should_load_the_analyzer_of_a_language_on_first_use() {
+    when(pluginsSynchronizer.synchronizeAnalyzers(anySet())).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.lazy(pluginsSynchronizer, backendService, List.of());
+    loader.loadInitialAnalyzers();
+
+    loader.ensureLoaded(Set.of(Language.TS));
+
+    verify(pluginsSynchronizer).synchronizeAnalyzers(Set.of("text", "textenterprise", "javascript"));
+    verify(backendService, times(2)).restartWithAnalyzers(ANALYZERS);
+  }
+
+  @Test
+  void it_should_not_reload_analyzers_already_loaded() {
+    when(pluginsSynchronizer.synchronizeAnalyzers(anySet())).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.lazy(pluginsSynchronizer, backendService, List.of("java"));
+    loader.loadInitialAnalyzers();
+
+    loader.ensureLoaded(Set.of(Language.JAVA, Language.SECRETS));
+
+    verify(pluginsSynchronizer, times(1)).synchronizeAnalyzers(anySet());
+    verify(backendService, times(1)).restartWithAnalyzers(any());
+  }
+
+  @Test
+  void it_should_retry_analyzers_that_failed_to_install() {
+    when(pluginsSynchronizer.synchronizeAnalyzers(anySet())).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.lazy(pluginsSynchronizer, backendService, List.of());
+    loader.loadInitialAnalyzers();
+    when(pluginsSynchronizer.synchronizeAnalyzers(Set.of("text", "textenterprise", "javascript"))).thenReturn(
+      new BackendService.AnalyzersAndLanguagesEnabled(Set.of(Path.of("analyzer.jar")), EnumSet.of(Language.JAVA), Map.of(), Set.of("javascript")));
+
+    loader.ensureLoaded(Set.of(Language.TS));
+    loader.ensureLoaded(Set.of(Language.TS));
+
+    verify(pluginsSynchronizer, times(2)).synchronizeAnalyzers(Set.of("text", "textenterprise", "javascript"));
+    verify(backendService, times(1)).restartWithAnalyzers(any());
+  }
+
+  @Test
+  void it_should_not_look_up_again_analyzers_that_the_server_does_not_have() {
+    when(pluginsSynchronizer.synchronizeAnalyzers(anySet())).thenReturn(ANALYZERS);
+    var loader = AnalyzersLoader.lazy(pluginsSynchronizer, backendService, List.of());
+    loader.loadInitialAnalyzers();
+
+    loader.ensureLoaded(Set.of(Language.TS));
+    loader.ensureLoaded(Set.of(Language.TS));
+
+    verify(pluginsSynchronizer, times(1)).synchronizeAnalyzers(Set.of("text", "textenterprise", "javascript"));
+  }
+
+  @Test
+  void it_should_not_load_anything_when_analyzers_are_preloaded() {
+    AnalyzersLoader.preloaded().ensureLoaded(Set.of(Language.JAVA));
+
+    verifyNoInteractions(pluginsSynchronizer, backendService);
+  }
+
+}
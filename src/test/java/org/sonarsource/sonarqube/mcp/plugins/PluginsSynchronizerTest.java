@@ -16,22 +16,40 @@
  */
 package org.sonarsource.sonarqube.mcp.plugins;
 
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
+import org.sonarsource.sonarqube.mcp.serverapi.EndpointParams;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.PluginsApi;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.response.InstalledPluginsResponse;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.jsonResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +57,12 @@ class PluginsSynchronizerTest {
 
   private static final String HELLO_CONTENT = "hello";
   private static final String HELLO_MD5 = "5d41402abc4b2a76b9719d911017c592";
+  private static final int SLOW_DOWNLOAD_DELAY_MS = 1000;
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
 
   @Test
   void it_should_download_sonarlint_supported_plugins(@TempDir Path tempDir) {
@@ -256,4 +280,369 @@ class PluginsSynchronizerTest {
     assertThat(tempDir.resolve("plugins").resolve("java-plugin.jar")).doesNotExist();
   }
 
+  @Test
+  void it_should_download_plugins_in_parallel(@TempDir Path tempDir) {
+    var pluginKeys = List.of("java", "python", "go", "ruby");
+    stubInstalledPlugins(pluginKeys);
+    pluginKeys.forEach(key -> stubSlowDownload(key, HELLO_CONTENT));
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 4, null);
+
+    var startTime = System.nanoTime();
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+    var elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+    var pluginsPath = tempDir.resolve("plugins");
+    assertThat(analyzers.analyzerPaths()).containsExactlyInAnyOrder(pluginsPath.resolve("java.jar"), pluginsPath.resolve("python.jar"),
+      pluginsPath.resolve("go.jar"), pluginsPath.resolve("ruby.jar"));
+    assertThat(pluginsPath.resolve("go.jar")).hasContent(HELLO_CONTENT);
+    // Downloaded one after another, the plugins would take at least 4 times the delay
+    assertThat(elapsedMs).isLessThan(3L * SLOW_DOWNLOAD_DELAY_MS);
+  }
+
+  @Test
+  void it_should_limit_the_number_of_parallel_downloads(@TempDir Path tempDir) {
+    var pluginKeys = List.of("java", "python", "go", "ruby");
+    stubInstalledPlugins(pluginKeys);
+    pluginKeys.forEach(key -> stubSlowDownload(key, HELLO_CONTENT));
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 2, null);
+
+    var startTime = System.nanoTime();
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+    var elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+    assertThat(analyzers.analyzerPaths()).hasSize(4);
+    assertThat(elapsedMs).isGreaterThanOrEqualTo(2L * SLOW_DOWNLOAD_DELAY_MS);
+  }
+
+  @Test
+  void it_should_install_other_plugins_when_parallel_downloads_fail(@TempDir Path tempDir) {
+    stubInstalledPlugins(List.of("java", "python", "go", "ruby"));
+    stubSlowDownload("java", HELLO_CONTENT);
+    sonarqubeMock.stubFor(get(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=python")).willReturn(aResponse().withStatus(500)));
+    stubSlowDownload("go", "corrupted");
+    stubSlowDownload("ruby", HELLO_CONTENT);
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 4, null);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    var pluginsPath = tempDir.resolve("plugins");
+    assertThat(analyzers.analyzerPaths()).containsExactlyInAnyOrder(pluginsPath.resolve("java.jar"), pluginsPath.resolve("ruby.jar"));
+    assertThat(analyzers.enabledLanguages()).containsExactlyInAnyOrder(Language.JAVA, Language.RUBY);
+    assertThat(pluginsPath).isDirectoryNotContaining("glob:**.part");
+    assertThat(pluginsPath.resolve("python.jar")).doesNotExist();
+    assertThat(pluginsPath.resolve("go.jar")).doesNotExist();
+  }
+
+  @Test
+  void it_should_delete_partial_downloads_of_plugins_no_longer_needed(@TempDir Path tempDir) throws IOException {
+    var pluginsFolderPath = tempDir.resolve("plugins");
+    Files.createDirectories(pluginsFolderPath);
+    var unfinishedDownload = pluginsFolderPath.resolve("java.jar." + HELLO_MD5 + ".part");
+    Files.writeString(unfinishedDownload, "hel");
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of()));
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
+
+    pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(unfinishedDownload).doesNotExist();
+  }
+
+  @Test
+  void it_should_persist_the_hashes_of_installed_plugins(@TempDir Path tempDir) throws IOException {
+    var serverApi = mockServerApiDownloading("java", "filename");
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
+
+    pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(Files.readString(tempDir.resolve("plugins").resolve(PluginsManifest.FILENAME)))
+      .contains("\"filename\"")
+      .contains(HELLO_MD5);
+  }
+
+  @Test
+  void it_should_not_rehash_plugins_unchanged_since_last_synchronization(@TempDir Path tempDir) throws IOException {
+    var serverApi = mockServerApiDownloading("java", "filename");
+    new PluginsSynchronizer(serverApi, tempDir).synchronizeAnalyzers();
+    var pluginPath = tempDir.resolve("plugins").resolve("filename");
+    var lastModified = Files.getLastModifiedTime(pluginPath);
+    // Same size and modification time: only reading the content again could tell the difference
+    Files.writeString(pluginPath, "jello");
+    Files.setLastModifiedTime(pluginPath, lastModified);
+
+    new PluginsSynchronizer(serverApi, tempDir).synchronizeAnalyzers();
+
+    verify(serverApi.pluginsApi(), times(1)).downloadPlugin("java");
+    assertThat(pluginPath).hasContent("jello");
+  }
+
+  @Test
+  void it_should_rehash_plugins_modified_since_last_synchronization(@TempDir Path tempDir) throws IOException {
+    var serverApi = mockServerApiDownloading("java", "filename");
+    new PluginsSynchronizer(serverApi, tempDir).synchronizeAnalyzers();
+    var pluginPath = tempDir.resolve("plugins").resolve("filename");
+    var lastModified = Files.getLastModifiedTime(pluginPath);
+    Files.writeString(pluginPath, "jello");
+    Files.setLastModifiedTime(pluginPath, FileTime.fromMillis(lastModified.toMillis() + 10_000));
+
+    new PluginsSynchronizer(serverApi, tempDir).synchronizeAnalyzers();
+
+    verify(serverApi.pluginsApi(), times(2)).downloadPlugin("java");
+    assertThat(pluginPath).hasContent(HELLO_CONTENT);
+  }
+
+  @Test
+  void it_should_download_each_plugin_once_for_all_instances_sharing_a_store(@TempDir Path tempDir) throws Exception {
+    var pluginKeys = List.of("java", "python");
+    stubInstalledPlugins(pluginKeys);
+    pluginKeys.forEach(key -> stubSlowDownload(key, HELLO_CONTENT));
+    var storePath = tempDir.resolve("store");
+    var instances = List.of(tempDir.resolve("instance1"), tempDir.resolve("instance2"), tempDir.resolve("instance3"));
+    var executor = Executors.newFixedThreadPool(instances.size());
+
+    try {
+      var futures = instances.stream()
+        .map(storagePath -> executor.submit(() -> new PluginsSynchronizer(wireMockServerApi(), storagePath, 4, storePath).synchronizeAnalyzers()))
+        .toList();
+      for (var future : futures) {
+        assertThat(future.get().analyzerPaths()).hasSize(2);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java")));
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=python")));
+    assertThat(storePath.resolve(HELLO_MD5 + ".jar")).hasContent(HELLO_CONTENT);
+    assertThat(instances).allSatisfy(storagePath -> assertThat(storagePath.resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT));
+  }
+
+  @Test
+  void it_should_not_store_plugins_that_do_not_match_their_hash(@TempDir Path tempDir) {
+    stubInstalledPlugins(List.of("java"));
+    stubSlowDownload("java", "corrupted");
+    var storePath = tempDir.resolve("store");
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir.resolve("instance"), 4, storePath);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).isEmpty();
+    assertThat(storePath).isDirectoryNotContaining("glob:**.jar");
+    assertThat(storePath).isDirectoryNotContaining("glob:**.part");
+  }
+
+  @Test
+  void it_should_reuse_stored_plugins_without_downloading_them(@TempDir Path tempDir) throws IOException {
+    var storePath = tempDir.resolve("store");
+    Files.createDirectories(storePath);
+    Files.writeString(storePath.resolve(HELLO_MD5 + ".jar"), HELLO_CONTENT);
+    var serverApi = mockServerApiDownloading("java", "java.jar");
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir.resolve("instance"), 4, storePath);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).containsExactly(tempDir.resolve("instance").resolve("plugins").resolve("java.jar"));
+    assertThat(tempDir.resolve("instance").resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+    verify(serverApi.pluginsApi(), never()).downloadPlugin("java");
+  }
+
+  @Test
+  void it_should_resume_partial_download_with_a_range_request(@TempDir Path tempDir) throws IOException {
+    var partPath = createPartialDownload(tempDir, "java.jar." + HELLO_MD5 + ".part", "hel");
+    stubInstalledPlugins(List.of("java"));
+    sonarqubeMock.stubFor(get(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java"))
+      .withHeader("Range", equalTo("bytes=3-"))
+      .willReturn(aResponse().withStatus(206).withHeader("Content-Range", "bytes 3-4/5").withBody("lo")));
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 4, null);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).containsExactly(tempDir.resolve("plugins").resolve("java.jar"));
+    assertThat(tempDir.resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+    assertThat(partPath).doesNotExist();
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java")).withHeader("Range", equalTo("bytes=3-")));
+  }
+
+  @Test
+  void it_should_not_write_to_a_partial_download_linked_to_a_stored_file(@TempDir Path tempDir) throws IOException {
+    var storedFile = Files.createDirectories(tempDir.resolve("store")).resolve(HELLO_MD5 + ".jar");
+    Files.writeString(storedFile, "hel");
+    Files.createDirectories(tempDir.resolve("plugins"));
+    Files.createLink(tempDir.resolve("plugins").resolve("java.jar." + HELLO_MD5 + ".part"), storedFile);
+    stubInstalledPlugins(List.of("java"));
+    sonarqubeMock.stubFor(get(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java")).willReturn(aResponse().withBody(HELLO_CONTENT)));
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 4, null);
+
+    pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(tempDir.resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+    assertThat(storedFile).hasContent("hel");
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java")).withHeader("Range", matching(".*")));
+  }
+
+  @Test
+  void it_should_link_stored_plugins_apart_from_partial_downloads(@TempDir Path tempDir) throws IOException {
+    var storePath = tempDir.resolve("store");
+    Files.createDirectories(storePath);
+    Files.writeString(storePath.resolve(HELLO_MD5 + ".jar"), HELLO_CONTENT);
+    var partPath = createPartialDownload(tempDir.resolve("instance"), "java.jar." + HELLO_MD5 + ".part", "hel");
+    var serverApi = mockServerApiDownloading("java", "java.jar");
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir.resolve("instance"), 4, storePath);
+
+    pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(tempDir.resolve("instance").resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+    assertThat(partPath).hasContent("hel");
+    assertThat(tempDir.resolve("instance").resolve("plugins")).isDirectoryNotContaining("glob:**" + PluginsSynchronizer.STORE_LINK_SUFFIX);
+    assertThat(storePath.resolve(HELLO_MD5 + ".jar")).hasContent(HELLO_CONTENT);
+  }
+
+  @Test
+  void it_should_restart_download_when_the_server_ignores_the_range(@TempDir Path tempDir) throws IOException {
+    createPartialDownload(tempDir, "java.jar." + HELLO_MD5 + ".part", "jel");
+    stubInstalledPlugins(List.of("java"));
+    sonarqubeMock.stubFor(get(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=java")).willReturn(aResponse().withBody(HELLO_CONTENT)));
+    var pluginsSynchronizer = new PluginsSynchronizer(wireMockServerApi(), tempDir, 4, null);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).containsExactly(tempDir.resolve("plugins").resolve("java.jar"));
+    assertThat(tempDir.resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+  }
+
+  @Test
+  void it_should_resume_download_when_the_connection_drops(@TempDir Path tempDir) {
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(
+      new InstalledPluginsResponse.Plugin("java", true, "java.jar", HELLO_MD5))));
+    var droppedResponse = mock(HttpClient.Response.class);
+    when(droppedResponse.isSuccessful()).thenReturn(true);
+    when(droppedResponse.bodyAsStream()).thenReturn(new DroppingInputStream("hel"));
+    when(pluginsApi.downloadPlugin("java")).thenReturn(droppedResponse);
+    var resumedResponse = mock(HttpClient.Response.class);
+    when(resumedResponse.isSuccessful()).thenReturn(true);
+    when(resumedResponse.code()).thenReturn(206);
+    when(resumedResponse.header("Content-Range")).thenReturn("bytes 3-4/5");
+    when(resumedResponse.bodyAsStream()).thenReturn(new ByteArrayInputStream("lo".getBytes()));
+    when(pluginsApi.downloadPlugin("java", 3)).thenReturn(resumedResponse);
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).containsExactly(tempDir.resolve("plugins").resolve("java.jar"));
+    assertThat(tempDir.resolve("plugins").resolve("java.jar")).hasContent(HELLO_CONTENT);
+  }
+
+  @Test
+  void it_should_keep_partial_download_for_the_next_synchronization(@TempDir Path tempDir) {
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(
+      new InstalledPluginsResponse.Plugin("java", true, "java.jar", HELLO_MD5))));
+    var droppedResponse = mock(HttpClient.Response.class);
+    when(droppedResponse.isSuccessful()).thenReturn(true);
+    when(droppedResponse.bodyAsStream()).thenReturn(new DroppingInputStream("hel"));
+    when(pluginsApi.downloadPlugin("java")).thenReturn(droppedResponse);
+    var failedResponse = mock(HttpClient.Response.class);
+    when(failedResponse.code()).thenReturn(503);
+    when(pluginsApi.downloadPlugin("java", 3)).thenReturn(failedResponse);
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
+
+    assertThat(analyzers.analyzerPaths()).isEmpty();
+    assertThat(tempDir.resolve("plugins").resolve("java.jar." + HELLO_MD5 + ".part")).hasContent("hel");
+  }
+
+  @Test
+  void it_should_only_download_the_selected_plugins(@TempDir Path tempDir) throws IOException {
+    var pythonPluginPath = createPartialDownload(tempDir, "python.jar", "outdated");
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(
+      new InstalledPluginsResponse.Plugin("java", true, "java.jar", HELLO_MD5),
+      new InstalledPluginsResponse.Plugin("python", true, "python.jar", HELLO_MD5))));
+    var response = mock(HttpClient.Response.class);
+    when(response.isSuccessful()).thenReturn(true);
+    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream(HELLO_CONTENT.getBytes()));
+    when(pluginsApi.downloadPlugin("java")).thenReturn(response);
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
+
+    var analyzers = pluginsSynchronizer.synchronizeAnalyzers(Set.of("java"));
+
+    assertThat(analyzers.analyzerPaths()).containsExactly(tempDir.resolve("plugins").resolve("java.jar"));
+    assertThat(analyzers.enabledLanguages()).containsExactly(Language.JAVA);
+    verify(pluginsApi, never()).downloadPlugin("python");
+    assertThat(pythonPluginPath).hasContent("outdated");
+  }
+
+  private static Path createPartialDownload(Path tempDir, String filename, String content) throws IOException {
+    var pluginsFolderPath = tempDir.resolve("plugins");
+    Files.createDirectories(pluginsFolderPath);
+    var partPath = pluginsFolderPath.resolve(filename);
+    Files.writeString(partPath, content);
+    return partPath;
+  }
+
+  private static ServerApi mockServerApiDownloading(String pluginKey, String filename) {
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(
+      new InstalledPluginsResponse.Plugin(pluginKey, true, filename, HELLO_MD5))));
+    var response = mock(HttpClient.Response.class);
+    when(response.isSuccessful()).thenReturn(true);
+    when(response.bodyAsStream()).thenAnswer(invocation -> new ByteArrayInputStream(HELLO_CONTENT.getBytes()));
+    when(pluginsApi.downloadPlugin(pluginKey)).thenReturn(response);
+    return serverApi;
+  }
+
+  private static ServerApi wireMockServerApi() {
+    var httpClient = new HttpClientProvider("test").getHttpClient("token");
+    var helper = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), null, null, false), httpClient);
+    var serverApi = mock(ServerApi.class);
+    when(serverApi.pluginsApi()).thenReturn(new PluginsApi(helper, false));
+    return serverApi;
+  }
+
+  private static void stubInstalledPlugins(List<String> pluginKeys) {
+    var plugins = pluginKeys.stream()
+      .map(key -> "{\"key\":\"" + key + "\",\"sonarLintSupported\":true,\"filename\":\"" + key + ".jar\",\"hash\":\"" + HELLO_MD5 + "\"}")
+      .toList();
+    sonarqubeMock.stubFor(get(PluginsApi.INSTALLED_PLUGINS_PATH).willReturn(jsonResponse("{\"plugins\":[" + String.join(",", plugins) + "]}", 200)));
+  }
+
+  private static void stubSlowDownload(String pluginKey, String content) {
+    sonarqubeMock.stubFor(get(urlEqualTo(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=" + pluginKey))
+      .willReturn(aResponse().withBody(content).withFixedDelay(SLOW_DOWNLOAD_DELAY_MS)));
+  }
+
+  /**
+   * Returns the given content, then fails as if the connection was lost.
+   */
+  private static class DroppingInputStream extends InputStream {
+
+    private final InputStream content;
+
+    private DroppingInputStream(String content) {
+      this.content = new ByteArrayInputStream(content.getBytes());
+    }
+
+    @Override
+    public int read() throws IOException {
+      var read = content.read();
+      if (read == -1) {
+        throw new IOException("Connection reset");
+      }
+      return read;
+    }
+
+  }
+
 }
@@ -0,0 +1,207 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConditionalGetCacheTest {
+
+  private static final String PATH = "/api/rules/show?key=java:S1234";
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  private final HttpClientProvider httpClientProvider = new HttpClientProvider("test");
+  private ConditionalGetCache cache;
+
+  @BeforeEach
+  void init() {
+    cache = new ConditionalGetCache();
+  }
+
+  @Test
+  void it_should_reuse_cached_body_when_server_answers_not_modified() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", absent())
+      .willReturn(okJson("{\"rule\":{}}").withHeader("ETag", "\"v1\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", equalTo("\"v1\""))
+      .willReturn(aResponse().withStatus(304)));
+    var helper = newHelper("token");
+
+    try (var first = helper.get(PATH)) {
+      assertThat(first.bodyAsString()).isEqualTo("{\"rule\":{}}");
+    }
+    try (var second = helper.get(PATH)) {
+      assertThat(second.bodyAsString()).isEqualTo("{\"rule\":{}}");
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PATH)).withHeader("If-None-Match", equalTo("\"v1\"")));
+    assertThat(cache.stats().hits()).isEqualTo(1);
+    assertThat(cache.stats().misses()).isEqualTo(1);
+    assertThat(cache.stats().entries()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_parse_a_revalidated_body_once_per_type() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", absent())
+      .willReturn(okJson("{\"key\":\"java:S1234\"}").withHeader("ETag", "\"v1\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", equalTo("\"v1\""))
+      .willReturn(aResponse().withStatus(304)));
+    var helper = newHelper("token");
+
+    Rule first;
+    try (var response = helper.get(PATH)) {
+      first = JsonCodec.fromJson(response, Rule.class);
+    }
+    Rule second;
+    try (var response = helper.get(PATH)) {
+      second = JsonCodec.fromJson(response, Rule.class);
+    }
+    Map<?, ?> asMap;
+    try (var response = helper.get(PATH)) {
+      asMap = JsonCodec.fromJson(response, Map.class);
+    }
+
+    assertThat(second).isSameAs(first).isEqualTo(new Rule("java:S1234"));
+    assertThat(asMap).containsEntry("key", "java:S1234");
+    assertThat(cache.stats().hits()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_expose_the_validators_and_content_type_of_cached_responses() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", absent())
+      .willReturn(aResponse().withBody("{}").withHeader("Content-Type", "application/json;charset=ISO-8859-1").withHeader("ETag", "\"v1\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", equalTo("\"v1\""))
+      .willReturn(aResponse().withStatus(304)));
+    var helper = newHelper("token");
+
+    helper.get(PATH).close();
+    try (var response = helper.get(PATH)) {
+      assertThat(response.header("ETag")).isEqualTo("\"v1\"");
+      assertThat(response.header("Content-Type")).isEqualTo("application/json; charset=UTF-8");
+      assertThat(response.header("Last-Modified")).isNull();
+    }
+  }
+
+  @Test
+  void it_should_revalidate_with_last_modified() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-Modified-Since", absent())
+      .willReturn(okJson("{}").withHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")));
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-Modified-Since", equalTo("Wed, 21 Oct 2015 07:28:00 GMT"))
+      .willReturn(aResponse().withStatus(304)));
+    var helper = newHelper("token");
+
+    helper.get(PATH).close();
+    helper.get(PATH).close();
+
+    assertThat(cache.stats().hits()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_replace_cached_body_when_resource_changed() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", absent())
+      .willReturn(okJson("{\"v\":1}").withHeader("ETag", "\"v1\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).withHeader("If-None-Match", equalTo("\"v1\""))
+      .willReturn(okJson("{\"v\":2}").withHeader("ETag", "\"v2\"")));
+    var helper = newHelper("token");
+
+    helper.get(PATH).close();
+    try (var response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("{\"v\":2}");
+    }
+
+    assertThat(cache.stats().hits()).isZero();
+    assertThat(cache.stats().misses()).isEqualTo(2);
+    assertThat(cache.stats().entries()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_share_entries_between_tokens() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{}").withHeader("ETag", "\"v1\"")));
+
+    newHelper("token1").get(PATH).close();
+    newHelper("token2").get(PATH).close();
+
+    sonarqubeMock.verify(2, getRequestedFor(urlEqualTo(PATH)).withHeader("If-None-Match", absent()));
+    assertThat(cache.stats().entries()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_not_store_responses_without_validators() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{}")));
+    var helper = newHelper("token");
+
+    helper.get(PATH).close();
+    helper.get(PATH).close();
+
+    assertThat(cache.stats().entries()).isZero();
+    assertThat(cache.stats().misses()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_propagate_errors() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(aResponse().withStatus(404)));
+    var helper = newHelper("token");
+
+    assertThatThrownBy(() -> helper.get(PATH)).isInstanceOf(NotFoundException.class);
+    assertThat(cache.stats().entries()).isZero();
+  }
+
+  @Test
+  void it_should_evict_least_recently_used_entries_when_size_budget_is_exceeded() {
+    // each body is 10 chars, i.e. 20 bytes, so only two entries fit
+    cache = new ConditionalGetCache(50);
+    sonarqubeMock.stubFor(get(urlEqualTo("/a")).willReturn(okJson("{\"a\":1234}").withHeader("ETag", "\"a\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo("/b")).willReturn(okJson("{\"b\":1234}").withHeader("ETag", "\"b\"")));
+    sonarqubeMock.stubFor(get(urlEqualTo("/c")).willReturn(okJson("{\"c\":1234}").withHeader("ETag", "\"c\"")));
+    var helper = newHelper("token");
+
+    helper.get("/a").close();
+    helper.get("/b").close();
+    helper.get("/c").close();
+
+    assertThat(cache.stats().entries()).isEqualTo(2);
+    assertThat(cache.stats().evictions()).isEqualTo(1);
+    assertThat(cache.stats().sizeBytes()).isEqualTo(40);
+  }
+
+  private record Rule(String key) {
+  }
+
+  private ServerApiHelper newHelper(String token) {
+    return new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), null, null, false), httpClientProvider.getHttpClient(token), cache, token);
+  }
+
+}
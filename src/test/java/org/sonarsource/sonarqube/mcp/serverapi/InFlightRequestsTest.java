@@ -0,0 +1,265 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerInternalErrorException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InFlightRequestsTest {
+
+  private static final String PATH = "/api/qualityprofiles/search";
+  private static final int CALLERS = 8;
+
+  @RegisterExtension
+  static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
+    .options(wireMockConfig().dynamicPort())
+    .build();
+
+  private final HttpClientProvider httpClientProvider = new HttpClientProvider("test");
+  private InFlightRequests inFlightRequests;
+
+  @BeforeEach
+  void init() {
+    inFlightRequests = new InFlightRequests();
+  }
+
+  @Test
+  void it_should_share_one_upstream_call_between_concurrent_identical_gets() throws Exception {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{\"profiles\":[]}").withFixedDelay(500)));
+    var helper = newHelper("token");
+
+    var bodies = runConcurrently(() -> {
+      try (var response = helper.get(PATH)) {
+        return response.bodyAsString();
+      }
+    });
+
+    assertThat(bodies).hasSize(CALLERS).containsOnly("{\"profiles\":[]}");
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PATH)));
+    assertThat(inFlightRequests.stats()).isEqualTo(new InFlightRequests.Stats(1, CALLERS - 1L, 0));
+  }
+
+  @Test
+  void it_should_not_share_calls_between_tokens() throws Exception {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{}").withFixedDelay(500)));
+    var counter = new AtomicInteger();
+
+    runConcurrently(() -> {
+      var helper = newHelper("token" + counter.getAndIncrement() % 2);
+      try (var response = helper.get(PATH)) {
+        return response.bodyAsString();
+      }
+    });
+
+    sonarqubeMock.verify(2, getRequestedFor(urlEqualTo(PATH)));
+  }
+
+  @Test
+  void it_should_issue_a_new_call_once_the_previous_one_completed() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{}")));
+    var helper = newHelper("token");
+
+    helper.get(PATH).close();
+    helper.get(PATH).close();
+
+    sonarqubeMock.verify(2, getRequestedFor(urlEqualTo(PATH)));
+    assertThat(inFlightRequests.stats().inFlight()).isZero();
+  }
+
+  @Test
+  void it_should_propagate_the_upstream_failure_to_all_waiting_callers() throws Exception {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(aResponse().withStatus(500).withFixedDelay(500)));
+    var helper = newHelper("token");
+
+    var failures = runConcurrently(() -> {
+      try {
+        helper.get(PATH);
+        return "success";
+      } catch (ServerInternalErrorException e) {
+        return "failure";
+      }
+    });
+
+    assertThat(failures).containsOnly("failure");
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PATH)));
+  }
+
+  @Test
+  void it_should_rethrow_exceptions_to_waiting_callers() {
+    var upstream = new CompletableFuture<HttpClient.Response>();
+    var leader = CompletableFuture.supplyAsync(() -> inFlightRequests.get("url", "hash", () -> upstream, UnaryOperator.identity()));
+    while (inFlightRequests.stats().inFlight() == 0) {
+      Thread.onSpinWait();
+    }
+    var follower = CompletableFuture.supplyAsync(() -> inFlightRequests.get("url", "hash", () -> CompletableFuture.completedFuture(mock(HttpClient.Response.class)),
+      UnaryOperator.identity()));
+    while (inFlightRequests.stats().coalescedCalls() == 0) {
+      Thread.onSpinWait();
+    }
+    upstream.completeExceptionally(new IllegalStateException("boom"));
+
+    assertThatThrownBy(leader::join).hasRootCauseMessage("boom");
+    assertThatThrownBy(follower::join).hasRootCauseMessage("boom");
+  }
+
+  @Test
+  void it_should_send_the_request_from_the_thread_of_the_first_caller() {
+    var callerThread = new AtomicReference<Thread>();
+
+    Deadline.after(Duration.ofSeconds(10)).callWithin(() -> inFlightRequests.get("url", "hash", () -> {
+      callerThread.set(Thread.currentThread());
+      return CompletableFuture.completedFuture(mock(HttpClient.Response.class));
+    }, UnaryOperator.identity()));
+
+    assertThat(callerThread).hasValue(Thread.currentThread());
+  }
+
+  @Test
+  void it_should_complete_the_response_once_for_all_callers() {
+    var upstream = new CompletableFuture<HttpClient.Response>();
+    var completions = new AtomicInteger();
+    UnaryOperator<HttpClient.Response> completion = response -> {
+      completions.incrementAndGet();
+      return response;
+    };
+    var leader = CompletableFuture.supplyAsync(() -> inFlightRequests.get("url", "hash", () -> upstream, completion));
+    while (inFlightRequests.stats().inFlight() == 0) {
+      Thread.onSpinWait();
+    }
+    var follower = CompletableFuture.supplyAsync(() -> inFlightRequests.get("url", "hash", CompletableFuture::new, completion));
+    while (inFlightRequests.stats().coalescedCalls() == 0) {
+      Thread.onSpinWait();
+    }
+    var response = mock(HttpClient.Response.class);
+    upstream.complete(response);
+
+    assertThat(leader.join()).isSameAs(response);
+    assertThat(follower.join()).isSameAs(response);
+    assertThat(completions).hasValue(1);
+  }
+
+  @Test
+  void it_should_cancel_the_shared_request_once_the_last_caller_runs_out_of_budget() {
+    var upstream = new CompletableFuture<HttpClient.Response>();
+    var leader = CompletableFuture.supplyAsync(() -> Deadline.after(Duration.ofMillis(100))
+      .callWithin(() -> inFlightRequests.get("url", "hash", () -> upstream, UnaryOperator.identity())));
+    while (inFlightRequests.stats().inFlight() == 0) {
+      Thread.onSpinWait();
+    }
+    var follower = CompletableFuture.supplyAsync(() -> Deadline.after(Duration.ofMillis(500))
+      .callWithin(() -> inFlightRequests.get("url", "hash", CompletableFuture::new, UnaryOperator.identity())));
+
+    assertThatThrownBy(leader::join).hasCauseInstanceOf(DeadlineExceededException.class);
+    assertThat(upstream).isNotDone();
+    assertThatThrownBy(follower::join).hasCauseInstanceOf(DeadlineExceededException.class);
+    assertThat(upstream).isCancelled();
+    assertThat(inFlightRequests.stats().inFlight()).isZero();
+  }
+
+  @Test
+  void it_should_abort_the_upstream_request_when_the_budget_is_spent() {
+    var upstream = new CompletableFuture<HttpClient.Response>();
+    var client = mock(HttpClient.class);
+    when(client.getAsync(sonarqubeMock.url(PATH))).thenReturn(upstream);
+    var helper = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), null, null, false), client, null, inFlightRequests, "token");
+
+    assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(200)).callWithin(() -> helper.get(PATH)))
+      .isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(upstream).isCancelled();
+    assertThat(inFlightRequests.stats().inFlight()).isZero();
+  }
+
+  @Test
+  void it_should_keep_the_shared_call_running_when_the_first_caller_runs_out_of_budget() {
+    sonarqubeMock.stubFor(get(urlEqualTo(PATH)).willReturn(okJson("{\"profiles\":[]}").withFixedDelay(1000)));
+    var helper = newHelper("token");
+
+    var leader = CompletableFuture.supplyAsync(() -> Deadline.after(Duration.ofMillis(200)).callWithin(() -> helper.get(PATH).bodyAsString()));
+    while (inFlightRequests.stats().inFlight() == 0) {
+      Thread.onSpinWait();
+    }
+    var follower = CompletableFuture.supplyAsync(() -> Deadline.after(Duration.ofSeconds(10)).callWithin(() -> helper.get(PATH).bodyAsString()));
+
+    assertThatThrownBy(leader::join).hasCauseInstanceOf(DeadlineExceededException.class);
+    assertThat(follower.join()).isEqualTo("{\"profiles\":[]}");
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo(PATH)));
+    assertThat(inFlightRequests.stats().upstreamCalls()).isEqualTo(1);
+    assertThat(inFlightRequests.stats().coalescedCalls()).isEqualTo(1);
+  }
+
+  private ServerApiHelper newHelper(String token) {
+    return new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), null, null, false), httpClientProvider.getHttpClient(token), null, inFlightRequests,
+      token);
+  }
+
+  private static ArrayList<String> runConcurrently(Supplier<String> call) throws Exception {
+    var start = new CountDownLatch(1);
+    var futures = new ArrayList<CompletableFuture<String>>();
+    try (var executor = Executors.newFixedThreadPool(CALLERS)) {
+      for (var i = 0; i < CALLERS; i++) {
+        futures.add(CompletableFuture.supplyAsync(() -> {
+          await(start);
+          return call.get();
+        }, executor));
+      }
+      start.countDown();
+      var results = new ArrayList<String>();
+      for (var future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonCodecTest {
+
+  @Test
+  void it_should_parse_the_body_from_the_response_bytes() {
+    var response = responseWithBody("{\"name\":\"Café\",\"tags\":[\"a\",\"b\"]}");
+
+    var parsed = JsonCodec.fromJson(response, Project.class);
+
+    assertThat(parsed).isEqualTo(new Project("Café", List.of("a", "b")));
+    verify(response, never()).bodyAsString();
+  }
+
+  @Test
+  void it_should_decode_the_body_with_the_charset_of_the_response() {
+    var response = mock(HttpClient.Response.class);
+    when(response.header("Content-Type")).thenReturn("application/json; charset=ISO-8859-1");
+    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream("{\"name\":\"Café\"}".getBytes(StandardCharsets.ISO_8859_1)));
+
+    var parsed = JsonCodec.fromJson(response, Project.class);
+
+    assertThat(parsed).extracting(Project::name).isEqualTo("Café");
+  }
+
+  @Test
+  void it_should_decode_the_body_as_utf8_when_the_charset_is_not_supported() {
+    var response = responseWithBody("{\"name\":\"Café\"}");
+    when(response.header("Content-Type")).thenReturn("application/json; charset=unknown");
+
+    var parsed = JsonCodec.fromJson(response, Project.class);
+
+    assertThat(parsed).extracting(Project::name).isEqualTo("Café");
+  }
+
+  @Test
+  void it_should_parse_generic_types() {
+    var response = responseWithBody("[{\"name\":\"p1\"},{\"name\":\"p2\"}]");
+
+    List<Project> parsed = JsonCodec.fromJson(response, new TypeToken<List<Project>>() {
+    }.getType());
+
+    assertThat(parsed).extracting(Project::name).containsExactly("p1", "p2");
+  }
+
+  @Test
+  void it_should_return_null_for_an_empty_body() {
+    assertThat(JsonCodec.fromJson(responseWithBody(""), Project.class)).isNull();
+  }
+
+  @Test
+  void it_should_fail_on_malformed_body() {
+    var response = responseWithBody("{\"name\":");
+
+    assertThatThrownBy(() -> JsonCodec.fromJson(response, Project.class)).isInstanceOf(JsonSyntaxException.class);
+  }
+
+  @Test
+  void it_should_serialize_requests() {
+    assertThat(JsonCodec.toJson(new Project("p1", List.of()))).isEqualTo("{\"name\":\"p1\",\"tags\":[]}");
+  }
+
+  private static HttpClient.Response responseWithBody(String body) {
+    var response = mock(HttpClient.Response.class);
+    when(response.url()).thenReturn("http://localhost/api/test");
+    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    return response;
+  }
+
+  record Project(String name, List<String> tags) {
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResponseTextTest {
+
+  @Test
+  void it_should_return_the_whole_body_when_it_fits() {
+    assertThat(ResponseText.head(responseWithBody("line1\nline2"), 11)).isEqualTo("line1\nline2");
+    assertThat(ResponseText.tail(responseWithBody("line1\nline2"), 11)).isEqualTo("line1\nline2");
+  }
+
+  @Test
+  void it_should_only_read_the_beginning_of_the_body() throws Exception {
+    var body = spy(new ByteArrayInputStream("a".repeat(100_000).getBytes(StandardCharsets.UTF_8)));
+    var response = mock(HttpClient.Response.class);
+    when(response.bodyAsStream()).thenReturn(body);
+
+    var text = ResponseText.head(response, 10);
+
+    assertThat(text).isEqualTo("aaaaaaaaaa\n[truncated, only the first 10 characters are returned]");
+    assertThat(body.available()).isPositive();
+    verify(body).close();
+  }
+
+  @Test
+  void it_should_keep_the_last_full_lines_of_the_body() {
+    var body = new StringBuilder();
+    for (var i = 0; i < 10_000; i++) {
+      body.append("line ").append(i).append('\n');
+    }
+
+    var text = ResponseText.tail(responseWithBody(body.toString()), 20);
+
+    assertThat(text).isEqualTo("[truncated, only the last lines, up to 20 characters, are returned]\nline 9998\nline 9999\n");
+  }
+
+  @Test
+  void it_should_decode_the_body_with_the_charset_of_the_response() {
+    var response = mock(HttpClient.Response.class);
+    when(response.header("Content-Type")).thenReturn("text/plain; charset=ISO-8859-1");
+    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream("café".getBytes(StandardCharsets.ISO_8859_1)));
+
+    assertThat(ResponseText.head(response, 10)).isEqualTo("café");
+  }
+
+  private static HttpClient.Response responseWithBody(String body) {
+    var response = mock(HttpClient.Response.class);
+    InputStream stream = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    when(response.bodyAsStream()).thenReturn(stream);
+    return response;
+  }
+
+}
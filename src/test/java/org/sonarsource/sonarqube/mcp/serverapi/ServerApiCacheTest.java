@@ -0,0 +1,101 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ServerApiCacheTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void it_should_reuse_server_api_for_same_token_and_organization() {
+    var cache = new ServerApiCache(10, Duration.ofMinutes(1), clock::get);
+
+    var first = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+    var second = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    assertThat(second).isSameAs(first);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_separate_tenants_by_token_and_organization() {
+    var cache = new ServerApiCache(10, Duration.ofMinutes(1), clock::get);
+
+    var api = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    assertThat(cache.getOrCreate("other-token", "org", () -> mock(ServerApi.class))).isNotSameAs(api);
+    assertThat(cache.getOrCreate("token", "other-org", () -> mock(ServerApi.class))).isNotSameAs(api);
+    assertThat(cache.getOrCreate("token", null, () -> mock(ServerApi.class))).isNotSameAs(api);
+    assertThat(cache.size()).isEqualTo(4);
+  }
+
+  @Test
+  void it_should_evict_least_recently_used_entry_when_full() {
+    var cache = new ServerApiCache(2, Duration.ofMinutes(1), clock::get);
+    var first = cache.getOrCreate("token1", null, () -> mock(ServerApi.class));
+    cache.getOrCreate("token2", null, () -> mock(ServerApi.class));
+    // touch token1 so that token2 becomes the least recently used
+    cache.getOrCreate("token1", null, () -> mock(ServerApi.class));
+
+    cache.getOrCreate("token3", null, () -> mock(ServerApi.class));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getOrCreate("token1", null, () -> mock(ServerApi.class))).isSameAs(first);
+  }
+
+  @Test
+  void it_should_evict_idle_entries() {
+    var cache = new ServerApiCache(10, Duration.ofMinutes(1), clock::get);
+    var first = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    clock.addAndGet(Duration.ofMinutes(2).toNanos());
+    var second = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_keep_entries_that_are_used_within_idle_timeout() {
+    var cache = new ServerApiCache(10, Duration.ofMinutes(1), clock::get);
+    var first = cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    clock.addAndGet(Duration.ofSeconds(45).toNanos());
+    cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+    clock.addAndGet(Duration.ofSeconds(45).toNanos());
+
+    assertThat(cache.getOrCreate("token", "org", () -> mock(ServerApi.class))).isSameAs(first);
+  }
+
+  @Test
+  void it_should_drop_all_entries_on_clear() {
+    var cache = new ServerApiCache(10, Duration.ofMinutes(1), clock::get);
+    cache.getOrCreate("token", "org", () -> mock(ServerApi.class));
+
+    cache.clear();
+
+    assertThat(cache.size()).isZero();
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantStateTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void it_should_reuse_values_within_time_to_live() {
+    var tenantState = new TenantState(Duration.ofMinutes(5), clock::get);
+
+    tenantState.organizationUuidV4(() -> "uuid-" + loads.incrementAndGet());
+    clock.addAndGet(Duration.ofMinutes(4).toNanos());
+    var uuid = tenantState.organizationUuidV4(() -> "uuid-" + loads.incrementAndGet());
+
+    assertThat(uuid).isEqualTo("uuid-1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void it_should_load_values_again_once_expired() {
+    var tenantState = new TenantState(Duration.ofMinutes(5), clock::get);
+
+    tenantState.organizationUuidV4(() -> "uuid-" + loads.incrementAndGet());
+    clock.addAndGet(Duration.ofMinutes(5).toNanos());
+    var uuid = tenantState.organizationUuidV4(() -> "uuid-" + loads.incrementAndGet());
+
+    assertThat(uuid).isEqualTo("uuid-2");
+    assertThat(tenantState.organizationUuidV4(() -> "uuid-" + loads.incrementAndGet())).isEqualTo("uuid-2");
+  }
+
+  @Test
+  void it_should_not_remember_null_values() {
+    var tenantState = new TenantState(Duration.ofMinutes(5), clock::get);
+
+    assertThat(tenantState.organizationUuidV4(() -> null)).isNull();
+
+    assertThat(tenantState.organizationUuidV4(() -> "uuid")).isEqualTo("uuid");
+  }
+
+  @Test
+  void it_should_keep_an_expired_value_when_its_reload_yields_nothing() {
+    var tenantState = new TenantState(Duration.ofMinutes(5), clock::get);
+    tenantState.organizationUuidV4(() -> "uuid");
+
+    clock.addAndGet(Duration.ofMinutes(10).toNanos());
+
+    assertThat(tenantState.organizationUuidV4(() -> null)).isEqualTo("uuid");
+    assertThat(tenantState.organizationUuidV4(() -> "new-uuid")).isEqualTo("new-uuid");
+  }
+
+}
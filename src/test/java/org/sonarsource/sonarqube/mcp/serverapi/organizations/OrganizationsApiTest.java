@@ -17,7 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.organizations;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -27,6 +27,7 @@ import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.jsonResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -43,7 +44,7 @@ class OrganizationsApiTest {
 
   private OrganizationsApi organizationsApi;
 
-  @BeforeAll
+  @BeforeEach
   void init() {
     var httpClient = new HttpClientProvider("test").getHttpClient("token");
     // For the organizations API, the base URL is used as-is (no sonarcloud.io host rewriting in tests)
@@ -61,6 +62,32 @@ class OrganizationsApiTest {
     assertThat(organizationsApi.getOrganizationUuidV4("my-org")).isEqualTo("550e8400-e29b-41d4-a716-446655440000");
   }
 
+  @Test
+  void it_should_resolve_uuid_v4_of_own_organization_only_once() {
+    sonarqubeMock.stubFor(get(urlPathEqualTo(OrganizationsApi.ORGANIZATIONS_PATH))
+      .willReturn(jsonResponse("""
+        [{"id":"old-id","uuidV4":"550e8400-e29b-41d4-a716-446655440000"}]
+        """, 200)));
+
+    assertThat(organizationsApi.getOrganizationUuidV4("my-org")).isEqualTo("550e8400-e29b-41d4-a716-446655440000");
+    assertThat(organizationsApi.getOrganizationUuidV4("my-org")).isEqualTo("550e8400-e29b-41d4-a716-446655440000");
+
+    sonarqubeMock.verify(1, getRequestedFor(urlPathEqualTo(OrganizationsApi.ORGANIZATIONS_PATH)));
+  }
+
+  @Test
+  void it_should_retry_uuid_v4_resolution_after_a_failure() {
+    sonarqubeMock.stubFor(get(urlPathEqualTo(OrganizationsApi.ORGANIZATIONS_PATH))
+      .willReturn(aResponse().withStatus(500)));
+    assertThat(organizationsApi.getOrganizationUuidV4("my-org")).isNull();
+
+    sonarqubeMock.stubFor(get(urlPathEqualTo(OrganizationsApi.ORGANIZATIONS_PATH))
+      .willReturn(jsonResponse("""
+        [{"id":"old-id","uuidV4":"550e8400-e29b-41d4-a716-446655440000"}]
+        """, 200)));
+    assertThat(organizationsApi.getOrganizationUuidV4("my-org")).isEqualTo("550e8400-e29b-41d4-a716-446655440000");
+  }
+
   @Test
   void it_should_return_null_when_response_is_empty_array() {
     sonarqubeMock.stubFor(get(urlPathEqualTo(OrganizationsApi.ORGANIZATIONS_PATH))
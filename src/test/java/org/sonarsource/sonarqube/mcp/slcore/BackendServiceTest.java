@@ -16,15 +16,31 @@
  */
 package org.sonarsource.sonarqube.mcp.slcore;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.sonarsource.sonarlint.core.rpc.client.ClientJsonRpcLauncher;
 import org.sonarsource.sonarlint.core.rpc.protocol.SonarLintRpcServer;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalysisRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.config.ConfigurationRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.ListAllStandaloneRulesDefinitionsResponse;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.RuleDefinitionDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.RulesRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.UpdateStandaloneRulesConfigurationParams;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.telemetry.TelemetryRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,6 +49,8 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -52,6 +70,7 @@ class BackendServiceTest {
     when(mockLauncher.getServerProxy()).thenReturn(mockServer);
     when(mockServer.initialize(any())).thenReturn(CompletableFuture.completedFuture(null));
     when(mockServer.shutdown()).thenReturn(CompletableFuture.completedFuture(null));
+    when(mockServer.getConfigurationService()).thenReturn(mock(ConfigurationRpcService.class));
     
     backendService = new BackendService(mockLauncher, tempDir, "1.0", "TestApp");
   }
@@ -74,7 +93,7 @@ class BackendServiceTest {
     backendService.initialize(initialAnalyzers);
 
     var newAnalyzers = new BackendService.AnalyzersAndLanguagesEnabled(Set.of(tempDir.resolve("plugin.jar")), EnumSet.of(Language.JAVA));
-    backendService.restartWithAnalyzers(newAnalyzers);
+    backendService.restartWithAnalyzers(newAnalyzers).join();
 
     verify(mockServer).shutdown();
     verify(mockLauncher).close();
@@ -90,7 +109,7 @@ class BackendServiceTest {
     backendService.initialize(initialAnalyzers);
 
     var newAnalyzers = new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class));
-    backendService.restartWithAnalyzers(newAnalyzers);
+    backendService.restartWithAnalyzers(newAnalyzers).join();
 
     // Should still proceed with restart despite shutdown exception
     verify(mockServer).shutdown();
@@ -104,12 +123,147 @@ class BackendServiceTest {
     backendService.initialize(initialAnalyzers);
 
     var newAnalyzers = new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class));
-    backendService.restartWithAnalyzers(newAnalyzers);
+    backendService.restartWithAnalyzers(newAnalyzers).join();
 
     // Should still proceed with restart despite close exception
     verify(mockLauncher).close();
   }
 
+  @Test
+  void restartWithAnalyzers_should_switch_calls_to_the_new_backend() {
+    var newServer = mockServer();
+    var newLauncher = mockLauncher(newServer);
+    var launchers = new ArrayDeque<>(List.of(mockLauncher, newLauncher));
+    backendService = new BackendService(client -> launchers.poll(), tempDir, "1.0", "TestApp");
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+    var rulesService = mockRulesService();
+    backendService.updateRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of())));
+    var newRulesService = mockRulesService(newServer);
+
+    backendService.restartWithAnalyzers(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(tempDir.resolve("plugin.jar")), EnumSet.of(Language.PHP))).join();
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of()).join();
+
+    verify(newServer.getConfigurationService()).didAddConfigurationScopes(any());
+    verify(rulesService).updateStandaloneRulesConfiguration(any());
+    verify(newRulesService).updateStandaloneRulesConfiguration(any());
+    verify(newServer.getAnalysisService()).analyzeFilesAndTrack(any());
+    verify(mockServer).shutdown();
+    verify(mockLauncher).close();
+    verify(newServer, never()).shutdown();
+  }
+
+  @Test
+  void restartWithAnalyzers_should_shut_down_the_previous_backend_once_its_analyses_completed() {
+    var pendingAnalysis = new CompletableFuture<AnalyzeFilesResponse>();
+    var analysisService = mock(AnalysisRpcService.class);
+    when(analysisService.analyzeFilesAndTrack(any())).thenReturn(pendingAnalysis);
+    when(mockServer.getAnalysisService()).thenReturn(analysisService);
+    var newServer = mockServer();
+    var launchers = new ArrayDeque<>(List.of(mockLauncher, mockLauncher(newServer)));
+    backendService = new BackendService(client -> launchers.poll(), tempDir, "1.0", "TestApp");
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+    var analysis = backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of());
+    verify(analysisService, timeout(1000)).analyzeFilesAndTrack(any());
+
+    // Returns once switched, without waiting for the analysis of the previous backend
+    var drained = backendService.restartWithAnalyzers(
+      new BackendService.AnalyzersAndLanguagesEnabled(Set.of(tempDir.resolve("plugin.jar")), EnumSet.of(Language.PHP)));
+
+    // New analyses are served by the new backend while the previous one drains
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of());
+    verify(newServer.getAnalysisService(), timeout(1000)).analyzeFilesAndTrack(any());
+    verify(mockServer, never()).shutdown();
+    assertThat(drained).isNotDone();
+    pendingAnalysis.complete(mock(AnalyzeFilesResponse.class));
+    drained.join();
+    assertThat(analysis).isCompleted();
+    verify(mockServer).shutdown();
+  }
+
+  @Test
+  void restartWithAnalyzers_should_switch_again_while_the_previous_backend_drains() {
+    var pendingAnalysis = new CompletableFuture<AnalyzeFilesResponse>();
+    var analysisService = mock(AnalysisRpcService.class);
+    when(analysisService.analyzeFilesAndTrack(any())).thenReturn(pendingAnalysis);
+    when(mockServer.getAnalysisService()).thenReturn(analysisService);
+    var secondServer = mockServer();
+    var thirdServer = mockServer();
+    var launchers = new ArrayDeque<>(List.of(mockLauncher, mockLauncher(secondServer), mockLauncher(thirdServer)));
+    backendService = new BackendService(client -> launchers.poll(), tempDir, "1.0", "TestApp");
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of());
+    verify(analysisService, timeout(1000)).analyzeFilesAndTrack(any());
+
+    var firstDrain = backendService.restartWithAnalyzers(
+      new BackendService.AnalyzersAndLanguagesEnabled(Set.of(tempDir.resolve("plugin.jar")), EnumSet.of(Language.PHP)));
+    var secondDrain = backendService.restartWithAnalyzers(
+      new BackendService.AnalyzersAndLanguagesEnabled(Set.of(tempDir.resolve("other-plugin.jar")), EnumSet.of(Language.PHP)));
+
+    // The first backend is still draining, it does not prevent the second switch nor the shutdown of the second backend
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of());
+    verify(thirdServer.getAnalysisService(), timeout(1000)).analyzeFilesAndTrack(any());
+    secondDrain.join();
+    verify(secondServer).shutdown();
+    assertThat(firstDrain).isNotDone();
+    pendingAnalysis.complete(mock(AnalyzeFilesResponse.class));
+    firstDrain.join();
+    verify(mockServer).shutdown();
+    verify(secondServer).shutdown();
+    verify(thirdServer, never()).shutdown();
+  }
+
+  @Test
+  void restartWithAnalyzers_should_keep_the_current_backend_when_the_new_one_fails_to_start() {
+    var analysisService = mock(AnalysisRpcService.class);
+    when(analysisService.analyzeFilesAndTrack(any())).thenReturn(CompletableFuture.completedFuture(mock(AnalyzeFilesResponse.class)));
+    when(mockServer.getAnalysisService()).thenReturn(analysisService);
+    var newServer = mockServer();
+    when(newServer.initialize(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Invalid plugin")));
+    var newLauncher = mockLauncher(newServer);
+    var launchers = new ArrayDeque<>(List.of(mockLauncher, newLauncher));
+    backendService = new BackendService(client -> launchers.poll(), tempDir, "1.0", "TestApp");
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+
+    backendService.restartWithAnalyzers(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.of(Language.PHP)));
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of()).join();
+
+    verify(analysisService).analyzeFilesAndTrack(any());
+    verify(mockServer, never()).shutdown();
+    verify(newLauncher).close();
+  }
+
+  @Test
+  void initializeOnFirstUse_should_start_the_backend_on_first_analysis_only() {
+    var telemetryService = mock(TelemetryRpcService.class);
+    when(mockServer.getTelemetryService()).thenReturn(telemetryService);
+    var analysisService = mock(AnalysisRpcService.class);
+    when(analysisService.analyzeFilesAndTrack(any())).thenReturn(CompletableFuture.completedFuture(mock(AnalyzeFilesResponse.class)));
+    when(mockServer.getAnalysisService()).thenReturn(analysisService);
+    backendService = new BackendService(client -> mockLauncher, tempDir, "1.0", "TestApp");
+
+    backendService.initializeOnFirstUse(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+    backendService.notifyTransportModeUsed();
+    backendService.notifyToolCalled("mcp_search_my_sonarqube_projects", true);
+
+    verify(mockServer, never()).initialize(any());
+
+    backendService.analyzeFilesAndTrack(UUID.randomUUID(), List.of()).join();
+
+    verify(mockServer, times(1)).initialize(any());
+    verify(telemetryService, timeout(1000)).mcpTransportModeUsed(any());
+  }
+
+  @Test
+  void shutdown_should_not_start_a_deferred_backend() {
+    backendService = new BackendService(client -> mockLauncher, tempDir, "1.0", "TestApp");
+    backendService.initializeOnFirstUse(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+
+    backendService.shutdown();
+
+    verify(mockServer, never()).initialize(any());
+    verify(mockLauncher, never()).close();
+  }
+
   @Test
   void shutdown_should_handle_exception_during_backend_shutdown() {
     var failedFuture = new CompletableFuture<Void>();
@@ -172,5 +326,123 @@ class BackendServiceTest {
     Thread.interrupted();
   }
 
-}
+  @Test
+  void getAnalyzersFingerprint_should_only_change_for_the_languages_of_the_loaded_analyzers() throws Exception {
+    var phpAnalyzer = Files.writeString(tempDir.resolve("php.jar"), "php");
+    var secretsAnalyzer = Files.writeString(tempDir.resolve("text.jar"), "text");
+    var javaAnalyzer = Files.writeString(tempDir.resolve("java.jar"), "java");
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(phpAnalyzer, secretsAnalyzer),
+      EnumSet.of(Language.PHP, Language.SECRETS), Map.of(phpAnalyzer, Set.of(Language.PHP), secretsAnalyzer, Set.of(Language.SECRETS))));
+    var phpAnalyzers = backendService.getAnalyzersFingerprint(Language.PHP);
+    var javaAnalyzers = backendService.getAnalyzersFingerprint(Language.JAVA);
+
+    backendService.restartWithAnalyzers(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(phpAnalyzer, secretsAnalyzer, javaAnalyzer),
+      EnumSet.of(Language.PHP, Language.SECRETS, Language.JAVA),
+      Map.of(phpAnalyzer, Set.of(Language.PHP), secretsAnalyzer, Set.of(Language.SECRETS), javaAnalyzer, Set.of(Language.JAVA))));
+
+    assertThat(backendService.getAnalyzersFingerprint(Language.PHP)).isEqualTo(phpAnalyzers);
+    assertThat(backendService.getAnalyzersFingerprint(Language.JAVA)).isNotEqualTo(javaAnalyzers);
+    assertThat(backendService.getAnalyzersFingerprint(Language.JAVA)).isNotEqualTo(phpAnalyzers);
+  }
+
+  @Test
+  void updateRulesConfiguration_should_not_push_an_unchanged_configuration() {
+    var rulesService = mockRulesService();
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+
+    backendService.updateRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of("format", "TODO"))));
+    backendService.updateRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of("format", "TODO"))));
+
+    verify(rulesService, times(1)).listAllStandaloneRulesDefinitions();
+    var captor = ArgumentCaptor.forClass(UpdateStandaloneRulesConfigurationParams.class);
+    verify(rulesService, times(1)).updateStandaloneRulesConfiguration(captor.capture());
+    var pushed = captor.getValue().getRuleConfigByKey();
+    assertThat(pushed).containsOnlyKeys("php:S1135", "php:S100");
+    assertThat(pushed.get("php:S1135").isActive()).isTrue();
+    assertThat(pushed.get("php:S100").isActive()).isFalse();
+  }
+
+  @Test
+  void updateRulesConfiguration_should_push_a_changed_configuration() {
+    var rulesService = mockRulesService();
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+
+    backendService.updateRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of())));
+    backendService.updateRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of("format", "TODO"))));
+    backendService.updateRulesConfiguration(Map.of());
+
+    verify(rulesService, times(3)).updateStandaloneRulesConfiguration(any());
+  }
 
+  @Test
+  void useRulesConfiguration_should_run_analyses_with_different_rules_in_parallel() throws Exception {
+    var mainServer = mockServer();
+    var additionalServer = mockServer();
+    var mainRulesService = mockRulesService(mainServer);
+    var additionalRulesService = mockRulesService(additionalServer);
+    var mainAnalysis = new CompletableFuture<AnalyzeFilesResponse>();
+    var additionalAnalysis = new CompletableFuture<AnalyzeFilesResponse>();
+    when(mainServer.getAnalysisService().analyzeFilesAndTrack(any())).thenReturn(mainAnalysis);
+    when(additionalServer.getAnalysisService().analyzeFilesAndTrack(any())).thenReturn(additionalAnalysis);
+    var launchers = new ArrayDeque<>(List.of(mockLauncher(mainServer), mockLauncher(additionalServer)));
+    backendService = new BackendService(client -> launchers.poll(), tempDir, "1.0", "TestApp", 2);
+    backendService.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
+
+    var withTodoRule = backendService.useRulesConfiguration(Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of())), 1, TimeUnit.SECONDS);
+    var withNamingRule = backendService.useRulesConfiguration(Map.of("php:S100", new StandaloneRuleConfigDto(true, Map.of())), 1, TimeUnit.SECONDS);
+    var todoAnalysis = withTodoRule.analyzeFilesAndTrack(BackendService.PROJECT_ID, UUID.randomUUID(), List.of());
+    var namingAnalysis = withNamingRule.analyzeFilesAndTrack(BackendService.PROJECT_ID, UUID.randomUUID(), List.of());
+
+    // Both analyses are running at the same time, each one on a backend configured with its own rules
+    verify(mainServer.getAnalysisService(), timeout(5000)).analyzeFilesAndTrack(any());
+    verify(additionalServer.getAnalysisService(), timeout(5000)).analyzeFilesAndTrack(any());
+    assertThat(todoAnalysis).isNotDone();
+    assertThat(namingAnalysis).isNotDone();
+    var mainRules = ArgumentCaptor.forClass(UpdateStandaloneRulesConfigurationParams.class);
+    verify(mainRulesService).updateStandaloneRulesConfiguration(mainRules.capture());
+    assertThat(mainRules.getValue().getRuleConfigByKey().get("php:S1135").isActive()).isTrue();
+    assertThat(mainRules.getValue().getRuleConfigByKey().get("php:S100").isActive()).isFalse();
+    var additionalRules = ArgumentCaptor.forClass(UpdateStandaloneRulesConfigurationParams.class);
+    verify(additionalRulesService).updateStandaloneRulesConfiguration(additionalRules.capture());
+    assertThat(additionalRules.getValue().getRuleConfigByKey().get("php:S1135").isActive()).isFalse();
+    assertThat(additionalRules.getValue().getRuleConfigByKey().get("php:S100").isActive()).isTrue();
+
+    mainAnalysis.complete(mock(AnalyzeFilesResponse.class));
+    additionalAnalysis.complete(mock(AnalyzeFilesResponse.class));
+    withTodoRule.close();
+    withNamingRule.close();
+    backendService.shutdown();
+    verify(additionalServer).shutdown();
+  }
+
+  private RulesRpcService mockRulesService() {
+    return mockRulesService(mockServer);
+  }
+
+  private static RulesRpcService mockRulesService(SonarLintRpcServer server) {
+    var rulesService = mock(RulesRpcService.class);
+    var definitions = mock(ListAllStandaloneRulesDefinitionsResponse.class);
+    when(definitions.getRulesByKey()).thenReturn(Map.of("php:S1135", mock(RuleDefinitionDto.class), "php:S100", mock(RuleDefinitionDto.class)));
+    when(rulesService.listAllStandaloneRulesDefinitions()).thenReturn(CompletableFuture.completedFuture(definitions));
+    when(server.getRulesService()).thenReturn(rulesService);
+    return rulesService;
+  }
+
+  private static SonarLintRpcServer mockServer() {
+    var server = mock(SonarLintRpcServer.class);
+    when(server.initialize(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(server.shutdown()).thenReturn(CompletableFuture.completedFuture(null));
+    when(server.getConfigurationService()).thenReturn(mock(ConfigurationRpcService.class));
+    var analysisService = mock(AnalysisRpcService.class);
+    when(analysisService.analyzeFilesAndTrack(any())).thenReturn(CompletableFuture.completedFuture(mock(AnalyzeFilesResponse.class)));
+    when(server.getAnalysisService()).thenReturn(analysisService);
+    return server;
+  }
+
+  private static ClientJsonRpcLauncher mockLauncher(SonarLintRpcServer server) {
+    var launcher = mock(ClientJsonRpcLauncher.class);
+    when(launcher.getServerProxy()).thenReturn(server);
+    return launcher;
+  }
+
+}
@@ -32,6 +32,8 @@ import org.sonarsource.sonarlint.core.rpc.client.ClientJsonRpcLauncher;
 import org.sonarsource.sonarlint.core.rpc.protocol.SonarLintRpcServer;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalysisRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesAndTrackParams;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.config.ConfigurationRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.config.scope.DidAddConfigurationScopesParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.DidUpdateFileSystemParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.FileRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.telemetry.TelemetryRpcService;
@@ -55,6 +57,7 @@ class BackendServiceTests {
   private AnalysisRpcService analysisRpcService;
   private TelemetryRpcService telemetryRpcService;
   private FileRpcService fileRpcService;
+  private ConfigurationRpcService configurationRpcService;
 
   @BeforeEach
   void init() {
@@ -63,9 +66,11 @@ class BackendServiceTests {
     analysisRpcService = mock(AnalysisRpcService.class);
     telemetryRpcService = mock(TelemetryRpcService.class);
     fileRpcService = mock(FileRpcService.class);
+    configurationRpcService = mock(ConfigurationRpcService.class);
     when(backend.getAnalysisService()).thenReturn(analysisRpcService);
     when(backend.getTelemetryService()).thenReturn(telemetryRpcService);
     when(backend.getFileService()).thenReturn(fileRpcService);
+    when(backend.getConfigurationService()).thenReturn(configurationRpcService);
 
     var jsonRpcLauncher = mock(ClientJsonRpcLauncher.class);
     when(jsonRpcLauncher.getServerProxy()).thenReturn(backend);
@@ -91,6 +96,20 @@ class BackendServiceTests {
     ).containsExactly(BackendService.PROJECT_ID, analysisId, List.of(), Map.of(), false);
   }
 
+  @Test
+  void should_register_a_configuration_scope_per_project() {
+    var scopeA = service.configurationScopeFor("projectA");
+    var scopeB = service.configurationScopeFor("projectB");
+
+    assertThat(service.configurationScopeFor("projectA")).isEqualTo(scopeA);
+    assertThat(service.configurationScopeFor(null)).isEqualTo(BackendService.PROJECT_ID);
+    assertThat(scopeA).isNotEqualTo(scopeB).isNotEqualTo(BackendService.PROJECT_ID);
+    var captor = ArgumentCaptor.forClass(DidAddConfigurationScopesParams.class);
+    verify(configurationRpcService, timeout(1000).times(3)).didAddConfigurationScopes(captor.capture());
+    assertThat(captor.getAllValues()).flatExtracting("addedScopes").extracting("id")
+      .containsExactlyInAnyOrder(BackendService.PROJECT_ID, scopeA, scopeB);
+  }
+
   @Test
   void should_notify_tool_called() {
     var toolName = "tool_name";
@@ -142,4 +161,21 @@ class BackendServiceTests {
     ).containsExactly(List.of(clientFileDto), List.of(), List.of());
   }
 
+  @Test
+  void should_list_added_files_until_removed() {
+    var file = URI.create("file:///work/analysis.php");
+    var clientFileDto = new ClientFileDto(file, Path.of("analysis.php"), BackendService.PROJECT_ID, false, "UTF-8", Path.of("/work/analysis.php"),
+      "<?php // TODO", Language.PHP, true);
+    var rpcClient = new McpSonarLintRpcClient(service.getInMemoryFileSystem());
+
+    service.addFile(clientFileDto);
+
+    assertThat(rpcClient.listFiles(BackendService.PROJECT_ID)).containsExactly(clientFileDto);
+    assertThat(rpcClient.listFiles("other-scope")).isEmpty();
+
+    service.removeFile(file);
+
+    assertThat(rpcClient.listFiles(BackendService.PROJECT_ID)).isEmpty();
+  }
+
 }
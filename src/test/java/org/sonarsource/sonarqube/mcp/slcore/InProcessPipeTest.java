@@ -0,0 +1,126 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.slcore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InProcessPipeTest {
+
+  @Test
+  void it_should_transfer_more_bytes_than_its_capacity_in_order() throws Exception {
+    var pipe = new InProcessPipe(64);
+    var payload = new byte[10_000];
+    new Random(42).nextBytes(payload);
+
+    var writer = CompletableFuture.runAsync(() -> {
+      try (var outputStream = pipe.outputStream()) {
+        for (var offset = 0; offset < payload.length; offset += 100) {
+          outputStream.write(payload, offset, 100);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    var received = pipe.inputStream().readAllBytes();
+
+    writer.get(10, TimeUnit.SECONDS);
+    assertThat(received).isEqualTo(payload);
+  }
+
+  @Test
+  void it_should_end_the_stream_once_the_writer_is_closed_and_the_bytes_are_read() throws Exception {
+    var pipe = new InProcessPipe();
+    pipe.outputStream().write("message".getBytes(UTF_8));
+    pipe.outputStream().close();
+
+    assertThat(new String(pipe.inputStream().readAllBytes(), UTF_8)).isEqualTo("message");
+    assertThat(pipe.inputStream().read()).isEqualTo(-1);
+  }
+
+  @Test
+  void it_should_fail_writes_once_the_reader_is_closed() throws Exception {
+    var pipe = new InProcessPipe(4);
+    pipe.outputStream().write(new byte[4]);
+
+    var blockedWrite = CompletableFuture.runAsync(() -> {
+      try {
+        pipe.outputStream().write(1);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    pipe.inputStream().close();
+
+    assertThatThrownBy(() -> blockedWrite.get(10, TimeUnit.SECONDS)).hasRootCauseMessage("Pipe closed");
+  }
+
+  @Test
+  void it_should_not_break_when_the_writing_thread_terminates() throws Exception {
+    var pipe = new InProcessPipe();
+
+    CompletableFuture.runAsync(() -> {
+      try {
+        pipe.outputStream().write("first".getBytes(UTF_8));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }).get(10, TimeUnit.SECONDS);
+    var buffer = new byte[5];
+    new DataInputStream(pipe.inputStream()).readFully(buffer);
+
+    assertThat(new String(buffer, UTF_8)).isEqualTo("first");
+    assertThat(pipe.inputStream().available()).isZero();
+  }
+
+  @Test
+  void it_should_round_trip_many_messages_between_two_threads() throws Exception {
+    var requests = new InProcessPipe();
+    var responses = new InProcessPipe();
+    var echo = CompletableFuture.runAsync(() -> {
+      try (var outputStream = responses.outputStream()) {
+        requests.inputStream().transferTo(outputStream);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    var message = "{\"jsonrpc\":\"2.0\",\"method\":\"analyze\",\"params\":{}}".getBytes(UTF_8);
+    var received = new ByteArrayOutputStream();
+    var buffer = new byte[message.length];
+
+    for (var i = 0; i < 10_000; i++) {
+      requests.outputStream().write(message);
+      new DataInputStream(responses.inputStream()).readFully(buffer);
+      received.write(buffer);
+    }
+    requests.outputStream().close();
+
+    echo.get(10, TimeUnit.SECONDS);
+    assertThat(received.size()).isEqualTo(10_000 * message.length);
+    assertThat(responses.inputStream().read()).isEqualTo(-1);
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.slcore;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class RulesConfigurationGateTest {
+
+  private final RulesConfigurationGate gate = new RulesConfigurationGate();
+
+  @Test
+  void it_should_let_analyses_with_the_same_configuration_run_together() throws Exception {
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+
+    assertThat(gate.inFlight()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_make_an_analysis_with_another_configuration_wait() throws Exception {
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+
+    var otherAnalysis = CompletableFuture.runAsync(() -> enter("rulesB"));
+
+    await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !otherAnalysis.isDone());
+    gate.exit(0);
+    await().atMost(5, TimeUnit.SECONDS).until(otherAnalysis::isDone);
+    assertThat(gate.inFlight()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_let_analyses_overtake_a_waiting_one() throws Exception {
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+    var analysisB = CompletableFuture.runAsync(() -> enter("rulesB"));
+    await().atMost(5, TimeUnit.SECONDS).until(() -> gate.waiting() == 1);
+
+    var analysisA = CompletableFuture.runAsync(() -> enter("rulesA"));
+
+    await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !analysisA.isDone());
+    gate.exit(0);
+    await().atMost(5, TimeUnit.SECONDS).until(analysisB::isDone);
+    assertThat(analysisA).isNotDone();
+    gate.exit(0);
+    await().atMost(5, TimeUnit.SECONDS).until(analysisA::isDone);
+  }
+
+  @Test
+  void it_should_time_out_when_other_analyses_do_not_complete() throws Exception {
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+
+    assertThatThrownBy(() -> gate.enter("rulesB", 100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+    gate.enter("rulesA", 1, TimeUnit.SECONDS);
+    assertThat(gate.inFlight()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_run_analyses_with_other_configurations_in_other_slots() throws Exception {
+    var twoSlotsGate = new RulesConfigurationGate(2);
+
+    assertThat(twoSlotsGate.enter("rulesA", 1, TimeUnit.SECONDS)).isZero();
+    assertThat(twoSlotsGate.enter("rulesB", 1, TimeUnit.SECONDS)).isEqualTo(1);
+    assertThat(twoSlotsGate.enter("rulesA", 1, TimeUnit.SECONDS)).isZero();
+    assertThat(twoSlotsGate.inFlight()).isEqualTo(3);
+    assertThatThrownBy(() -> twoSlotsGate.enter("rulesC", 100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  void it_should_prefer_the_slot_already_configured_with_the_same_rules() throws Exception {
+    var twoSlotsGate = new RulesConfigurationGate(2);
+    twoSlotsGate.enter("rulesA", 1, TimeUnit.SECONDS);
+    twoSlotsGate.enter("rulesB", 1, TimeUnit.SECONDS);
+    twoSlotsGate.exit(0);
+    twoSlotsGate.exit(1);
+
+    assertThat(twoSlotsGate.enter("rulesB", 1, TimeUnit.SECONDS)).isEqualTo(1);
+    assertThat(twoSlotsGate.enter("rulesC", 1, TimeUnit.SECONDS)).isZero();
+  }
+
+  private void enter(String configuration) {
+    try {
+      gate.enter(configuration, 10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
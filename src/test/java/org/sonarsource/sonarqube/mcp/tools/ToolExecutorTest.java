@@ -18,9 +18,12 @@ package org.sonarsource.sonarqube.mcp.tools;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import io.modelcontextprotocol.spec.McpSchema;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
 import org.eclipse.lsp4j.jsonrpc.messages.ResponseError;
@@ -33,6 +36,8 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.sonarsource.sonarqube.mcp.analytics.AnalyticsService;
 import org.sonarsource.sonarqube.mcp.analytics.ConnectionContext;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
@@ -339,6 +344,66 @@ class ToolExecutorTest {
       .containsEntry("mcp_server_id", mcpServerId);
   }
 
+  @Test
+  void it_should_abort_sonarqube_calls_once_the_tool_budget_is_spent() {
+    var pendingCall = new CompletableFuture<String>();
+    var executor = new ToolExecutor(mockBackendService, null, null, null, null, ToolCategory::all,
+      new ToolTimeouts(Duration.ZERO, Map.of("tool_name", Duration.ofMillis(100))));
+
+    var callToolResult = executor.execute(new Tool(McpSchema.Tool.builder("tool_name", EMPTY_INPUT_SCHEMA).title("desc").description("").build(),
+      ToolCategory.ANALYSIS) {
+      @Override
+      public Result execute(Arguments arguments) {
+        Deadline.await(pendingCall);
+        return Result.failure("unreachable");
+      }
+    }, McpSchema.CallToolRequest.builder("tool_name").arguments(Map.of()).build());
+
+    assertThat(callToolResult.isError()).isTrue();
+    assertThat(callToolResult.content().toString()).contains("did not answer within the 100ms budget of this tool call");
+    assertThat(pendingCall).isCancelled();
+    assertThat(Deadline.current()).isNull();
+  }
+
+  @Test
+  void it_should_report_tools_running_past_their_budget() {
+    var analyticsService = syncAnalyticsService();
+    var executor = new ToolExecutor(mockBackendService, analyticsService, ConnectionContext.empty(), null, null, ToolCategory::all,
+      new ToolTimeouts(Duration.ZERO, Map.of("tool_name", Duration.ofNanos(1))));
+    var httpClient = new HttpClientProvider("test").getHttpClient("token");
+    var resultCaptor = ArgumentCaptor.forClass(ToolInvocationResult.class);
+
+    var callToolResult = executor.execute(new Tool(McpSchema.Tool.builder("tool_name", EMPTY_INPUT_SCHEMA).title("desc").description("").build(),
+      ToolCategory.ANALYSIS) {
+      @Override
+      public Result execute(Arguments arguments) {
+        // the budget is already spent, the request is not even sent
+        Deadline.await(httpClient.getAsync("http://localhost:1/api/issues/search"));
+        return Result.failure("unreachable");
+      }
+    }, McpSchema.CallToolRequest.builder("tool_name").arguments(Map.of()).build());
+
+    assertThat(callToolResult.isError()).isTrue();
+    verify(analyticsService, timeout(2000)).notifyToolInvoked(resultCaptor.capture());
+    assertThat(resultCaptor.getValue().errorType()).isEqualTo("deadline_exceeded");
+  }
+
+  @Test
+  void it_should_not_bound_tools_without_budget() {
+    var executor = new ToolExecutor(mockBackendService, null, null, null, null, ToolCategory::all, new ToolTimeouts(Duration.ZERO, Map.of()));
+    var deadlines = new ArrayList<Deadline>();
+
+    executor.execute(new Tool(McpSchema.Tool.builder("tool_name", EMPTY_INPUT_SCHEMA).title("desc").description("").build(), ToolCategory.ANALYSIS) {
+      @Override
+      public Result execute(Arguments arguments) {
+        deadlines.add(Deadline.current());
+        return Result.failure("unused");
+      }
+    }, McpSchema.CallToolRequest.builder("tool_name").arguments(Map.of()).build());
+
+    assertThat(deadlines).containsOnlyNulls();
+  }
+
   /** Stubs submit() to run the Runnable synchronously so assertions need no async wait. */
   private static AnalyticsService syncAnalyticsService() {
     var service = mock(AnalyticsService.class);
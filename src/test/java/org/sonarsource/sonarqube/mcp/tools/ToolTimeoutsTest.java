@@ -0,0 +1,58 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ToolTimeoutsTest {
+
+  @Test
+  void it_should_use_tool_specific_budget_when_configured() {
+    var underTest = new ToolTimeouts(Duration.ofMinutes(2), Map.of("analyze_code_snippet", Duration.ofMinutes(5), "search_my_sonarqube_projects", Duration.ZERO));
+
+    assertThat(underTest.budgetFor("analyze_code_snippet")).isEqualTo(Duration.ofMinutes(5));
+    assertThat(underTest.budgetFor("search_sonar_issues_in_projects")).isEqualTo(Duration.ofMinutes(2));
+    assertThat(underTest.budgetFor("search_my_sonarqube_projects")).isNull();
+  }
+
+  @Test
+  void it_should_parse_budgets_by_tool() {
+    assertThat(ToolTimeouts.parseBudgetsByTool(" analyze_code_snippet=300, get_raw_source=10,")).containsOnly(
+      Map.entry("analyze_code_snippet", Duration.ofMinutes(5)),
+      Map.entry("get_raw_source", Duration.ofSeconds(10)));
+    assertThat(ToolTimeouts.parseBudgetsByTool(null)).isEmpty();
+  }
+
+  @Test
+  void it_should_reject_invalid_budgets() {
+    assertThatThrownBy(() -> ToolTimeouts.parseBudgetsByTool("analyze_code_snippet"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid tool timeout 'analyze_code_snippet', expected tool_name=seconds");
+    assertThatThrownBy(() -> ToolTimeouts.parseBudgetsByTool("analyze_code_snippet=soon"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid timeout for tool 'analyze_code_snippet': soon");
+    assertThatThrownBy(() -> ToolTimeouts.parseBudgetsByTool("analyze_code_snippet=-1"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid timeout for tool 'analyze_code_snippet', must not be negative: -1");
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.response.SearchResponse.QualityProfile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActiveRulesCacheTest {
+
+  private static final Map<String, StandaloneRuleConfigDto> RULES = Map.of("php:S1135", new StandaloneRuleConfigDto(true, Map.of()));
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private final Supplier<Map<String, StandaloneRuleConfigDto>> loader = () -> {
+    loads.incrementAndGet();
+    return RULES;
+  };
+
+  @Test
+  void it_should_load_the_rules_of_a_profile_version_once() {
+    var cache = new ActiveRulesCache();
+    var profile = new QualityProfile("php-profile", "2025-01-01T10:00:00+0000", 1);
+
+    assertThat(cache.getActiveRules(profile, "token", loader)).isEqualTo(RULES);
+    assertThat(cache.getActiveRules(profile, "token", loader)).isEqualTo(RULES);
+
+    assertThat(loads).hasValue(1);
+    assertThat(cache.stats()).isEqualTo(new ActiveRulesCache.Stats(1, 1, 1));
+  }
+
+  @Test
+  void it_should_reload_the_rules_when_the_profile_changed() {
+    var cache = new ActiveRulesCache();
+
+    cache.getActiveRules(new QualityProfile("php-profile", "2025-01-01T10:00:00+0000", 1), "token", loader);
+    cache.getActiveRules(new QualityProfile("php-profile", "2025-01-02T10:00:00+0000", 1), "token", loader);
+    cache.getActiveRules(new QualityProfile("php-profile", "2025-01-02T10:00:00+0000", 2), "token", loader);
+
+    assertThat(loads).hasValue(3);
+    assertThat(cache.stats().profiles()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_share_rules_between_tokens() {
+    var cache = new ActiveRulesCache();
+    var profile = new QualityProfile("php-profile", "2025-01-01T10:00:00+0000", 1);
+
+    cache.getActiveRules(profile, "token1", loader);
+    cache.getActiveRules(profile, "token2", loader);
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void it_should_not_cache_profiles_without_fingerprint() {
+    var cache = new ActiveRulesCache();
+    var profile = new QualityProfile("php-profile", null, null);
+
+    cache.getActiveRules(profile, "token", loader);
+    cache.getActiveRules(profile, "token", loader);
+
+    assertThat(loads).hasValue(2);
+    assertThat(cache.stats().profiles()).isZero();
+  }
+
+  @Test
+  void it_should_evict_least_recently_used_profiles() {
+    var cache = new ActiveRulesCache(2);
+    var first = new QualityProfile("first", "2025-01-01T10:00:00+0000", 1);
+
+    cache.getActiveRules(first, "token", loader);
+    cache.getActiveRules(new QualityProfile("second", "2025-01-01T10:00:00+0000", 1), "token", loader);
+    cache.getActiveRules(new QualityProfile("third", "2025-01-01T10:00:00+0000", 1), "token", loader);
+    cache.getActiveRules(first, "token", loader);
+
+    assertThat(loads).hasValue(4);
+    assertThat(cache.stats().profiles()).isEqualTo(2);
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import com.google.gson.Gson;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisResultCacheTest {
+
+  private static final List<AnalyzeCodeSnippetToolResponse.Issue> ISSUES = List.of(
+    new AnalyzeCodeSnippetToolResponse.Issue("php:S1135", "Complete the task associated to this TODO comment.", "INFO", "COMPLETE",
+      "[MAINTAINABILITY:INFO]", false, new AnalyzeCodeSnippetToolResponse.TextRange(2, 2)));
+
+  @Test
+  void it_should_return_the_issues_of_unchanged_content() {
+    var cache = new AnalysisResultCache(1024 * 1024, null);
+    cache.put(keyOf("<?php // TODO\n", "rules", "analyzers"), ISSUES);
+
+    assertThat(cache.get(keyOf("<?php // TODO\n", "rules", "analyzers"))).isEqualTo(ISSUES);
+    assertThat(cache.stats().hits()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_miss_when_content_language_scope_or_rules_changed() {
+    var cache = new AnalysisResultCache(1024 * 1024, null);
+    cache.put(keyOf("<?php // TODO\n", "rules", "analyzers"), ISSUES);
+
+    assertThat(cache.get(keyOf("<?php // TODO!\n", "rules", "analyzers"))).isNull();
+    assertThat(cache.get(AnalysisResultCache.Key.of("<?php // TODO\n", "JS.js", false, "rules", "analyzers"))).isNull();
+    assertThat(cache.get(AnalysisResultCache.Key.of("<?php // TODO\n", "PHP.php", true, "rules", "analyzers"))).isNull();
+    assertThat(cache.get(keyOf("<?php // TODO\n", "other rules", "analyzers"))).isNull();
+    assertThat(cache.stats().misses()).isEqualTo(4);
+  }
+
+  @Test
+  void it_should_drop_the_results_of_a_language_when_its_analyzers_changed() {
+    var cache = new AnalysisResultCache(1024 * 1024, null);
+    cache.put(keyOf("a", "rules", "analyzers"), ISSUES);
+    cache.put(keyOf("b", "rules", "analyzers"), ISSUES);
+    cache.put(jsKeyOf("c", "js analyzers"), ISSUES);
+
+    assertThat(cache.get(keyOf("a", "rules", "new analyzers"))).isNull();
+
+    assertThat(cache.stats().entries()).isEqualTo(1);
+    assertThat(cache.get(keyOf("b", "rules", "analyzers"))).isNull();
+    assertThat(cache.get(jsKeyOf("c", "js analyzers"))).isEqualTo(ISSUES);
+  }
+
+  @Test
+  void it_should_evict_least_recently_used_results_over_the_budget() {
+    var entrySize = AnalysisResultCache.sizeOf(new Gson().toJson(ISSUES));
+    var cache = new AnalysisResultCache(2 * entrySize, null);
+    cache.put(keyOf("a", "rules", "analyzers"), ISSUES);
+    cache.put(keyOf("b", "rules", "analyzers"), ISSUES);
+    cache.get(keyOf("a", "rules", "analyzers"));
+
+    cache.put(keyOf("c", "rules", "analyzers"), ISSUES);
+
+    assertThat(cache.get(keyOf("a", "rules", "analyzers"))).isEqualTo(ISSUES);
+    assertThat(cache.get(keyOf("b", "rules", "analyzers"))).isNull();
+    assertThat(cache.stats().evictions()).isEqualTo(1);
+    assertThat(cache.stats().sizeInBytes()).isLessThanOrEqualTo(2 * entrySize);
+  }
+
+  @Test
+  void it_should_reload_persisted_results(@TempDir Path storagePath) {
+    var directory = storagePath.resolve("analysis-cache");
+    new AnalysisResultCache(1024 * 1024, directory).put(keyOf("a", "rules", "analyzers"), ISSUES);
+
+    var reloaded = new AnalysisResultCache(1024 * 1024, directory);
+
+    assertThat(reloaded.get(keyOf("a", "rules", "analyzers"))).isEqualTo(ISSUES);
+  }
+
+  @Test
+  void it_should_delete_persisted_results_when_the_analyzers_of_their_language_changed(@TempDir Path storagePath) throws Exception {
+    var directory = storagePath.resolve("analysis-cache");
+    var cache = new AnalysisResultCache(1024 * 1024, directory);
+    cache.put(keyOf("a", "rules", "analyzers"), ISSUES);
+    cache.put(jsKeyOf("c", "js analyzers"), ISSUES);
+
+    var reloaded = new AnalysisResultCache(1024 * 1024, directory);
+    reloaded.get(keyOf("b", "rules", "new analyzers"));
+
+    try (var files = Files.list(directory)) {
+      assertThat(files).hasSize(1);
+    }
+    var reloadedAgain = new AnalysisResultCache(1024 * 1024, directory);
+    assertThat(reloadedAgain.get(keyOf("a", "rules", "analyzers"))).isNull();
+    assertThat(reloadedAgain.get(jsKeyOf("c", "js analyzers"))).isEqualTo(ISSUES);
+  }
+
+  @Test
+  void it_should_ignore_results_persisted_without_language_and_analyzers(@TempDir Path storagePath) throws Exception {
+    var directory = Files.createDirectories(storagePath.resolve("analysis-cache"));
+    var digest = keyOf("a", "rules", "analyzers").digest();
+    Files.writeString(directory.resolve(digest + ".json"), new Gson().toJson(ISSUES));
+    Files.writeString(directory.resolve("analyzers"), "analyzers");
+
+    var cache = new AnalysisResultCache(1024 * 1024, directory);
+
+    assertThat(cache.get(keyOf("a", "rules", "analyzers"))).isNull();
+    try (var files = Files.list(directory)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void it_should_do_nothing_when_disabled(@TempDir Path storagePath) {
+    var cache = new AnalysisResultCache(0, storagePath.resolve("analysis-cache"));
+    cache.put(keyOf("a", "rules", "analyzers"), ISSUES);
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.get(keyOf("a", "rules", "analyzers"))).isNull();
+    assertThat(storagePath.resolve("analysis-cache")).doesNotExist();
+  }
+
+  private static AnalysisResultCache.Key keyOf(String content, String rulesFingerprint, String analyzersFingerprint) {
+    return AnalysisResultCache.Key.of(content, "PHP.php", false, rulesFingerprint, analyzersFingerprint);
+  }
+
+  private static AnalysisResultCache.Key jsKeyOf(String content, String analyzersFingerprint) {
+    return AnalysisResultCache.Key.of(content, "JS.js", false, "rules", analyzersFingerprint);
+  }
+
+}
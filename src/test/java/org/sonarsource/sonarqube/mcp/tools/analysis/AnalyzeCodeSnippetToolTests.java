@@ -18,10 +18,15 @@ package org.sonarsource.sonarqube.mcp.tools.analysis;
 
 import jakarta.annotation.Nullable;
 import java.io.IOException;
+import io.modelcontextprotocol.spec.McpSchema;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -485,6 +490,47 @@ class AnalyzeCodeSnippetToolTests {
       }
     }
 
+    @SonarQubeMcpServerTest
+    void it_should_apply_the_rules_of_each_project_to_concurrent_analyses(SonarQubeMcpServerTestHarness harness) throws Exception {
+      analyzeMixedProjectsConcurrently(harness, Map.of());
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_apply_the_rules_of_each_project_to_analyses_running_on_several_backends(SonarQubeMcpServerTestHarness harness) throws Exception {
+      analyzeMixedProjectsConcurrently(harness, Map.of("SONARQUBE_ANALYSIS_BACKENDS", "2"));
+    }
+
+    private void analyzeMixedProjectsConcurrently(SonarQubeMcpServerTestHarness harness, Map<String, String> environment) throws Exception {
+      mockQualityProfiles(harness, "projectWithRule", "qpWithRule");
+      mockRules(harness, "qpWithRule", List.of("php:S1135"));
+      mockQualityProfiles(harness, "projectWithoutRule", "qpWithoutRule");
+      mockRules(harness, "qpWithoutRule", List.of());
+      var mcpClient = harness.withPlugins().newClient(environment);
+      var executor = Executors.newFixedThreadPool(4);
+
+      try {
+        var results = new ArrayList<Future<McpSchema.CallToolResult>>();
+        for (var i = 0; i < 8; i++) {
+          var projectKey = i % 2 == 0 ? "projectWithRule" : "projectWithoutRule";
+          var fileContent = "<?php\n// TODO task " + i + "\n";
+          results.add(executor.submit(() -> mcpClient.callTool(
+            TOOL_NAME,
+            Map.of(
+              AnalyzeCodeSnippetTool.PROJECT_KEY_PROPERTY, projectKey,
+              AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, fileContent,
+              AnalyzeCodeSnippetTool.LANGUAGE_PROPERTY, "php"))));
+        }
+
+        for (var i = 0; i < results.size(); i++) {
+          var result = results.get(i).get(2, TimeUnit.MINUTES);
+          assertThat(result.isError()).isFalse();
+          assertThat(result.content().getFirst().toString()).contains(i % 2 == 0 ? "\"issueCount\" : 1" : "\"issueCount\" : 0");
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
     @SonarQubeMcpServerTest
     void it_should_accept_tsx_as_a_valid_language(SonarQubeMcpServerTestHarness harness) {
       mockServerRules(harness, null, List.of());
@@ -0,0 +1,169 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTest;
+import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTestHarness;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiProvider;
+import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.QualityProfilesApi;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.RulesApi;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpTestClient.assertResultEquals;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetsTool.FILES_PROPERTY;
+import static org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetsTool.TOOL_NAME;
+
+class AnalyzeCodeSnippetsToolTests {
+
+  @SonarQubeMcpServerTest
+  void it_should_be_read_only(SonarQubeMcpServerTestHarness harness) {
+    var mcpClient = harness.newClient();
+
+    var tool = mcpClient.listTools().stream().filter(t -> t.name().equals(TOOL_NAME)).findFirst().orElseThrow();
+
+    assertThat(tool.annotations().readOnlyHint()).isTrue();
+    assertThat(tool.inputSchema().required()).containsExactly(FILES_PROPERTY);
+  }
+
+  @Test
+  void it_should_handle_initialization_failure() {
+    var failedFuture = new CompletableFuture<Void>();
+    failedFuture.completeExceptionally(new RuntimeException("Initialization failed"));
+    var tool = new AnalyzeCodeSnippetsTool(mock(BackendService.class), mock(ServerApiProvider.class), failedFuture, null, null);
+
+    var callToolResult = tool.execute(new Tool.Arguments(Map.of(), null));
+
+    assertThat(callToolResult.isError()).isTrue();
+    assertThat(callToolResult.toCallToolResult().toString()).contains("Server initialization failed: Initialization failed.");
+  }
+
+  @Test
+  void it_should_reject_empty_and_oversized_batches() {
+    var tool = new AnalyzeCodeSnippetsTool(mock(BackendService.class), mock(ServerApiProvider.class), CompletableFuture.completedFuture(null), null, null);
+    var tooManyFiles = Collections.nCopies(AnalyzeCodeSnippetsTool.MAX_FILES + 1, Map.of(AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "x"));
+
+    var emptyResult = tool.execute(new Tool.Arguments(Map.of(FILES_PROPERTY, List.of()), null));
+    var oversizedResult = tool.execute(new Tool.Arguments(Map.of(FILES_PROPERTY, tooManyFiles), null));
+
+    assertThat(emptyResult.toCallToolResult().toString()).contains("At least one file must be provided");
+    assertThat(oversizedResult.toCallToolResult().toString()).contains("At most 50 files can be analyzed at once, got 51");
+  }
+
+  @Nested
+  class Connected {
+
+    @SonarQubeMcpServerTest
+    void it_should_report_issues_per_file(SonarQubeMcpServerTestHarness harness) {
+      mockServerRules(harness);
+      var mcpClient = harness.withPlugins().newClient();
+
+      var result = mcpClient.callTool(
+        TOOL_NAME,
+        Map.of(FILES_PROPERTY, List.of(
+          Map.of(
+            AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY, "clean.php",
+            AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "<?php\necho 'hello';\n",
+            AnalyzeCodeSnippetTool.LANGUAGE_PROPERTY, "php"),
+          Map.of(
+            AnalyzeCodeSnippetTool.FILE_PATH_PROPERTY, "todo.php",
+            AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "<?php\n// TODO just do it\n",
+            AnalyzeCodeSnippetTool.LANGUAGE_PROPERTY, "php"))));
+
+      assertResultEquals(result, """
+        {
+          "files" : [ {
+            "index" : 0,
+            "filePath" : "clean.php",
+            "issues" : [ ],
+            "issueCount" : 0,
+            "analysisFailed" : false
+          }, {
+            "index" : 1,
+            "filePath" : "todo.php",
+            "issues" : [ {
+              "ruleKey" : "php:S1135",
+              "primaryMessage" : "Complete the task associated to this \\"TODO\\" comment.",
+              "severity" : "INFO",
+              "cleanCodeAttribute" : "COMPLETE",
+              "impacts" : "{MAINTAINABILITY=INFO}",
+              "hasQuickFixes" : false,
+              "textRange" : {
+                "startLine" : 2,
+                "endLine" : 2
+              }
+            } ],
+            "issueCount" : 1,
+            "analysisFailed" : false
+          } ],
+          "issueCount" : 1,
+          "deprecationNotice" : "%s"
+        }""".formatted(AnalyzeCodeSnippetTool.DEPRECATION_NOTICE));
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_report_the_invalid_file(SonarQubeMcpServerTestHarness harness) {
+      mockServerRules(harness);
+      var mcpClient = harness.withPlugins().newClient();
+
+      var result = mcpClient.callTool(
+        TOOL_NAME,
+        Map.of(FILES_PROPERTY, List.of(
+          Map.of(AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "<?php\n"),
+          Map.of(
+            AnalyzeCodeSnippetTool.FILE_CONTENT_PROPERTY, "<?php\n",
+            AnalyzeCodeSnippetTool.SNIPPET_PROPERTY, "echo 'missing';"))));
+
+      assertThat(result.isError()).isTrue();
+      assertThat(result.toString()).contains("Invalid file #1: Could not find the provided code snippet");
+    }
+  }
+
+  private static void mockServerRules(SonarQubeMcpServerTestHarness harness) {
+    harness.getMockSonarQubeServer().stubFor(get(QualityProfilesApi.SEARCH_PATH + "?defaults=true").willReturn(okJson("""
+      {
+        "profiles": [
+          {
+            "key": "qpKey"
+          }
+        ]
+      }
+      """)));
+    harness.getMockSonarQubeServer().stubFor(get(RulesApi.SEARCH_PATH + "?qprofile=qpKey&activation=true&f=templateKey%2Cactives&p=1").willReturn(okJson("""
+      {
+        "actives": {
+          "php:S1135": [
+            {
+              "params": []
+            }
+          ]
+        }
+      }
+      """)));
+  }
+
+}